@@ -0,0 +1,123 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+/**
+ * A small benchmark harness.
+ *
+ * <p>
+ * Every iteration first builds a fresh state, untimed, then times one batch
+ * of operations on it. After some warm-up iterations the harness reports the
+ * mean and standard deviation of the time per operation, and the bytes
+ * allocated per operation by the measuring thread.
+ */
+public final class Bench {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** Sink for results of benchmarked operations so they are not optimized away. */
+    private static volatile int sink;
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+
+    /**
+     * A batch of operations to time.
+     *
+     * @param <S> type of the state the operations run on
+     */
+    public interface Operation<S> {
+	/**
+	 * Run the batch.
+	 *
+	 * @param state, a fresh state made for this iteration
+	 */
+	void run(S state);
+    }
+
+    /**
+     * Make a harness.
+     *
+     * @param warmupIterations   number of untimed iterations before measuring
+     * @param measuredIterations number of timed iterations, at least one
+     */
+    public Bench(int warmupIterations, int measuredIterations) {
+	this.warmupIterations = warmupIterations;
+	this.measuredIterations = measuredIterations;
+    }
+
+    /**
+     * Keeps a result of a benchmarked operation alive.
+     *
+     * @param result, any object
+     */
+    public static void consume(Object result) {
+	sink ^= System.identityHashCode(result);
+    }
+
+    /**
+     * Keeps a result of a benchmarked operation alive.
+     *
+     * @param result, any int
+     */
+    public static void consume(int result) {
+	sink ^= result;
+    }
+
+    /**
+     * Measures operation and prints one line of results.
+     *
+     * @param <S>        type of the state the operations run on
+     * @param name       name of the benchmark to print
+     * @param operations number of operations in one batch, at least one
+     * @param setup      makes the state for one iteration
+     * @param operation  the batch to time
+     */
+    public <S> void measure(String name, int operations, Supplier<S> setup, Operation<S> operation) {
+	for (int i = 0; i < warmupIterations; i++) {
+	    operation.run(setup.get());
+	}
+
+	double[] nanosPerOperation = new double[measuredIterations];
+	long allocated = 0;
+	for (int i = 0; i < measuredIterations; i++) {
+	    S state = setup.get();
+	    long bytesBefore = allocatedBytes();
+	    long start = System.nanoTime();
+	    operation.run(state);
+	    long elapsed = System.nanoTime() - start;
+	    allocated += allocatedBytes() - bytesBefore;
+	    nanosPerOperation[i] = (double) elapsed / operations;
+	}
+
+	double mean = 0;
+	for (double value : nanosPerOperation) {
+	    mean += value / measuredIterations;
+	}
+	double variance = 0;
+	for (double value : nanosPerOperation) {
+	    variance += (value - mean) * (value - mean) / measuredIterations;
+	}
+	double bytesPerOperation = (double) allocated / measuredIterations / operations;
+
+	System.out.printf("%-60s %14.1f ns/op  +- %10.1f  %12.1f B/op%n", name, mean, Math.sqrt(variance),
+		bytesPerOperation);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or zero if the
+     * JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+	if (THREADS instanceof com.sun.management.ThreadMXBean) {
+	    return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	return 0;
+    }
+
+}
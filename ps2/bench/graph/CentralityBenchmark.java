@@ -0,0 +1,109 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import graph.EdgeList.Workload;
+
+/**
+ * Benchmarks of ranking every vertex of a graph with Centrality.
+ *
+ * <p>
+ * Every graph is ranked by pageRank with {@value #ITERATIONS} iterations and no
+ * tolerance, so every run does the same work, and by weightedInDegree, both on
+ * the common fork-join pool over a CompactGraph. The same PageRank is also
+ * computed with maps over the Graph operations, as a client of Graph alone
+ * would, on a ConcreteVerticesGraph. Every line reports ns per iteration (or
+ * per call for weightedInDegree) and the bytes allocated by the calling
+ * thread.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin graph.CentralityBenchmark [sizes] [workloads]} where
+ * every argument is a comma separated list, by default 1000000 edges and the
+ * POWER_LAW and WORD_ADJACENCY workloads.
+ */
+public class CentralityBenchmark {
+
+    private static final long SEED = 6005;
+    private static final int ITERATIONS = 20;
+    private static final double DAMPING = 0.85;
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args optional sizes and workloads
+     */
+    public static void main(String[] args) {
+	int[] sizes = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+		: new int[] { 1_000_000 };
+	String[] workloads = args.length > 1 ? args[1].split(",") : new String[] { "POWER_LAW", "WORD_ADJACENCY" };
+
+	Bench bench = new Bench(2, 3);
+	for (String workload : workloads) {
+	    for (int size : sizes) {
+		EdgeList edges = EdgeList.generate(Workload.valueOf(workload), size, SEED);
+		run(bench, String.format("%s/%d", workload, edges.size()), edges);
+	    }
+	}
+    }
+
+    /**
+     * Runs every benchmark on one list of edges.
+     */
+    private static void run(Bench bench, String prefix, EdgeList edges) {
+	Centrality<String> centrality = new Centrality<>(GraphFactory.COMPACT.bulkLoad(edges));
+	bench.measure(prefix + "/page-rank", ITERATIONS, () -> centrality,
+		state -> Bench.consume(state.pageRank(DAMPING, 0, ITERATIONS)));
+	bench.measure(prefix + "/weighted-in-degree", 1, () -> centrality,
+		state -> Bench.consume(state.weightedInDegree()));
+
+	Graph<String> concrete = GraphFactory.CONCRETE_VERTICES.bulkLoad(edges);
+	bench.measure(prefix + "/map-page-rank", ITERATIONS, () -> concrete,
+		state -> Bench.consume(mapPageRank(state, DAMPING, ITERATIONS)));
+    }
+
+    /**
+     * Returns the weighted PageRank of every vertex of graph after the given
+     * number of iterations, computed with maps over the Graph operations.
+     */
+    private static Map<String, Double> mapPageRank(Graph<String> graph, double damping, int iterations) {
+	Map<String, Map<String, Integer>> edges = new HashMap<>();
+	Map<String, Double> ranks = new HashMap<>();
+	for (String v : graph.vertices()) {
+	    edges.put(v, graph.targets(v));
+	}
+	int vertexCount = edges.size();
+	for (String v : edges.keySet()) {
+	    ranks.put(v, 1.0 / vertexCount);
+	}
+	for (int iteration = 0; iteration < iterations; iteration++) {
+	    double dangling = 0;
+	    Map<String, Double> next = new HashMap<>();
+	    for (Map.Entry<String, Map<String, Integer>> row : edges.entrySet()) {
+		double rank = ranks.get(row.getKey());
+		long total = 0;
+		for (int weight : row.getValue().values()) {
+		    total += weight;
+		}
+		if (total == 0) {
+		    dangling += rank;
+		}
+		for (Map.Entry<String, Integer> edge : row.getValue().entrySet()) {
+		    next.merge(edge.getKey(), damping * rank * edge.getValue() / total, Double::sum);
+		}
+	    }
+	    double base = ((1 - damping) + damping * dangling) / vertexCount;
+	    for (String v : edges.keySet()) {
+		next.merge(v, base, Double::sum);
+	    }
+	    ranks = next;
+	}
+	return ranks;
+    }
+
+}
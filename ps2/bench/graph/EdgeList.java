@@ -0,0 +1,143 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An immutable list of distinct weighted edges over a vocabulary of labels,
+ * generated for benchmarks.
+ */
+public final class EdgeList {
+
+    /**
+     * The shapes of generated graphs.
+     */
+    public enum Workload {
+	/** Both ends of every edge drawn uniformly from the vocabulary. */
+	RANDOM,
+	/** Both ends of every edge drawn from a Zipf distribution over the vocabulary. */
+	POWER_LAW,
+	/** Adjacent words of a Zipf-distributed text, weighted by how often they are adjacent. */
+	WORD_ADJACENCY
+    }
+
+    private final String[] labels;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] weights;
+
+    private EdgeList(String[] labels, int[] sources, int[] targets, int[] weights) {
+	this.labels = labels;
+	this.sources = sources;
+	this.targets = targets;
+	this.weights = weights;
+    }
+
+    /**
+     * Generate a list of edges.
+     *
+     * @param workload shape of the graph
+     * @param edges    number of distinct edges wanted; fewer are generated if
+     *                 the workload cannot produce that many in reasonable time
+     * @param seed     seed of the random generator
+     * @return a list of at most edges distinct edges over a vocabulary of about
+     *         edges / 5 labels
+     */
+    public static EdgeList generate(Workload workload, int edges, long seed) {
+	Random random = new Random(seed);
+	int vocabulary = Math.max(16, edges / 5);
+	String[] labels = new String[vocabulary];
+	for (int i = 0; i < vocabulary; i++) {
+	    labels[i] = "word" + i;
+	}
+	Zipf zipf = new Zipf(vocabulary, 1.0);
+
+	Map<Long, Integer> weights = new HashMap<>(edges * 2);
+	long attempts = 0;
+	int previous = zipf.sample(random);
+	while (weights.size() < edges && attempts++ < 50L * edges) {
+	    int source;
+	    int target;
+	    switch (workload) {
+	    case RANDOM:
+		source = random.nextInt(vocabulary);
+		target = random.nextInt(vocabulary);
+		break;
+	    case POWER_LAW:
+		source = zipf.sample(random);
+		target = zipf.sample(random);
+		break;
+	    default:
+		source = previous;
+		target = zipf.sample(random);
+		previous = target;
+		break;
+	    }
+	    long key = ((long) source << 32) | target;
+	    if (workload == Workload.WORD_ADJACENCY) {
+		weights.merge(key, 1, Integer::sum);
+	    } else {
+		weights.putIfAbsent(key, random.nextInt(10) + 1);
+	    }
+	}
+
+	int[] sources = new int[weights.size()];
+	int[] targets = new int[weights.size()];
+	int[] edgeWeights = new int[weights.size()];
+	int i = 0;
+	for (Map.Entry<Long, Integer> entry : weights.entrySet()) {
+	    sources[i] = (int) (entry.getKey() >>> 32);
+	    targets[i] = (int) (long) entry.getKey();
+	    edgeWeights[i] = entry.getValue();
+	    i++;
+	}
+	return new EdgeList(labels, sources, targets, edgeWeights);
+    }
+
+    /** @return the number of edges */
+    public int size() {
+	return sources.length;
+    }
+
+    /** @return the number of labels in the vocabulary */
+    public int vocabularySize() {
+	return labels.length;
+    }
+
+    /**
+     * @param i, index of a label, 0 <= i < vocabularySize()
+     * @return the label
+     */
+    public String label(int i) {
+	return labels[i];
+    }
+
+    /**
+     * @param i, index of an edge, 0 <= i < size()
+     * @return the source of the edge
+     */
+    public String source(int i) {
+	return labels[sources[i]];
+    }
+
+    /**
+     * @param i, index of an edge, 0 <= i < size()
+     * @return the target of the edge
+     */
+    public String target(int i) {
+	return labels[targets[i]];
+    }
+
+    /**
+     * @param i, index of an edge, 0 <= i < size()
+     * @return the weight of the edge
+     */
+    public int weight(int i) {
+	return weights[i];
+    }
+
+}
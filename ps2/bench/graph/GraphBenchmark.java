@@ -0,0 +1,158 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import graph.EdgeList.Workload;
+
+/**
+ * Benchmarks of the Graph operations for every implementation in
+ * GraphFactory.
+ *
+ * <p>
+ * For every workload, graph size and implementation this measures loading the
+ * graph with set() and with a GraphBuilder, then add, set (insert, update and
+ * delete), remove, vertices, sources and targets on the loaded graph.
+ * Mutating benchmarks are skipped for immutable implementations.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin graph.GraphBenchmark [sizes] [implementations] [workloads]}
+ * where every argument is a comma separated list, for example
+ * {@code 1000,10000,1000000 CONCRETE_VERTICES,COMPACT POWER_LAW}. By default
+ * every implementation and workload is run at 1000 and 10000 edges. The rep
+ * checks run as set by {@link Validation}, for example with
+ * {@code -Dgraph.validation=OFF}, and their total time is printed at the end.
+ */
+public class GraphBenchmark {
+
+    private static final long SEED = 6005;
+    private static final int BATCH = 1000;
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args optional sizes, implementations and workloads
+     */
+    public static void main(String[] args) {
+	int[] sizes = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+		: new int[] { 1_000, 10_000 };
+	List<GraphFactory> factories = new ArrayList<>();
+	for (String name : args.length > 1 ? args[1].split(",") : names(GraphFactory.values())) {
+	    factories.add(GraphFactory.valueOf(name));
+	}
+	List<Workload> workloads = new ArrayList<>();
+	for (String name : args.length > 2 ? args[2].split(",") : names(Workload.values())) {
+	    workloads.add(Workload.valueOf(name));
+	}
+
+	Bench bench = new Bench(3, 5);
+	for (Workload workload : workloads) {
+	    for (int size : sizes) {
+		EdgeList edges = EdgeList.generate(workload, size, SEED);
+		for (GraphFactory factory : factories) {
+		    run(bench, String.format("%s/%s/%d", workload, factory, edges.size()), factory, edges);
+		}
+	    }
+	}
+	System.out.printf("validation %s: %d checks in %d ms%n", Validation.level(), Validation.checks(),
+		Validation.nanos() / 1_000_000);
+    }
+
+    /**
+     * Runs every benchmark for one implementation on one list of edges.
+     */
+    private static void run(Bench bench, String prefix, GraphFactory factory, EdgeList edges) {
+	Random random = new Random(SEED);
+	int batch = Math.min(BATCH, edges.size());
+	Graph<String> loaded = factory.load(edges);
+
+	// operands, chosen once so that every iteration does the same work
+	String[] newLabels = new String[batch];
+	int[] existingEdges = new int[batch];
+	String[] absentSources = new String[batch];
+	String[] absentTargets = new String[batch];
+	String[] vertices = new String[batch];
+	Set<String> present = new HashSet<>();
+	for (int i = 0; i < edges.size(); i++) {
+	    present.add(edges.source(i) + "\n" + edges.target(i));
+	}
+	for (int i = 0; i < batch; i++) {
+	    newLabels[i] = "new" + i;
+	    existingEdges[i] = random.nextInt(edges.size());
+	    do {
+		absentSources[i] = edges.label(random.nextInt(edges.vocabularySize()));
+		absentTargets[i] = edges.label(random.nextInt(edges.vocabularySize()));
+	    } while (present.contains(absentSources[i] + "\n" + absentTargets[i]));
+	    vertices[i] = edges.source(random.nextInt(edges.size()));
+	}
+	String[] removed = new HashSet<>(Arrays.asList(vertices)).toArray(new String[0]);
+
+	bench.measure(prefix + "/load", edges.size(), () -> edges, list -> Bench.consume(factory.load(list)));
+	bench.measure(prefix + "/bulk-load", edges.size(), () -> edges, list -> Bench.consume(factory.bulkLoad(list)));
+
+	if (factory.isMutable()) {
+	    bench.measure(prefix + "/add", batch, () -> factory.load(edges), graph -> {
+		for (String label : newLabels) {
+		    Bench.consume(graph.add(label));
+		}
+	    });
+	    bench.measure(prefix + "/set-insert", batch, () -> factory.load(edges), graph -> {
+		for (int i = 0; i < batch; i++) {
+		    Bench.consume(graph.set(absentSources[i], absentTargets[i], 1));
+		}
+	    });
+	    bench.measure(prefix + "/set-update", batch, () -> factory.load(edges), graph -> {
+		for (int i : existingEdges) {
+		    Bench.consume(graph.set(edges.source(i), edges.target(i), 7));
+		}
+	    });
+	    bench.measure(prefix + "/set-delete", batch, () -> factory.load(edges), graph -> {
+		for (int i : existingEdges) {
+		    Bench.consume(graph.set(edges.source(i), edges.target(i), 0));
+		}
+	    });
+	    bench.measure(prefix + "/remove", removed.length, () -> factory.load(edges), graph -> {
+		for (String label : removed) {
+		    Bench.consume(graph.remove(label));
+		}
+	    });
+	}
+
+	int vertexCalls = Math.max(1, batch / 100);
+	bench.measure(prefix + "/vertices", vertexCalls, () -> loaded, graph -> {
+	    for (int i = 0; i < vertexCalls; i++) {
+		Bench.consume(graph.vertices());
+	    }
+	});
+	bench.measure(prefix + "/sources", batch, () -> loaded, graph -> {
+	    for (String label : vertices) {
+		Bench.consume(graph.sources(label));
+	    }
+	});
+	bench.measure(prefix + "/targets", batch, () -> loaded, graph -> {
+	    for (String label : vertices) {
+		Bench.consume(graph.targets(label));
+	    }
+	});
+	if (loaded instanceof MappedGraph<String> mapped) {
+	    mapped.close();
+	}
+    }
+
+    private static String[] names(Enum<?>[] values) {
+	String[] names = new String[values.length];
+	for (int i = 0; i < values.length; i++) {
+	    names[i] = values[i].name();
+	}
+	return names;
+    }
+
+}
@@ -0,0 +1,143 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Every Graph implementation that the benchmarks run against. A new
+ * implementation is benchmarked by adding a constant here.
+ */
+public enum GraphFactory {
+
+    CONCRETE_VERTICES {
+	@Override
+	public Graph<String> empty() {
+	    return new ConcreteVerticesGraph<>();
+	}
+
+	@Override
+	public Graph<String> build(GraphBuilder<String> builder) {
+	    return builder.buildConcreteVerticesGraph();
+	}
+    },
+
+    CONCRETE_EDGES {
+	@Override
+	public Graph<String> empty() {
+	    return new ConcreteEdgesGraph<>();
+	}
+
+	@Override
+	public Graph<String> build(GraphBuilder<String> builder) {
+	    return builder.buildConcreteEdgesGraph();
+	}
+    },
+
+    CONCURRENT {
+	@Override
+	public Graph<String> empty() {
+	    return new ConcurrentGraph<>();
+	}
+
+	@Override
+	public Graph<String> build(GraphBuilder<String> builder) {
+	    return builder.buildConcurrentGraph();
+	}
+    },
+
+    MAPPED {
+	@Override
+	public Graph<String> empty() {
+	    return new MappedGraph<>();
+	}
+
+	@Override
+	public Graph<String> build(GraphBuilder<String> builder) {
+	    return builder.buildMappedGraph();
+	}
+
+	@Override
+	public Graph<String> load(EdgeList edges) {
+	    // read-mostly use: load, then merge the changes into the file once
+	    MappedGraph<String> graph = (MappedGraph<String>) super.load(edges);
+	    graph.compact();
+	    return graph;
+	}
+    },
+
+    COMPACT {
+	@Override
+	public Graph<String> empty() {
+	    return CompactGraph.freeze(Graph.empty());
+	}
+
+	@Override
+	public boolean isMutable() {
+	    return false;
+	}
+
+	@Override
+	public Graph<String> build(GraphBuilder<String> builder) {
+	    return builder.buildCompactGraph();
+	}
+
+	@Override
+	public Graph<String> load(EdgeList edges) {
+	    return CompactGraph.freeze(CONCRETE_VERTICES.load(edges));
+	}
+    };
+
+    /**
+     * Create an empty graph of this implementation.
+     *
+     * @return a new empty graph
+     */
+    public abstract Graph<String> empty();
+
+    /**
+     * Create a graph of this implementation from a builder.
+     *
+     * @param builder, holds the vertices and edges of the graph
+     * @return a new graph
+     */
+    public abstract Graph<String> build(GraphBuilder<String> builder);
+
+    /**
+     * Whether graphs of this implementation support add, set and remove.
+     *
+     * @return true if the graphs are mutable
+     */
+    public boolean isMutable() {
+	return true;
+    }
+
+    /**
+     * Create a graph of this implementation holding the given edges.
+     *
+     * @param edges, edges to load
+     * @return a new graph with every edge of edges
+     */
+    public Graph<String> load(EdgeList edges) {
+	Graph<String> graph = empty();
+	for (int i = 0; i < edges.size(); i++) {
+	    graph.set(edges.source(i), edges.target(i), edges.weight(i));
+	}
+	return graph;
+    }
+
+    /**
+     * Create a graph of this implementation holding the given edges, loaded
+     * through a GraphBuilder.
+     *
+     * @param edges, edges to load
+     * @return a new graph with every edge of edges
+     */
+    public Graph<String> bulkLoad(EdgeList edges) {
+	GraphBuilder<String> builder = new GraphBuilder<>(edges.vocabularySize());
+	for (int i = 0; i < edges.size(); i++) {
+	    builder.set(edges.source(i), edges.target(i), edges.weight(i));
+	}
+	return build(builder);
+    }
+
+}
@@ -0,0 +1,94 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Random;
+
+/**
+ * Measures how long it takes to load a graph one edge at a time with
+ * {@link Graph#set(Object, Object, int)}, and with a {@link GraphBuilder}.
+ *
+ * <p>The edges are drawn at random (with a fixed seed) over a vocabulary of
+ * word-like labels, and every edge is set twice so that both the insert and
+ * the update path of set() are exercised.
+ *
+ * <p>Usage: {@code java -cp bin graph.GraphLoadBenchmark [edges] [vertices]}
+ */
+public class GraphLoadBenchmark {
+
+    private static final long SEED = 6005;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional number of edges (default 1000000) and number of
+     *             vertices (default 200000)
+     */
+    public static void main(String[] args) {
+        int edges = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int vertices = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        String[] labels = new String[vertices];
+        for (int i = 0; i < vertices; i++) {
+            labels[i] = "word" + i;
+        }
+
+        // warm up on a small graph before measuring
+        load(new ConcreteVerticesGraph<String>(), labels, Math.min(edges, 10_000));
+
+        long start = System.nanoTime();
+        Graph<String> graph = load(new ConcreteVerticesGraph<String>(), labels, edges);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("ConcreteVerticesGraph: %d edges over %d vertices loaded in %d ms%n",
+                edges, graph.vertices().size(), elapsed / 1_000_000);
+
+        build(labels, Math.min(edges, 10_000));
+
+        start = System.nanoTime();
+        graph = build(labels, edges);
+        elapsed = System.nanoTime() - start;
+
+        System.out.printf("GraphBuilder: %d edges over %d vertices built in %d ms%n",
+                edges, graph.vertices().size(), elapsed / 1_000_000);
+    }
+
+    /**
+     * Builds a ConcreteVerticesGraph with the same edges and weights as load.
+     *
+     * @param labels vertex labels to draw from
+     * @param edges number of edges to set
+     * @return the built graph
+     */
+    private static Graph<String> build(String[] labels, int edges) {
+        GraphBuilder<String> builder = new GraphBuilder<>(labels.length);
+        Random random = new Random(SEED);
+        for (int i = 0; i < edges; i++) {
+            String source = labels[random.nextInt(labels.length)];
+            String target = labels[random.nextInt(labels.length)];
+            builder.increment(source, target, 1);
+        }
+        return builder.buildConcreteVerticesGraph();
+    }
+
+    /**
+     * Sets the given number of random edges in graph.
+     *
+     * @param graph an empty graph
+     * @param labels vertex labels to draw from
+     * @param edges number of edges to set
+     * @return graph
+     */
+    private static Graph<String> load(Graph<String> graph, String[] labels, int edges) {
+        Random random = new Random(SEED);
+        for (int i = 0; i < edges; i++) {
+            String source = labels[random.nextInt(labels.length)];
+            String target = labels[random.nextInt(labels.length)];
+            int weight = graph.set(source, target, 1);
+            graph.set(source, target, weight + 1);
+        }
+        return graph;
+    }
+
+}
@@ -0,0 +1,118 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import graph.EdgeList.Workload;
+
+/**
+ * Benchmarks of GraphSearch queries between pairs of vertices.
+ *
+ * <p>
+ * The pairs are the source of one random edge and the target of another, so
+ * high-degree vertices are queried as often as they occur in the edges. Every
+ * pair is answered by hops (breadth-first search), distance (Dijkstra) and
+ * bidirectionalDistance on one reused GraphSearch, and by a Dijkstra written
+ * with a PriorityQueue of entries over the Graph operations, as a client of
+ * Graph alone would, on a ConcreteVerticesGraph. Every line reports ns/op and
+ * the bytes allocated per op.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin graph.GraphSearchBenchmark [sizes] [workloads]} where
+ * every argument is a comma separated list, by default 100000,1000000 edges
+ * and the POWER_LAW and WORD_ADJACENCY workloads.
+ */
+public class GraphSearchBenchmark {
+
+    private static final long SEED = 6005;
+    private static final int QUERIES = 200;
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args optional sizes and workloads
+     */
+    public static void main(String[] args) {
+	int[] sizes = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+		: new int[] { 100_000, 1_000_000 };
+	String[] workloads = args.length > 1 ? args[1].split(",") : new String[] { "POWER_LAW", "WORD_ADJACENCY" };
+
+	Bench bench = new Bench(3, 5);
+	for (String workload : workloads) {
+	    for (int size : sizes) {
+		EdgeList edges = EdgeList.generate(Workload.valueOf(workload), size, SEED);
+		run(bench, String.format("%s/%d", workload, edges.size()), edges);
+	    }
+	}
+    }
+
+    /**
+     * Runs every benchmark on one list of edges.
+     */
+    private static void run(Bench bench, String prefix, EdgeList edges) {
+	Graph<String> concrete = GraphFactory.CONCRETE_VERTICES.bulkLoad(edges);
+	GraphSearch<String> search = new GraphSearch<>(concrete);
+
+	Random random = new Random(SEED);
+	String[] sources = new String[QUERIES];
+	String[] targets = new String[QUERIES];
+	for (int i = 0; i < QUERIES; i++) {
+	    sources[i] = edges.source(random.nextInt(edges.size()));
+	    targets[i] = edges.target(random.nextInt(edges.size()));
+	}
+
+	bench.measure(prefix + "/hops", QUERIES, () -> search, state -> {
+	    for (int i = 0; i < QUERIES; i++) {
+		Bench.consume(state.hops(sources[i], targets[i]));
+	    }
+	});
+	bench.measure(prefix + "/distance", QUERIES, () -> search, state -> {
+	    for (int i = 0; i < QUERIES; i++) {
+		Bench.consume(state.distance(sources[i], targets[i]));
+	    }
+	});
+	bench.measure(prefix + "/bidirectional-distance", QUERIES, () -> search, state -> {
+	    for (int i = 0; i < QUERIES; i++) {
+		Bench.consume(state.bidirectionalDistance(sources[i], targets[i]));
+	    }
+	});
+	bench.measure(prefix + "/priority-queue-distance", QUERIES, () -> concrete, state -> {
+	    for (int i = 0; i < QUERIES; i++) {
+		Bench.consume(priorityQueueDistance(state, sources[i], targets[i]));
+	    }
+	});
+    }
+
+    /**
+     * Returns the weight of the lightest path from source to target, found with
+     * Dijkstra's algorithm over the Graph operations, or -1 if there is none.
+     */
+    private static long priorityQueueDistance(Graph<String> graph, String source, String target) {
+	Map<String, Long> settled = new HashMap<>();
+	PriorityQueue<Map.Entry<String, Long>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+	queue.add(Map.entry(source, 0L));
+	while (!queue.isEmpty()) {
+	    Map.Entry<String, Long> next = queue.poll();
+	    if (settled.putIfAbsent(next.getKey(), next.getValue()) != null) {
+		continue;
+	    }
+	    if (next.getKey().equals(target)) {
+		return next.getValue();
+	    }
+	    for (Map.Entry<String, Integer> edge : graph.targets(next.getKey()).entrySet()) {
+		if (!settled.containsKey(edge.getKey())) {
+		    queue.add(Map.entry(edge.getKey(), next.getValue() + edge.getValue()));
+		}
+	    }
+	}
+	return -1;
+    }
+
+}
@@ -0,0 +1,120 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import graph.EdgeList.Workload;
+
+/**
+ * Benchmarks of finding the heaviest two-edge path between pairs of vertices.
+ *
+ * <p>
+ * The pairs are the source of one random edge and the target of another, so
+ * high-degree vertices are queried as often as they occur in the edges. Every
+ * pair is answered three ways:
+ * <ul>
+ * <li>scan-concrete: scanning every target of the source and looking up the
+ * edge to the target, on a ConcreteVerticesGraph, as GraphPoet used to
+ * <li>scan-compact: the same scan on a CompactGraph
+ * <li>two-hop: with TwoHopPaths on the CompactGraph
+ * </ul>
+ * <p>
+ * Every line reports the mean ns/op and bytes allocated per op, then the 50th
+ * and 99th percentiles and the maximum of the time of single queries.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin graph.TwoHopBenchmark [sizes] [workloads]} where every
+ * argument is a comma separated list, by default 100000,1000000 edges and the
+ * POWER_LAW and WORD_ADJACENCY workloads.
+ */
+public class TwoHopBenchmark {
+
+    private static final long SEED = 6005;
+    private static final int QUERIES = 10_000;
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args optional sizes and workloads
+     */
+    public static void main(String[] args) {
+	int[] sizes = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+		: new int[] { 100_000, 1_000_000 };
+	String[] workloads = args.length > 1 ? args[1].split(",") : new String[] { "POWER_LAW", "WORD_ADJACENCY" };
+
+	Bench bench = new Bench(3, 5);
+	for (String workload : workloads) {
+	    for (int size : sizes) {
+		EdgeList edges = EdgeList.generate(Workload.valueOf(workload), size, SEED);
+		run(bench, String.format("%s/%d", workload, edges.size()), edges);
+	    }
+	}
+    }
+
+    /**
+     * Runs every benchmark on one list of edges.
+     */
+    private static void run(Bench bench, String prefix, EdgeList edges) {
+	IndexedGraph<String> concrete = (IndexedGraph<String>) GraphFactory.CONCRETE_VERTICES.bulkLoad(edges);
+	CompactGraph<String> compact = CompactGraph.freeze(concrete);
+	TwoHopPaths<String> paths = new TwoHopPaths<>(compact);
+
+	Random random = new Random(SEED);
+	String[] sources = new String[QUERIES];
+	String[] targets = new String[QUERIES];
+	for (int i = 0; i < QUERIES; i++) {
+	    sources[i] = edges.source(random.nextInt(edges.size()));
+	    targets[i] = edges.target(random.nextInt(edges.size()));
+	}
+
+	measure(bench, prefix + "/scan-concrete", sources, targets, (s, t) -> scan(concrete, s, t));
+	measure(bench, prefix + "/scan-compact", sources, targets, (s, t) -> scan(compact, s, t));
+	measure(bench, prefix + "/two-hop", sources, targets, paths::bestMiddle);
+    }
+
+    /**
+     * Measures the mean time of a query over every pair, then the time of
+     * every query on its own, and prints both.
+     */
+    private static void measure(Bench bench, String name, String[] sources, String[] targets,
+	    BiFunction<String, String, String> query) {
+	bench.measure(name, sources.length, () -> query, state -> {
+	    for (int i = 0; i < sources.length; i++) {
+		Bench.consume(state.apply(sources[i], targets[i]));
+	    }
+	});
+	long[] nanos = new long[sources.length];
+	for (int i = 0; i < sources.length; i++) {
+	    long start = System.nanoTime();
+	    Bench.consume(query.apply(sources[i], targets[i]));
+	    nanos[i] = System.nanoTime() - start;
+	}
+	Arrays.sort(nanos);
+	System.out.printf("%-60s p50 %10d ns  p99 %10d ns  max %10d ns%n", name, nanos[nanos.length / 2],
+		nanos[nanos.length * 99 / 100], nanos[nanos.length - 1]);
+    }
+
+    /**
+     * Returns the middle of the heaviest two-edge path from source to target
+     * by scanning every target of source, or null if there is none.
+     */
+    private static String scan(IndexedGraph<String> graph, String source, String target) {
+	String best = null;
+	long bestWeight = 0;
+	for (Map.Entry<String, Integer> first : graph.targetsView(source).entrySet()) {
+	    int second = graph.weight(first.getKey(), target);
+	    if (second > 0 && first.getValue() + second > bestWeight) {
+		bestWeight = (long) first.getValue() + second;
+		best = first.getKey();
+	    }
+	}
+	return best;
+    }
+
+}
@@ -0,0 +1,46 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An immutable Zipf distribution over ranks 0 to n - 1, where rank r is drawn
+ * with probability proportional to 1 / (r + 1)^s.
+ */
+public final class Zipf {
+
+    private final double[] cumulative;
+
+    /**
+     * Make a distribution.
+     *
+     * @param n number of ranks, at least one
+     * @param s exponent, at least zero
+     */
+    public Zipf(int n, double s) {
+	cumulative = new double[n];
+	double total = 0;
+	for (int rank = 0; rank < n; rank++) {
+	    total += 1 / Math.pow(rank + 1, s);
+	    cumulative[rank] = total;
+	}
+	for (int rank = 0; rank < n; rank++) {
+	    cumulative[rank] /= total;
+	}
+    }
+
+    /**
+     * Draws a rank.
+     *
+     * @param random, source of randomness
+     * @return a rank, 0 <= rank < n
+     */
+    public int sample(Random random) {
+	int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+	return Math.min(rank >= 0 ? rank : -rank - 1, cumulative.length - 1);
+    }
+
+}
@@ -0,0 +1,195 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import graph.Bench;
+import graph.Zipf;
+
+/**
+ * Benchmarks of GraphPoet's two hot paths: building the affinity graph from a
+ * corpus, or loading it from a snapshot, and generating poems.
+ *
+ * <p>
+ * The corpora are a synthetic text whose words follow a Zipf distribution,
+ * star-trek.txt and mugar-omni-theater.txt. Poems are generated for short
+ * (8 word) and long (200 word) inputs drawn from the words of the corpus, with
+ * and without the bridge-word index, one at a time and as a parallel batch.
+ * The best 1 and 5 bridge words are found for pairs of words drawn from the
+ * corpus, by a poet whose ranked rows are already warm. Long poems with
+ * bridge phrases of up to 2 and 3 words are generated with a budget of
+ * {@value #PHRASE_BUDGET_MICROS} microseconds per pair. Every line reports
+ * ns/op and the bytes allocated per op; for batches only the bytes allocated
+ * by the calling thread are counted.
+ *
+ * <p>
+ * Usage, from the repository root:
+ * {@code java -cp bin poet.GraphPoetBenchmark [words] [vocabulary] [exponent]}
+ * to set the size of the synthetic corpus (default 100000 words), its
+ * vocabulary (default 10000 words) and its Zipf exponent (default 1.0).
+ */
+public class GraphPoetBenchmark {
+
+    private static final long SEED = 6005;
+    private static final String PARENT_FOLDER = "ps2/src/poet/";
+    private static final int SHORT_INPUT = 8;
+    private static final int LONG_INPUT = 200;
+    private static final int PHRASE_BUDGET_MICROS = 1000;
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args optional corpus words, vocabulary and exponent
+     * @throws IOException if a corpus cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+	int words = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+	int vocabulary = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+	double exponent = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+
+	Bench bench = new Bench(3, 5);
+	File synthetic = syntheticCorpus(words, vocabulary, exponent);
+	run(bench, String.format("zipf-%d-%d-%.2f", words, vocabulary, exponent), synthetic, 1);
+	run(bench, "star-trek", new File(PARENT_FOLDER + "star-trek.txt"), 1000);
+	run(bench, "mugar-omni-theater", new File(PARENT_FOLDER + "mugar-omni-theater.txt"), 1000);
+    }
+
+    /**
+     * Runs every benchmark on one corpus.
+     *
+     * @param constructions number of poets built per timed batch
+     */
+    private static void run(Bench bench, String name, File corpus, int constructions) throws IOException {
+	String[] tokens = new String(Files.readAllBytes(corpus.toPath()), Charset.defaultCharset()).trim()
+		.split("\\s+");
+	Random random = new Random(SEED);
+	String[] shortInputs = inputs(tokens, 1000, SHORT_INPUT, random);
+	String[] longInputs = inputs(tokens, 50, LONG_INPUT, random);
+	List<String> shortInputList = Arrays.asList(shortInputs);
+	List<String> longInputList = Arrays.asList(longInputs);
+
+	bench.measure(name + "/construct", constructions, () -> corpus, file -> {
+	    for (int i = 0; i < constructions; i++) {
+		Bench.consume(poet(file, false));
+	    }
+	});
+
+	File snapshot = File.createTempFile(name, ".snapshot");
+	snapshot.deleteOnExit();
+	poet(corpus, false).writeSnapshot(snapshot);
+	bench.measure(name + "/load-snapshot", constructions, () -> snapshot, file -> {
+	    for (int i = 0; i < constructions; i++) {
+		Bench.consume(snapshotPoet(file));
+	    }
+	});
+
+	for (boolean indexed : new boolean[] { false, true }) {
+	    String suffix = indexed ? "-indexed" : "";
+	    // a fresh poet per iteration, so the indexed poet pays for filling its index
+	    bench.measure(name + "/poem-short" + suffix, shortInputs.length, () -> poet(corpus, indexed), poet -> {
+		for (String input : shortInputs) {
+		    Bench.consume(poet.poem(input));
+		}
+	    });
+	    bench.measure(name + "/poem-long" + suffix, longInputs.length, () -> poet(corpus, indexed), poet -> {
+		for (String input : longInputs) {
+		    Bench.consume(poet.poem(input));
+		}
+	    });
+	    bench.measure(name + "/poem-short-batch" + suffix, shortInputs.length, () -> poet(corpus, indexed),
+		    poet -> Bench.consume(poet.poems(shortInputList)));
+	    bench.measure(name + "/poem-long-batch" + suffix, longInputs.length, () -> poet(corpus, indexed),
+		    poet -> Bench.consume(poet.poems(longInputList)));
+	}
+
+	Duration budget = Duration.ofNanos(PHRASE_BUDGET_MICROS * 1000L);
+	for (int maxBridgeWords : new int[] { 2, 3 }) {
+	    bench.measure(name + "/poem-long-phrases-" + maxBridgeWords, longInputs.length, () -> poet(corpus, false),
+		    poet -> {
+			for (String input : longInputs) {
+			    Bench.consume(poet.poem(input, maxBridgeWords, GraphPoet.PhraseRanking.TOTAL_WEIGHT, budget));
+			}
+		    });
+	}
+
+	GraphPoet bridgePoet = poet(corpus, false);
+	String[] pairs = inputs(tokens, 1000, 2, random);
+	for (int k : new int[] { 1, 5 }) {
+	    bench.measure(name + "/bridges-top" + k, pairs.length, () -> bridgePoet, poet -> {
+		for (String pair : pairs) {
+		    int space = pair.indexOf(' ');
+		    Bench.consume(poet.bridgeWords(pair.substring(0, space), pair.substring(space + 1), k));
+		}
+	    });
+	}
+    }
+
+    /**
+     * Returns count inputs of length words, each made of tokens drawn at random.
+     */
+    private static String[] inputs(String[] tokens, int count, int length, Random random) {
+	String[] inputs = new String[count];
+	for (int i = 0; i < count; i++) {
+	    StringBuilder input = new StringBuilder();
+	    for (int j = 0; j < length; j++) {
+		input.append(j == 0 ? "" : " ").append(tokens[random.nextInt(tokens.length)]);
+	    }
+	    inputs[i] = input.toString();
+	}
+	return inputs;
+    }
+
+    private static GraphPoet poet(File corpus, boolean indexed) {
+	try {
+	    return new GraphPoet(corpus, indexed);
+	} catch (IOException exp) {
+	    throw new UncheckedIOException(exp);
+	}
+    }
+
+    private static GraphPoet snapshotPoet(File snapshot) {
+	try {
+	    return GraphPoet.fromSnapshot(snapshot, false);
+	} catch (IOException exp) {
+	    throw new UncheckedIOException(exp);
+	}
+    }
+
+    /**
+     * Writes a temporary corpus of the given number of words whose ranks follow a
+     * Zipf distribution; one word in twenty is in upper case, one in twenty ends
+     * with a comma, and lines hold twelve words.
+     */
+    private static File syntheticCorpus(int words, int vocabulary, double exponent) throws IOException {
+	File file = File.createTempFile("zipf-corpus", ".txt");
+	file.deleteOnExit();
+	Random random = new Random(SEED);
+	Zipf zipf = new Zipf(vocabulary, exponent);
+	try (Writer writer = Files.newBufferedWriter(file.toPath(), Charset.defaultCharset())) {
+	    for (int i = 0; i < words; i++) {
+		String word = "w" + Integer.toString(zipf.sample(random), 36);
+		int style = random.nextInt(20);
+		if (style == 0) {
+		    word = word.toUpperCase();
+		} else if (style == 1) {
+		    word = word + ",";
+		}
+		writer.write(word);
+		writer.write(i % 12 == 11 ? "\n" : " ");
+	    }
+	}
+	return file;
+    }
+
+}
@@ -0,0 +1,117 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import graph.Bench;
+
+/**
+ * Benchmarks of word normalization on star-trek.txt scaled up.
+ *
+ * <p>
+ * The corpus is star-trek.txt repeated until it holds the given number of
+ * words. Every word is normalized three ways:
+ * <ul>
+ * <li>regex: with the regular expression and toLowerCase GraphPoet used to
+ * call on every word
+ * <li>normalize: with CorpusReader.normalize, which scans code points and
+ * makes one String per word
+ * <li>buffer: with the buffer form of CorpusReader.normalize and a dictionary
+ * lookup, as GraphPoet.poem does, which makes no String for a word already in
+ * the vocabulary
+ * </ul>
+ * <p>
+ * Then the same corpus is read by CorpusReader, and a poem is written for an
+ * input of its words. Every line reports ns/op (per word) and the bytes
+ * allocated per op.
+ *
+ * <p>
+ * Usage, from the repository root:
+ * {@code java -cp bin poet.NormalizeBenchmark [words]} to set the size of the
+ * scaled corpus (default 1000000 words).
+ */
+public class NormalizeBenchmark {
+
+    private static final String PARENT_FOLDER = "ps2/src/poet/";
+    private static final int INPUT_WORDS = 10_000;
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args optional number of words of the scaled corpus
+     * @throws IOException if a corpus cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+	int words = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+	String[] original = new String(Files.readAllBytes(new File(PARENT_FOLDER + "star-trek.txt").toPath()),
+		Charset.defaultCharset()).trim().split("\\s+");
+	String[] tokens = new String[words];
+	for (int i = 0; i < words; i++) {
+	    tokens[i] = original[i % original.length];
+	}
+	File corpus = scaledCorpus(tokens);
+	WordDictionary dictionary = new WordDictionary();
+	for (String token : tokens) {
+	    dictionary.intern(CorpusReader.normalize(token));
+	}
+
+	Bench bench = new Bench(3, 5);
+	String name = "star-trek-" + words;
+	bench.measure(name + "/regex", words, () -> tokens, state -> {
+	    for (String token : state) {
+		Bench.consume(token.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase());
+	    }
+	});
+	bench.measure(name + "/normalize", words, () -> tokens, state -> {
+	    for (String token : state) {
+		Bench.consume(CorpusReader.normalize(token));
+	    }
+	});
+	StringBuilder buffer = new StringBuilder();
+	bench.measure(name + "/buffer", words, () -> tokens, state -> {
+	    for (String token : state) {
+		CorpusReader.normalize(token, 0, token.length(), buffer);
+		Bench.consume(dictionary.find(buffer));
+	    }
+	});
+
+	bench.measure(name + "/read-corpus", words, () -> corpus, file -> {
+	    try (CorpusReader reader = new CorpusReader(file)) {
+		for (String word = reader.nextWord(); word != null; word = reader.nextWord()) {
+		    Bench.consume(word);
+		}
+	    } catch (IOException exp) {
+		throw new UncheckedIOException(exp);
+	    }
+	});
+
+	GraphPoet poet = new GraphPoet(new File(PARENT_FOLDER + "star-trek.txt"));
+	int inputWords = Math.min(INPUT_WORDS, words);
+	String input = String.join(" ", Arrays.copyOf(tokens, inputWords));
+	bench.measure(name + "/poem", inputWords, () -> input, state -> Bench.consume(poet.poem(state)));
+    }
+
+    /**
+     * Writes tokens to a temporary corpus, twelve words per line.
+     */
+    private static File scaledCorpus(String[] tokens) throws IOException {
+	File file = File.createTempFile("star-trek-scaled", ".txt");
+	file.deleteOnExit();
+	try (Writer writer = Files.newBufferedWriter(file.toPath(), Charset.defaultCharset())) {
+	    for (int i = 0; i < tokens.length; i++) {
+		writer.write(tokens[i]);
+		writer.write(i % 12 == 11 ? "\n" : " ");
+	    }
+	}
+	return file;
+    }
+
+}
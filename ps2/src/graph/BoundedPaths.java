@@ -0,0 +1,442 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the heaviest path between two vertices of a graph through a bounded
+ * number of middle vertices, reusing the work done from a source for every
+ * target searched from it.
+ *
+ * <p>
+ * Paths are found in a {@link Session}, which keeps layers per source: layer d
+ * holds, for every vertex v at the end of a path of d edges from the source
+ * whose vertices after the source are distinct, the heaviest such path to v,
+ * as its total weight and the entry of layer d - 1 it extends. Layer 1 is the
+ * out-row of the source. The heaviest path to a target with j middle vertices
+ * is the heaviest entry u of layer j plus the edge from u to the target, found
+ * by intersecting the layer with the in-row of the target, both sorted by
+ * vertex id, as TwoHopPaths does. Layers are built only when a query needs
+ * them, and kept for the later queries of the session from the same source.
+ *
+ * <p>
+ * Keeping one path per vertex and layer makes the search exact for up to two
+ * middle vertices. With more, it may miss a heavier path when the heaviest
+ * path to some vertex already uses a vertex the rest of that path needs.
+ *
+ * <p>
+ * As in TwoHopPaths, a vertex may be excluded from the middles: it is left
+ * out of every layer, so no path found passes through it.
+ *
+ * <p>
+ * A BoundedPaths is immutable, so it is thread-safe; a Session is not.
+ *
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public final class BoundedPaths<L> {
+
+    private static final int DEADLINE_CHECK_PERIOD = 1024;
+
+    private final CompactGraph<L> graph;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    private final int excluded;
+
+    // Abstraction function:
+    //   AF(graph, excluded) = the paths of graph that do not pass through the
+    //     vertex with id excluded
+    //   the arrays are the adjacency arrays of graph, kept in fields to save a
+    //   call per edge visited
+
+    // Representation invariant:
+    //   every array is the same array as the one of graph
+    //   -1 <= excluded < graph.vertexCount()
+
+    // Safety from rep exposure:
+    //   All the fields are private and final, graph is immutable, and the arrays
+    //   are only read.
+
+    /**
+     * Make a path finder for a graph. Later changes to graph are not reflected
+     * in the paths found.
+     *
+     * @param graph, the graph to search; a CompactGraph is used as it is, any
+     *               other graph is frozen into one
+     */
+    public BoundedPaths(Graph<L> graph) {
+	this(graph, null);
+    }
+
+    /**
+     * Make a path finder for a graph that never finds paths through one vertex.
+     * Later changes to graph are not reflected in the paths found.
+     *
+     * @param graph,          the graph to search; a CompactGraph is used as it
+     *                        is, any other graph is frozen into one
+     * @param excludedMiddle, a vertex that is never a middle vertex of a path
+     *                        found, or null to exclude none
+     */
+    public BoundedPaths(Graph<L> graph, L excludedMiddle) {
+	this.graph = graph instanceof CompactGraph<L> compact ? compact : CompactGraph.freeze(graph);
+	this.outOffsets = this.graph.outOffsets();
+	this.outTargets = this.graph.outTargets();
+	this.outWeights = this.graph.outWeights();
+	this.inOffsets = this.graph.inOffsets();
+	this.inSources = this.graph.inSources();
+	this.inWeights = this.graph.inWeights();
+	this.excluded = excludedMiddle == null ? -1 : this.graph.id(excludedMiddle);
+	checkRep();
+    }
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	assert outOffsets == graph.outOffsets() && outTargets == graph.outTargets()
+		&& outWeights == graph.outWeights();
+	assert inOffsets == graph.inOffsets() && inSources == graph.inSources() && inWeights == graph.inWeights();
+	assert -1 <= excluded && excluded < graph.vertexCount();
+	Validation.record(start);
+    }
+
+    /**
+     * Start a session of queries, which keeps what it finds from every source
+     * for its later queries from that source.
+     *
+     * @return a new session
+     */
+    public Session session() {
+	return new Session();
+    }
+
+    /**
+     * A series of queries, which keeps the layers it has built from every source
+     * and the scratch arrays it builds them in. Not thread-safe.
+     */
+    public final class Session {
+	private final Map<Integer, Layers> sources = new HashMap<>();
+	private long[] totals;
+	private int[] parents;
+	private int[] stamps;
+	private int[] reached;
+	private int stamp = 0;
+	private int joined = -1;
+
+	// Abstraction function:
+	//   AF(sources) = the paths found so far from every source id in sources
+	//   totals, parents, stamps, reached and stamp are scratch space for building
+	//   a layer: vertex v is in the layer being built iff stamps[v] == stamp,
+	//   with its heaviest path of total weight totals[v] extending entry
+	//   parents[v] of the layer before, and reached lists those vertices;
+	//   joined is the entry found by the last call of join
+	// Representation invariant:
+	//   the scratch arrays are null until a layer after the first is built, then
+	//   of length graph.vertexCount()
+	//   every Layers of sources satisfies its own rep invariant
+
+	private Session() {
+	}
+
+	/**
+	 * Find the heaviest path from one vertex to another.
+	 *
+	 * <p>
+	 * The layers from source that the query needs and that are not built yet
+	 * are built until the deadline passes. A layer being built when it passes
+	 * is dropped, and the session builds no more layers from source, so a query
+	 * costs at most about the time left before its deadline plus the time to
+	 * join the layers already built with the target. The first layer is
+	 * always built, whatever the deadline.
+	 *
+	 * @param source,    a label
+	 * @param target,    a label
+	 * @param maxMiddle, the greatest number of middle vertices, at least 1
+	 * @param average,   whether to rank paths by the average weight of their
+	 *                   edges rather than by their total weight
+	 * @param deadline,  a time of System.nanoTime() after which no layer is
+	 *                   built
+	 * @return the middle vertices, in order, of the heaviest path found from
+	 *         source to target with 1 to maxMiddle middle vertices, all
+	 *         distinct and none the excluded middle (among paths of equal rank, one with the fewest middle
+	 *         vertices); empty if none was found
+	 */
+	public List<L> heaviest(L source, L target, int maxMiddle, boolean average, long deadline) {
+	    int from = graph.id(source);
+	    int to = graph.id(target);
+	    if (from < 0 || to < 0) {
+		return Collections.emptyList();
+	    }
+	    Layers layers = sources.computeIfAbsent(from, Layers::new);
+	    while (layers.size() < maxMiddle && !layers.stopped && System.nanoTime() - deadline < 0) {
+		extend(layers, deadline);
+	    }
+
+	    int bestDepth = -1;
+	    int bestEntry = -1;
+	    long bestTotal = 0;
+	    for (int d = 0; d < Math.min(maxMiddle, layers.size()); d++) {
+		long total = join(layers.get(d), to);
+		if (total == 0) {
+		    continue;
+		}
+		// a path through d + 1 middle vertices has d + 2 edges
+		boolean better = average ? total * (bestDepth + 2) > bestTotal * (d + 2) : total > bestTotal;
+		if (bestDepth < 0 || better) {
+		    bestDepth = d;
+		    bestEntry = joined;
+		    bestTotal = total;
+		}
+	    }
+	    if (bestDepth < 0) {
+		return Collections.emptyList();
+	    }
+
+	    List<L> middles = new ArrayList<>(bestDepth + 1);
+	    for (int d = bestDepth, entry = bestEntry; d >= 0; entry = layers.get(d).parents[entry], d--) {
+		middles.add(graph.label(layers.get(d).vertices[entry]));
+	    }
+	    Collections.reverse(middles);
+	    return middles;
+	}
+
+	/**
+	 * Builds the layer after the last one of layers, unless the deadline
+	 * passes first; stops layers if it does, or if the new layer is empty.
+	 */
+	private void extend(Layers layers, long deadline) {
+	    if (stamps == null) {
+		int vertexCount = graph.vertexCount();
+		totals = new long[vertexCount];
+		parents = new int[vertexCount];
+		stamps = new int[vertexCount];
+		reached = new int[vertexCount];
+	    }
+	    if (++stamp == Integer.MAX_VALUE) {
+		Arrays.fill(stamps, 0);
+		stamp = 1;
+	    }
+
+	    Layer last = layers.get(layers.size() - 1);
+	    int count = 0;
+	    int examined = 0;
+	    for (int e = 0; e < last.size(); e++) {
+		int u = last.vertices[e];
+		for (int i = outOffsets[u]; i < outOffsets[u + 1]; i++) {
+		    if (++examined % DEADLINE_CHECK_PERIOD == 0 && System.nanoTime() - deadline >= 0) {
+			layers.stopped = true;
+			return;
+		    }
+		    int v = outTargets[i];
+		    if (v == excluded || layers.onPath(layers.size() - 1, e, v)) {
+			continue;
+		    }
+		    // only a heavier path replaces one, so ties go to the first parent
+		    long total = last.weights[e] + outWeights[i];
+		    if (stamps[v] != stamp) {
+			stamps[v] = stamp;
+			reached[count++] = v;
+		    } else if (total <= totals[v]) {
+			continue;
+		    }
+		    totals[v] = total;
+		    parents[v] = e;
+		}
+	    }
+	    if (count == 0) {
+		layers.stopped = true;
+		return;
+	    }
+
+	    Arrays.sort(reached, 0, count);
+	    int[] vertices = Arrays.copyOf(reached, count);
+	    long[] weights = new long[count];
+	    int[] layerParents = new int[count];
+	    for (int k = 0; k < count; k++) {
+		weights[k] = totals[vertices[k]];
+		layerParents[k] = parents[vertices[k]];
+	    }
+	    layers.add(new Layer(vertices, weights, layerParents));
+	}
+
+	/**
+	 * Finds the heaviest entry of a layer with an edge to a target, walking the
+	 * shorter of the layer and the in-row of target and looking up each of its
+	 * ids in the longer one. Sets joined to the entry e of layer with an edge
+	 * from layer.vertices[e] to target that maximizes layer.weights[e] plus the
+	 * weight of that edge, the one with the smallest vertex on ties, or to -1
+	 * if there is none.
+	 *
+	 * @param layer,  a layer of this session
+	 * @param target, a vertex id
+	 * @return the weight of the path to target through entry joined, or zero
+	 *         if there is none
+	 */
+	private long join(Layer layer, int target) {
+	    int rowFrom = inOffsets[target];
+	    int rowTo = inOffsets[target + 1];
+	    int best = -1;
+	    long bestTotal = 0;
+	    if (layer.size() <= rowTo - rowFrom) {
+		int position = rowFrom;
+		for (int e = 0; e < layer.size() && position < rowTo; e++) {
+		    position = TwoHopPaths.gallop(inSources, position, rowTo, layer.vertices[e]);
+		    if (position < rowTo && inSources[position] == layer.vertices[e]) {
+			long total = layer.weights[e] + inWeights[position];
+			if (total > bestTotal) {
+			    bestTotal = total;
+			    best = e;
+			}
+		    }
+		}
+	    } else {
+		int e = 0;
+		for (int i = rowFrom; i < rowTo && e < layer.size(); i++) {
+		    e = TwoHopPaths.gallop(layer.vertices, e, layer.size(), inSources[i]);
+		    if (e < layer.size() && layer.vertices[e] == inSources[i]) {
+			long total = layer.weights[e] + inWeights[i];
+			if (total > bestTotal) {
+			    bestTotal = total;
+			    best = e;
+			}
+		    }
+		}
+	    }
+	    joined = best;
+	    return bestTotal;
+	}
+    }
+
+    /**
+     * The layers built from one source. Mutable: layers are added until it is
+     * stopped.
+     */
+    private final class Layers {
+	private final List<Layer> layers = new ArrayList<>();
+	private boolean stopped;
+
+	// Abstraction function:
+	//   AF(layers, stopped) = the paths from the source found so far:
+	//                         layers.get(d) is layer d + 1 (see BoundedPaths);
+	//                         if stopped, no more layers will be built
+	// Representation invariant:
+	//   every layer is not empty, its vertices are strictly increasing and its
+	//   weights positive, and it does not hold excluded; the parents of
+	//   layers.get(0) are -1, and those of every later layer are entries of the
+	//   layer before it
+	//   the vertices of the path of every entry after the source are distinct
+
+	/**
+	 * @param source, a vertex id
+	 */
+	private Layers(int source) {
+	    int from = outOffsets[source];
+	    int to = outOffsets[source + 1];
+	    int[] vertices = new int[to - from];
+	    long[] weights = new long[to - from];
+	    int count = 0;
+	    for (int i = from; i < to; i++) {
+		if (outTargets[i] != excluded) {
+		    vertices[count] = outTargets[i];
+		    weights[count++] = outWeights[i];
+		}
+	    }
+	    if (count == 0) {
+		stopped = true;
+		return;
+	    }
+	    int[] parents = new int[count];
+	    Arrays.fill(parents, -1);
+	    add(new Layer(Arrays.copyOf(vertices, count), Arrays.copyOf(weights, count), parents));
+	}
+
+	// checkRep
+	// Check that the rep invariant is true of the last layer, if Validation says
+	// so; the earlier layers were checked when they were added and never change
+	private void checkRep() {
+	    if (!Validation.due()) {
+		return;
+	    }
+	    long start = System.nanoTime();
+	    int last = layers.size() - 1;
+	    Layer layer = layers.get(last);
+	    assert layer.size() > 0;
+	    for (int e = 0; e < layer.size(); e++) {
+		assert e == 0 || layer.vertices[e - 1] < layer.vertices[e];
+		assert layer.vertices[e] != excluded;
+		assert layer.weights[e] > 0;
+		assert last == 0 ? layer.parents[e] == -1
+			: 0 <= layer.parents[e] && layer.parents[e] < layers.get(last - 1).size();
+		assert last == 0 || !onPath(last - 1, layer.parents[e], layer.vertices[e]);
+	    }
+	    Validation.record(start);
+	}
+
+	private int size() {
+	    return layers.size();
+	}
+
+	private Layer get(int d) {
+	    return layers.get(d);
+	}
+
+	private void add(Layer layer) {
+	    layers.add(layer);
+	    checkRep();
+	}
+
+	/**
+	 * Tells whether a vertex is on the path of an entry, after the source.
+	 *
+	 * @param d,      index of the layer of the entry
+	 * @param entry,  an entry of that layer
+	 * @param vertex, a vertex id
+	 * @return true iff vertex is the vertex of entry or of one of the entries
+	 *         it extends
+	 */
+	private boolean onPath(int d, int entry, int vertex) {
+	    for (; d >= 0; entry = layers.get(d).parents[entry], d--) {
+		if (layers.get(d).vertices[entry] == vertex) {
+		    return true;
+		}
+	    }
+	    return false;
+	}
+    }
+
+    /**
+     * One layer from a source: entry e is the heaviest path found to
+     * vertices[e], of total weight weights[e], extending entry parents[e] of
+     * the layer before. Immutable: the arrays are never changed after
+     * construction.
+     */
+    private static final class Layer {
+	private final int[] vertices;
+	private final long[] weights;
+	private final int[] parents;
+
+	private Layer(int[] vertices, long[] weights, int[] parents) {
+	    this.vertices = vertices;
+	    this.weights = weights;
+	    this.parents = parents;
+	}
+
+	private int size() {
+	    return vertices.length;
+	}
+    }
+
+}
@@ -0,0 +1,371 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Ranks the vertices of a graph by importance: weighted PageRank, and weighted
+ * in-degree.
+ *
+ * <p>
+ * Both are computed in parallel on the common fork-join pool, over the
+ * adjacency arrays of a CompactGraph. The vertices are split into chunks of
+ * consecutive ids holding about the same number of vertices plus in-edges, so
+ * a chunk holding a vertex with many in-edges is no slower than the others,
+ * and every chunk is computed by one task. PageRank pulls the rank of every vertex from
+ * its in-row, so every task writes only the entries of its own chunk, and the
+ * per-chunk sums are added in chunk order, so the scores do not depend on how
+ * the tasks were scheduled.
+ *
+ * <p>
+ * The scores are returned as unmodifiable maps backed by one array per call,
+ * rather than by an entry per vertex.
+ *
+ * <p>
+ * A Centrality is immutable, so it is thread-safe.
+ *
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public final class Centrality<L> {
+
+    private static final int MIN_CHUNK_WORK = 1 << 15;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final CompactGraph<L> graph;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    private final double[] inverseOutWeights;
+    private final int[] chunks;
+
+    // Abstraction function:
+    //   AF(graph) = the vertex scores of graph
+    //   inverseOutWeights[v] is 1 over the total weight of the out-edges of v, or
+    //   0 if v has none; vertex chunk c is the ids from chunks[c] to
+    //   chunks[c + 1], exclusive
+
+    // Representation invariant:
+    //   the in arrays are the same arrays as the ones of graph
+    //   inverseOutWeights has length graph.vertexCount()
+    //   chunks starts at 0, ends at graph.vertexCount() and is strictly
+    //   increasing, or is {0, 0} if graph has no vertices
+
+    // Safety from rep exposure:
+    //   All the fields are private and final, graph is immutable, and the arrays
+    //   are never returned; the maps returned are unmodifiable views of arrays
+    //   made by the call.
+
+    /**
+     * Make a ranker for a graph. Later changes to graph are not reflected in
+     * the scores.
+     *
+     * @param graph, the graph to rank; a CompactGraph is used as it is, any
+     *               other graph is frozen into one
+     */
+    public Centrality(Graph<L> graph) {
+	this.graph = graph instanceof CompactGraph<L> compact ? compact : CompactGraph.freeze(graph);
+	this.inOffsets = this.graph.inOffsets();
+	this.inSources = this.graph.inSources();
+	this.inWeights = this.graph.inWeights();
+
+	int[] outOffsets = this.graph.outOffsets();
+	int[] outWeights = this.graph.outWeights();
+	int vertexCount = this.graph.vertexCount();
+	this.inverseOutWeights = new double[vertexCount];
+	for (int v = 0; v < vertexCount; v++) {
+	    long total = 0;
+	    for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+		total += outWeights[i];
+	    }
+	    inverseOutWeights[v] = total == 0 ? 0 : 1.0 / total;
+	}
+	this.chunks = chunks(inOffsets, vertexCount);
+	checkRep();
+    }
+
+    /**
+     * Splits the vertices into chunks of about the same work, a vertex plus its
+     * in-edges.
+     *
+     * @param inOffsets,   the in offsets of a graph
+     * @param vertexCount, the number of vertices of the graph
+     * @return the first id of every chunk, then vertexCount
+     */
+    private static int[] chunks(int[] inOffsets, int vertexCount) {
+	long work = (long) vertexCount + inOffsets[vertexCount];
+	int parallelism = ForkJoinPool.getCommonPoolParallelism();
+	int count = (int) Math.max(1, Math.min(work / MIN_CHUNK_WORK, (long) parallelism * CHUNKS_PER_THREAD));
+	count = Math.min(count, Math.max(1, vertexCount));
+
+	// cut before vertex v + 1 once the work up to it reaches the next share;
+	// a vertex holding several shares makes fewer, larger chunks
+	int[] chunks = new int[count + 1];
+	int c = 1;
+	for (int v = 0; v < vertexCount - 1 && c < count; v++) {
+	    long done = (long) v + 1 + inOffsets[v + 1];
+	    if (done * count >= work * c) {
+		chunks[c++] = v + 1;
+	    }
+	}
+	chunks[c] = vertexCount;
+	return Arrays.copyOf(chunks, c + 1);
+    }
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	assert inOffsets == graph.inOffsets() && inSources == graph.inSources() && inWeights == graph.inWeights();
+	assert inverseOutWeights.length == graph.vertexCount();
+	assert chunks[0] == 0 && chunks[chunks.length - 1] == graph.vertexCount();
+	for (int c = 1; c < chunks.length; c++) {
+	    assert chunks[c - 1] < chunks[c] || graph.vertexCount() == 0;
+	}
+	Validation.record(start);
+    }
+
+    /**
+     * Compute the weighted PageRank of every vertex.
+     *
+     * <p>
+     * A random walker follows an out-edge of its vertex with probability
+     * damping, choosing the edge in proportion to its weight, and otherwise
+     * (or when its vertex has no out-edges) jumps to a vertex chosen uniformly
+     * at random. The rank of a vertex is the probability of finding the walker
+     * there in the long run. The ranks start uniform and are refined by power
+     * iteration until the sum over all vertices of the change in rank is at
+     * most tolerance, or maxIterations iterations have run.
+     *
+     * @param damping,       probability of following an edge, 0 <= damping < 1;
+     *                       0.85 is usual
+     * @param tolerance,     the total change in rank at which to stop,
+     *                       tolerance >= 0
+     * @param maxIterations, the greatest number of iterations, at least 0
+     * @return an unmodifiable map from every vertex to its rank, the ranks
+     *         summing to 1 (up to rounding) if there is any vertex
+     * @throws IllegalArgumentException if damping, tolerance or maxIterations
+     *                                  is out of range
+     */
+    public Map<L, Double> pageRank(double damping, double tolerance, int maxIterations) {
+	if (!(damping >= 0 && damping < 1)) {
+	    throw new IllegalArgumentException("damping must be in [0, 1): " + damping);
+	}
+	if (!(tolerance >= 0)) {
+	    throw new IllegalArgumentException("tolerance must not be negative: " + tolerance);
+	}
+	if (maxIterations < 0) {
+	    throw new IllegalArgumentException("maxIterations must not be negative: " + maxIterations);
+	}
+	int vertexCount = graph.vertexCount();
+	if (vertexCount == 0) {
+	    return new ScoreView<>(v -> 0.0);
+	}
+
+	// shares[v] is the rank v gives per unit of out-edge weight
+	double[] ranks = new double[vertexCount];
+	double[] shares = new double[vertexCount];
+	double[] nextRanks = new double[vertexCount];
+	double[] nextShares = new double[vertexCount];
+	double[] changes = new double[chunks.length - 1];
+	double[] danglings = new double[chunks.length - 1];
+	double dangling = 0;
+	for (int v = 0; v < vertexCount; v++) {
+	    ranks[v] = 1.0 / vertexCount;
+	    shares[v] = ranks[v] * inverseOutWeights[v];
+	    dangling += inverseOutWeights[v] == 0 ? ranks[v] : 0;
+	}
+
+	for (int iteration = 0; iteration < maxIterations; iteration++) {
+	    // the rank every vertex gets from jumps, and from vertices without out-edges
+	    double base = ((1 - damping) + damping * dangling) / vertexCount;
+	    double[] from = ranks;
+	    double[] fromShares = shares;
+	    double[] to = nextRanks;
+	    double[] toShares = nextShares;
+	    forEachChunk(c -> {
+		double change = 0;
+		double chunkDangling = 0;
+		for (int v = chunks[c]; v < chunks[c + 1]; v++) {
+		    double pulled = 0;
+		    for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+			pulled += fromShares[inSources[i]] * inWeights[i];
+		    }
+		    double rank = base + damping * pulled;
+		    to[v] = rank;
+		    toShares[v] = rank * inverseOutWeights[v];
+		    chunkDangling += inverseOutWeights[v] == 0 ? rank : 0;
+		    change += Math.abs(rank - from[v]);
+		}
+		changes[c] = change;
+		danglings[c] = chunkDangling;
+	    });
+
+	    double change = 0;
+	    dangling = 0;
+	    for (int c = 0; c < changes.length; c++) {
+		change += changes[c];
+		dangling += danglings[c];
+	    }
+	    nextRanks = ranks;
+	    nextShares = shares;
+	    ranks = to;
+	    shares = toShares;
+	    if (change <= tolerance) {
+		break;
+	    }
+	}
+
+	double[] result = ranks;
+	return new ScoreView<>(v -> result[v]);
+    }
+
+    /**
+     * Compute the weighted in-degree of every vertex.
+     *
+     * @return an unmodifiable map from every vertex to the total weight of the
+     *         edges into it
+     */
+    public Map<L, Long> weightedInDegree() {
+	long[] degrees = new long[graph.vertexCount()];
+	forEachChunk(c -> {
+	    for (int v = chunks[c]; v < chunks[c + 1]; v++) {
+		long total = 0;
+		for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+		    total += inWeights[i];
+		}
+		degrees[v] = total;
+	    }
+	});
+	return new ScoreView<>(v -> degrees[v]);
+    }
+
+    /**
+     * Runs body on every chunk index, in parallel on the common fork-join pool;
+     * returns when every call has returned.
+     */
+    private void forEachChunk(IntConsumer body) {
+	int count = chunks.length - 1;
+	if (count == 1) {
+	    body.accept(0);
+	} else if (count > 1) {
+	    ForkJoinPool.commonPool().invoke(new ChunkTask(body, 0, count));
+	}
+    }
+
+    /**
+     * Runs a body on a range of chunk indexes, splitting the range in two until
+     * it holds one chunk.
+     */
+    private static class ChunkTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final IntConsumer body;
+	private final int from;
+	private final int to;
+
+	/**
+	 * @param body, the work of one chunk
+	 * @param from, index of the first chunk of the range, inclusive
+	 * @param to,   index of the last chunk of the range, exclusive, from < to
+	 */
+	ChunkTask(IntConsumer body, int from, int to) {
+	    this.body = body;
+	    this.from = from;
+	    this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+	    if (to - from == 1) {
+		body.accept(from);
+		return;
+	    }
+	    int middle = (from + to) >>> 1;
+	    invokeAll(new ChunkTask(body, from, middle), new ChunkTask(body, middle, to));
+	}
+    }
+
+    /**
+     * An unmodifiable map from every vertex of the graph to its score.
+     */
+    private class ScoreView<V> extends AbstractMap<L, V> {
+	private final IntFunction<V> scores;
+
+	/**
+	 * @param scores, the score of every vertex id
+	 */
+	ScoreView(IntFunction<V> scores) {
+	    this.scores = scores;
+	}
+
+	@Override
+	public int size() {
+	    return graph.vertexCount();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+	    return idOf(key) >= 0;
+	}
+
+	@Override
+	public V get(Object key) {
+	    int id = idOf(key);
+	    return id < 0 ? null : scores.apply(id);
+	}
+
+	// The id of key, or -1 if it is not a vertex; the map of ids that id()
+	// looks in accepts any object, so the cast is safe.
+	@SuppressWarnings("unchecked")
+	private int idOf(Object key) {
+	    return graph.id((L) key);
+	}
+
+	@Override
+	public Set<Map.Entry<L, V>> entrySet() {
+	    return new AbstractSet<Map.Entry<L, V>>() {
+		@Override
+		public int size() {
+		    return graph.vertexCount();
+		}
+
+		@Override
+		public Iterator<Map.Entry<L, V>> iterator() {
+		    return new Iterator<Map.Entry<L, V>>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+			    return next < graph.vertexCount();
+			}
+
+			@Override
+			public Map.Entry<L, V> next() {
+			    if (next >= graph.vertexCount()) {
+				throw new NoSuchElementException();
+			    }
+			    int v = next++;
+			    return new AbstractMap.SimpleImmutableEntry<>(graph.label(v), scores.apply(v));
+			}
+		    };
+		}
+	    };
+	}
+    }
+
+}
@@ -0,0 +1,501 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An immutable implementation of Graph for read-heavy workloads.
+ *
+ * <p>
+ * A CompactGraph is made by freezing another graph, with a GraphBuilder, or
+ * by reading a GraphSnapshot. Vertex labels are interned to dense int ids and
+ * the edges are stored in compressed sparse row form: for every vertex id
+ * there is a slice of an int array holding the ids of its neighbours and a
+ * parallel slice holding the edge weights. The mutators add, set, remove and increment throw
+ * UnsupportedOperationException, and the views of IndexedGraph stay valid
+ * forever.
+ */
+public class CompactGraph<L> implements IndexedGraph<L> {
+
+    private final List<L> labels;
+    private final Map<L, Integer> ids;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+
+    // Abstraction function:
+    //   AF(labels, ids, outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights) =
+    //     A graph whose vertices are the labels in this.labels, where for every vertex id v
+    //     and every i with outOffsets[v] <= i < outOffsets[v+1] there is an edge from
+    //     labels[v] to labels[outTargets[i]] with weight outWeights[i].
+    //     inOffsets, inSources and inWeights hold the same edges indexed by target.
+
+    // Representation invariant:
+    //   labels has no duplicates, and ids maps labels.get(v) to v for every vertex id v
+    //   outOffsets and inOffsets have length labels.size() + 1, start at zero, are
+    //     non-decreasing and end at the number of edges
+    //   within every slice the neighbour ids are strictly increasing
+    //   every weight is positive
+    //   the edge v -> u with weight w is in the out slice of v iff it is in the in slice of u
+
+    // Safety from rep exposure:
+    //   All the fields are private and final, and no array or collection of the rep
+    //   is ever returned outside this package; vertices, sources and targets return
+    //   new collections, and verticesView, sourcesView and targetsView return
+    //   unmodifiable views. The algorithms of this package read the adjacency
+    //   arrays in place and never change them.
+
+    private CompactGraph(List<L> labels, Map<L, Integer> ids, int[] outOffsets, int[] outTargets,
+	    int[] outWeights, int[] inOffsets, int[] inSources, int[] inWeights) {
+	this.labels = labels;
+	this.ids = ids;
+	this.outOffsets = outOffsets;
+	this.outTargets = outTargets;
+	this.outWeights = outWeights;
+	this.inOffsets = inOffsets;
+	this.inSources = inSources;
+	this.inWeights = inWeights;
+	checkRep();
+    }
+
+    /**
+     * Freeze a graph into a CompactGraph. Later changes to graph are not
+     * reflected in the returned graph.
+     *
+     * @param <L>   type of vertex labels in the graph, must be immutable
+     * @param graph the graph to copy
+     * @return an immutable graph with the same vertices and edges as graph
+     */
+    public static <L> CompactGraph<L> freeze(Graph<L> graph) {
+	if (graph instanceof IndexedGraph<L> indexed) {
+	    // the views are only read while building, so nothing is copied twice
+	    return build(List.copyOf(indexed.verticesView()), indexed::targetsView);
+	}
+	return build(List.copyOf(graph.vertices()), graph::targets);
+    }
+
+    /**
+     * Build a CompactGraph from an adjacency table.
+     *
+     * @param <L>      type of vertex labels in the graph, must be immutable
+     * @param labels,  the vertices of the graph, without duplicates
+     * @param targets, maps every label in labels to the targets of the edges
+     *                 from it and their positive weights; every target is in
+     *                 labels
+     * @return an immutable graph with those vertices and edges
+     */
+    static <L> CompactGraph<L> build(List<L> labels, Function<L, Map<L, Integer>> targets) {
+	// Intern the labels to dense ids
+	int vertexCount = labels.size();
+	Map<L, Integer> ids = new HashMap<>(vertexCount * 2);
+	for (int id = 0; id < vertexCount; id++) {
+	    ids.put(labels.get(id), id);
+	}
+
+	// Lay out the out-edges of every vertex sorted by target id
+	int[] outOffsets = new int[vertexCount + 1];
+	long[][] outRows = new long[vertexCount][];
+	for (int source = 0; source < vertexCount; source++) {
+	    Map<L, Integer> edges = targets.apply(labels.get(source));
+	    long[] row = new long[edges.size()];
+	    int i = 0;
+	    for (Map.Entry<L, Integer> entry : edges.entrySet()) {
+		int target = ids.get(entry.getKey());
+		row[i++] = pack(target, entry.getValue());
+	    }
+	    Arrays.sort(row);
+	    outRows[source] = row;
+	    outOffsets[source + 1] = outOffsets[source] + row.length;
+	}
+
+	int edgeCount = outOffsets[vertexCount];
+	int[] outTargets = new int[edgeCount];
+	int[] outWeights = new int[edgeCount];
+	for (int source = 0; source < vertexCount; source++) {
+	    int position = outOffsets[source];
+	    for (long packed : outRows[source]) {
+		outTargets[position] = (int) (packed >>> 32);
+		outWeights[position] = (int) packed;
+		position++;
+	    }
+	    outRows[source] = null;
+	}
+
+	return fromOutEdges(labels, ids, outOffsets, outTargets, outWeights);
+    }
+
+    /**
+     * Build a CompactGraph from its out-edges in compressed sparse row form.
+     * The arrays become part of the graph and must not be changed afterwards.
+     *
+     * @param <L>         type of vertex labels in the graph, must be immutable
+     * @param labels,     the vertices of the graph, without duplicates, indexed
+     *                    by vertex id
+     * @param ids,        maps labels.get(v) to v for every vertex id v
+     * @param outOffsets, for every vertex id v, the start of the slice of its
+     *                    edges in outTargets and outWeights; length
+     *                    labels.size() + 1, starts at zero, non-decreasing, ends
+     *                    at the number of edges
+     * @param outTargets, target ids, strictly increasing within every slice
+     * @param outWeights, positive edge weights parallel to outTargets
+     * @return an immutable graph with those vertices and edges
+     */
+    static <L> CompactGraph<L> fromOutEdges(List<L> labels, Map<L, Integer> ids, int[] outOffsets,
+	    int[] outTargets, int[] outWeights) {
+	int vertexCount = labels.size();
+	int edgeCount = outOffsets[vertexCount];
+	int[] inDegrees = new int[vertexCount];
+	for (int i = 0; i < edgeCount; i++) {
+	    inDegrees[outTargets[i]]++;
+	}
+
+	// Transpose into the in-edges; visiting sources in increasing order keeps
+	// every in slice sorted by source id
+	int[] inOffsets = new int[vertexCount + 1];
+	for (int target = 0; target < vertexCount; target++) {
+	    inOffsets[target + 1] = inOffsets[target] + inDegrees[target];
+	}
+	int[] inSources = new int[edgeCount];
+	int[] inWeights = new int[edgeCount];
+	int[] next = Arrays.copyOf(inOffsets, vertexCount);
+	for (int source = 0; source < vertexCount; source++) {
+	    for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+		int position = next[outTargets[i]]++;
+		inSources[position] = source;
+		inWeights[position] = outWeights[i];
+	    }
+	}
+
+	return new CompactGraph<>(labels, ids, outOffsets, outTargets, outWeights, inOffsets, inSources,
+		inWeights);
+    }
+
+    // Packs a neighbour id and a positive weight so that sorting orders by id
+    private static long pack(int id, int weight) {
+	return ((long) id << 32) | (weight & 0xFFFFFFFFL);
+    }
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	int vertexCount = labels.size();
+	assert ids.size() == vertexCount;
+	assert outOffsets.length == vertexCount + 1 && inOffsets.length == vertexCount + 1;
+	assert outOffsets[0] == 0 && inOffsets[0] == 0;
+	assert outOffsets[vertexCount] == outTargets.length && inOffsets[vertexCount] == inSources.length;
+	assert outTargets.length == inSources.length;
+	for (int v = 0; v < vertexCount; v++) {
+	    assert ids.get(labels.get(v)) == v;
+	    for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+		assert outWeights[i] > 0;
+		assert i == outOffsets[v] || outTargets[i - 1] < outTargets[i];
+	    }
+	    for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+		assert inWeights[i] > 0;
+		assert i == inOffsets[v] || inSources[i - 1] < inSources[i];
+	    }
+	}
+	Validation.record(start);
+    }
+
+    /**
+     * Unsupported, a CompactGraph is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean add(L vertex) {
+	throw new UnsupportedOperationException("CompactGraph is immutable");
+    }
+
+    /**
+     * Unsupported, a CompactGraph is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int set(L source, L target, int weight) {
+	throw new UnsupportedOperationException("CompactGraph is immutable");
+    }
+
+    /**
+     * Unsupported, a CompactGraph is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(L vertex) {
+	throw new UnsupportedOperationException("CompactGraph is immutable");
+    }
+
+    /**
+     * Unsupported, a CompactGraph is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int increment(L source, L target, int delta) {
+	throw new UnsupportedOperationException("CompactGraph is immutable");
+    }
+
+    @Override
+    public Set<L> vertices() {
+	return new HashSet<L>(labels);
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+	Integer id = ids.get(target);
+	if (id == null) {
+	    return new HashMap<L, Integer>();
+	}
+	return toMap(inOffsets[id], inOffsets[id + 1], inSources, inWeights);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+	Integer id = ids.get(source);
+	if (id == null) {
+	    return new HashMap<L, Integer>();
+	}
+	return toMap(outOffsets[id], outOffsets[id + 1], outTargets, outWeights);
+    }
+
+    @Override
+    public Set<L> verticesView() {
+	return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sourcesView(L target) {
+	Integer id = ids.get(target);
+	if (id == null) {
+	    return Collections.emptyMap();
+	}
+	return new SliceView(inOffsets[id], inOffsets[id + 1], inSources, inWeights);
+    }
+
+    @Override
+    public Map<L, Integer> targetsView(L source) {
+	Integer id = ids.get(source);
+	if (id == null) {
+	    return Collections.emptyMap();
+	}
+	return new SliceView(outOffsets[id], outOffsets[id + 1], outTargets, outWeights);
+    }
+
+    @Override
+    public int weight(L source, L target) {
+	Integer id = ids.get(source);
+	if (id == null) {
+	    return 0;
+	}
+	int index = indexOf(outOffsets[id], outOffsets[id + 1], outTargets, target);
+	return index < 0 ? 0 : outWeights[index];
+    }
+
+    /**
+     * Get the number of vertices, which are the ids 0 to vertexCount() - 1.
+     *
+     * @return the number of vertices in this graph
+     */
+    int vertexCount() {
+	return labels.size();
+    }
+
+    /**
+     * Get the id of a vertex.
+     *
+     * @param vertex a label
+     * @return the id of vertex, or -1 if it is not in this graph
+     */
+    int id(L vertex) {
+	Integer id = ids.get(vertex);
+	return id == null ? -1 : id;
+    }
+
+    /**
+     * Get the vertex with an id.
+     *
+     * @param id, 0 <= id < vertexCount()
+     * @return the label of the vertex with that id
+     */
+    L label(int id) {
+	return labels.get(id);
+    }
+
+    // The adjacency arrays, shared and not copied: callers must not change them.
+    // The out slice of v is [outOffsets[v], outOffsets[v + 1]) of outTargets and
+    // outWeights, the in slice is [inOffsets[v], inOffsets[v + 1]) of inSources
+    // and inWeights, and the neighbour ids increase within every slice.
+
+    int[] outOffsets() {
+	return outOffsets;
+    }
+
+    int[] outTargets() {
+	return outTargets;
+    }
+
+    int[] outWeights() {
+	return outWeights;
+    }
+
+    int[] inOffsets() {
+	return inOffsets;
+    }
+
+    int[] inSources() {
+	return inSources;
+    }
+
+    int[] inWeights() {
+	return inWeights;
+    }
+
+    /**
+     * Returns the index of neighbour in a slice of the adjacency arrays.
+     *
+     * @param from        start of the slice, inclusive
+     * @param to          end of the slice, exclusive
+     * @param neighbours, neighbour ids, increasing within the slice
+     * @param neighbour,  a label
+     * @return i such that labels.get(neighbours[i]) equals neighbour and
+     *         from <= i < to, or -1 if there is none
+     */
+    private int indexOf(int from, int to, int[] neighbours, Object neighbour) {
+	Integer id = ids.get(neighbour);
+	if (id == null) {
+	    return -1;
+	}
+	int index = Arrays.binarySearch(neighbours, from, to, id);
+	return index < 0 ? -1 : index;
+    }
+
+    /**
+     * An unmodifiable map from neighbour label to edge weight over one slice of
+     * the adjacency arrays.
+     */
+    private class SliceView extends AbstractMap<L, Integer> {
+	private final int from;
+	private final int to;
+	private final int[] neighbours;
+	private final int[] weights;
+
+	SliceView(int from, int to, int[] neighbours, int[] weights) {
+	    this.from = from;
+	    this.to = to;
+	    this.neighbours = neighbours;
+	    this.weights = weights;
+	}
+
+	@Override
+	public int size() {
+	    return to - from;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+	    return indexOf(from, to, neighbours, key) >= 0;
+	}
+
+	@Override
+	public Integer get(Object key) {
+	    int index = indexOf(from, to, neighbours, key);
+	    return index < 0 ? null : weights[index];
+	}
+
+	@Override
+	public Set<Map.Entry<L, Integer>> entrySet() {
+	    return new AbstractSet<Map.Entry<L, Integer>>() {
+		@Override
+		public int size() {
+		    return to - from;
+		}
+
+		@Override
+		public Iterator<Map.Entry<L, Integer>> iterator() {
+		    return new Iterator<Map.Entry<L, Integer>>() {
+			private int next = from;
+
+			@Override
+			public boolean hasNext() {
+			    return next < to;
+			}
+
+			@Override
+			public Map.Entry<L, Integer> next() {
+			    if (next >= to) {
+				throw new NoSuchElementException();
+			    }
+			    int i = next++;
+			    return new AbstractMap.SimpleImmutableEntry<>(labels.get(neighbours[i]), weights[i]);
+			}
+		    };
+		}
+	    };
+	}
+    }
+
+    /**
+     * Returns a new map from neighbour label to edge weight for one slice of
+     * the adjacency arrays.
+     *
+     * @param from        start of the slice, inclusive
+     * @param to          end of the slice, exclusive
+     * @param neighbours, neighbour ids
+     * @param weights,    edge weights parallel to neighbours
+     * @return a map from labels.get(neighbours[i]) to weights[i] for from <= i < to
+     */
+    private Map<L, Integer> toMap(int from, int to, int[] neighbours, int[] weights) {
+	Map<L, Integer> result = new HashMap<L, Integer>((to - from) * 2);
+	for (int i = from; i < to; i++) {
+	    result.put(labels.get(neighbours[i]), weights[i]);
+	}
+	return result;
+    }
+
+    /**
+     * Returns a string representation of the graph, one edge per line
+     * followed by the isolated vertices, in the same format as the other
+     * implementations.
+     *
+     * @return a string representation of the graph
+     */
+    @Override
+    public String toString() {
+	StringBuilder result = new StringBuilder();
+	for (int v = 0; v < labels.size(); v++) {
+	    if (outOffsets[v] == outOffsets[v + 1] && inOffsets[v] == inOffsets[v + 1]) {
+		result.append(labels.get(v)).append("\n");
+	    }
+	    for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+		result.append(String.format("%s-----(%d)----->%s", labels.get(v), outWeights[i],
+			labels.get(outTargets[i])));
+		result.append("\n");
+	    }
+	}
+	return result.toString().trim();
+    }
+
+}
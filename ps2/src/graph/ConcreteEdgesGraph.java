@@ -3,8 +3,12 @@
  */
 package graph;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -15,28 +19,46 @@ import java.util.HashMap;
  * 
  * <p>PS2 instructions: you MUST use the provided rep.
  */
-public class ConcreteEdgesGraph<L> implements Graph<L> {
+public class ConcreteEdgesGraph<L> implements IndexedGraph<L> {
     // Fields
     private final Set<L> vertices = new HashSet<>();
     private final List<Edge<L>> edges = new ArrayList<>();
+    private final Map<L, Map<L, Edge<L>>> outgoingEdges = new HashMap<>();
+    private final Map<L, Map<L, Edge<L>>> incomingEdges = new HashMap<>();
+    private final Map<Edge<L>, Integer> positions = new HashMap<>();
+    private int holes = 0;
     
     // Abstraction function:
-    //   AF(vertices, edges) = A directed positive edge weight graph 
-    //                         such that all the vertices and edges are in this.vertices and this.edges
+    //   AF(vertices, edges, outgoingEdges, incomingEdges, positions) = A directed positive edge weight graph 
+    //                         such that all the vertices and edges are in this.vertices and the non-null
+    //                         entries of this.edges, in the order the edges were added
+    //                         outgoingEdges and incomingEdges index this.edges by head and by tail, and
+    //                         positions maps every edge to its index in this.edges, they are lookup
+    //                         indexes only and add nothing to the abstract value.
+    //                         A null entry is the place of a removed edge, and holes counts them.
                              
     // Representation invariant:
     //   For all the edges in this.edges, the head and tail of the edge is present in this.vertices
     //   The weight of all the edges in the graph is positive.
+    //   Every edge in this.edges is outgoingEdges[head][tail] and incomingEdges[tail][head],
+    //   and the indexes hold no other edges and no empty inner maps.
+    //   positions maps every edge in this.edges, compared by identity, to its index in this.edges.
+    //   this.edges holds exactly holes null entries, and holes * 2 <= edges.size().
     
     // Safety from rep exposure:
     //   All the fields are private and final
     //   The mutators like set, remove, vertices, sources, targets don't expose ADT's internal rep to the client
+    //   verticesView, sourcesView and targetsView return unmodifiable views of the rep, Edge is immutable
     
     
     // Constructor to create a graph with vertices and edges
     public ConcreteEdgesGraph(Set<L> vertices,List<Edge<L>> edges){
     	this.vertices.addAll(vertices);
-    	this.edges.addAll(edges);
+    	for(Edge<L> edge:edges) {
+    		addToEdges(edge);
+    		indexEdge(edge);
+    	}
+    	checkRep();
     }
     
     // Constructor to create an empty graph
@@ -44,12 +66,54 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     	
     }
     
+    // Constructor used by GraphBuilder to create a graph from an adjacency table, in which
+    // every label is a key and every map holds the positive weights of the edges from that
+    // key; the rep is checked once, at the end
+    ConcreteEdgesGraph(Map<L, IntWeightMap<L>> adjacency) {
+    	vertices.addAll(adjacency.keySet());
+    	for(Map.Entry<L, IntWeightMap<L>> entry:adjacency.entrySet()) {
+    		L source = entry.getKey();
+    		IntWeightMap<L> targets = entry.getValue();
+    		if(targets.isEmpty()) {
+    			continue;
+    		}
+    		Map<L, Edge<L>> edgesFromSource = new HashMap<L, Edge<L>>(targets.size() * 4 / 3 + 1);
+    		outgoingEdges.put(source, edgesFromSource);
+    		targets.forEachInt((target, weight) -> {
+    			Edge<L> edge = new Edge<>(source, target, weight);
+    			addToEdges(edge);
+    			edgesFromSource.put(target, edge);
+    			incomingEdges.computeIfAbsent(target, tail -> new HashMap<L, Edge<L>>()).put(source, edge);
+    		});
+    	}
+    	checkRep();
+    }
+    
     // checkRep
-    // Check that the rep invariant is true
+    // Check that the rep invariant is true, if Validation says so
     private void checkRep() {
-    	for(Edge<L> edge:edges) {
+    	if(!Validation.due()) {
+    		return;
+    	}
+    	long start = System.nanoTime();
+    	int indexedEdges = 0;
+    	for(Map<L, Edge<L>> edgesFromHead:outgoingEdges.values()) {
+    		assert !edgesFromHead.isEmpty();
+    		indexedEdges += edgesFromHead.size();
+    	}
+    	assert indexedEdges == edges.size() - holes && positions.size() == edges.size() - holes;
+    	assert holes * 2 <= edges.size();
+    	for(int index = 0; index < edges.size(); index++) {
+    		Edge<L> edge = edges.get(index);
+    		if(edge == null) {
+    			continue;
+    		}
+    		assert positions.get(edge) == index;
     		assert vertices.contains(edge.getHead()) && vertices.contains(edge.getTail());
+    		assert getEdge(edge.getHead(), edge.getTail()) == edge;
+    		assert incomingEdges.get(edge.getTail()).get(edge.getHead()) == edge;
     	}
+    	Validation.record(start);
     }
     
     @Override public boolean add(L vertex) {
@@ -96,14 +160,21 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     }
     
     @Override public boolean remove(L vertex) {
-    	// Removes all the incident from vertex or incident to vertex 
-    	for(int index = edges.size() - 1; index > -1; index--) {
-    		Edge<L> currentEdge = edges.get(index);
-    		if(currentEdge.hasEdgeFrom(vertex) || currentEdge.hasEdgeTo(vertex)) {
-    			edges.remove(index);		
-    		}
+    	// Remove every edge incident from vertex or incident to vertex, found in the indexes,
+    	// so the cost is the degree of vertex rather than the number of edges
+    	Set<Edge<L>> incidentEdges = new HashSet<Edge<L>>();
+    	if(outgoingEdges.containsKey(vertex)) {
+    		incidentEdges.addAll(outgoingEdges.get(vertex).values());
+    	}
+    	if(incomingEdges.containsKey(vertex)) {
+    		incidentEdges.addAll(incomingEdges.get(vertex).values());
+    	}
+    	for(Edge<L> edge:incidentEdges) {
+    		removeFromEdges(edge);
+    		unindexEdge(edge);
     	}
         boolean isDeleted = vertices.remove(vertex); //remove vertex from this.vertices
+        checkRep();
     	return isDeleted;
     }
     
@@ -115,10 +186,11 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     }
     
     @Override public Map<L, Integer> sources(L target) {
-    	// check if the current edge has the target equal to target  if yes then add the source of current edges to sources
+    	// copy the head and weight of every edge indexed under target in incomingEdges
     	Map<L, Integer> sources = new HashMap<L, Integer>(); 
-    	for(Edge<L> currentEdge:edges) {
-    		if(currentEdge.hasEdgeTo(target)) {
+    	Map<L, Edge<L>> edgesToTarget = incomingEdges.get(target);
+    	if(edgesToTarget != null) {
+    		for(Edge<L> currentEdge:edgesToTarget.values()) {
     			sources.put(currentEdge.getHead(), currentEdge.getEdgeWeight());
     		}
     	}
@@ -127,10 +199,11 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     }
     
     @Override public Map<L, Integer> targets(L source) {
-    	// check if the current edge has the source equal to source if yes then add the target of current edges to targets
+    	// copy the tail and weight of every edge indexed under source in outgoingEdges
     	Map<L, Integer> targets = new HashMap<L, Integer>(); 
-    	for(Edge<L> currentEdge:edges) {
-    		if(currentEdge.hasEdgeFrom(source)) {
+    	Map<L, Edge<L>> edgesFromSource = outgoingEdges.get(source);
+    	if(edgesFromSource != null) {
+    		for(Edge<L> currentEdge:edgesFromSource.values()) {
     			targets.put(currentEdge.getTail(), currentEdge.getEdgeWeight());
     		}
     	}
@@ -138,6 +211,166 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     	return targets;
     }
     
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The view is live: it follows later changes to this graph.
+     */
+    @Override public Set<L> verticesView() {
+    	return Collections.unmodifiableSet(vertices);
+    }
+    
+    @Override public Map<L, Integer> sourcesView(L target) {
+    	Map<L, Edge<L>> edgesToTarget = incomingEdges.get(target);
+    	if(edgesToTarget == null) {
+    		return Collections.emptyMap();
+    	}
+    	return new WeightView<L>(edgesToTarget, true);
+    }
+    
+    @Override public Map<L, Integer> targetsView(L source) {
+    	Map<L, Edge<L>> edgesFromSource = outgoingEdges.get(source);
+    	if(edgesFromSource == null) {
+    		return Collections.emptyMap();
+    	}
+    	return new WeightView<L>(edgesFromSource, false);
+    }
+    
+    @Override public int weight(L source, L target) {
+    	Edge<L> edge = getEdge(source, target);
+    	return edge == null ? 0 : edge.getEdgeWeight();
+    }
+    
+    @Override public int increment(L source, L target, int delta) {
+    	// Look up the edge once in the index of source, then replace it (edges are
+    	// immutable) or add a new edge of weight delta
+    	Map<L, Edge<L>> edgesFromSource = outgoingEdges.computeIfAbsent(source, head -> new HashMap<L, Edge<L>>());
+    	Edge<L> previousEdge = edgesFromSource.get(target);
+    	int newWeight = delta;
+    	if(previousEdge == null) {
+    		vertices.add(source);
+    		vertices.add(target);
+    	}else {
+    		newWeight += previousEdge.getEdgeWeight();
+    	}
+    	Edge<L> newEdge = new Edge<>(source, target, newWeight);
+    	if(previousEdge == null) {
+    		addToEdges(newEdge);
+    	}else {
+    		replaceInEdges(previousEdge, newEdge);
+    	}
+    	edgesFromSource.put(target, newEdge);
+    	incomingEdges.computeIfAbsent(target, tail -> new HashMap<L, Edge<L>>()).put(source, newEdge);
+    	checkRep();
+    	return newWeight;
+    }
+    
+    
+    /**
+     * Returns the directed edge from head to tail in this graph
+     *
+     * @param possibleHead, a label
+     * @param possibleTail, a label
+     * @return the edge from head to tail, or null if no edge exists from head to tail
+     */
+    private Edge<L> getEdge(L possibleHead, L possibleTail) {
+    	Map<L, Edge<L>> edgesFromHead = outgoingEdges.get(possibleHead);
+    	if(edgesFromHead == null) {
+    		return null;
+    	}
+    	return edgesFromHead.get(possibleTail);
+    }
+    
+    
+    /**
+     * Adds edge to outgoingEdges and incomingEdges, edge must not already be indexed
+     *
+     * @param edge, an edge of this graph
+     */
+    private void indexEdge(Edge<L> edge) {
+    	outgoingEdges.computeIfAbsent(edge.getHead(), head -> new HashMap<L, Edge<L>>()).put(edge.getTail(), edge);
+    	incomingEdges.computeIfAbsent(edge.getTail(), tail -> new HashMap<L, Edge<L>>()).put(edge.getHead(), edge);
+    }
+    
+    
+    /**
+     * Appends edge to this.edges and records its position
+     *
+     * @param edge, an edge not in this.edges
+     */
+    private void addToEdges(Edge<L> edge) {
+    	positions.put(edge, edges.size());
+    	edges.add(edge);
+    }
+    
+    
+    /**
+     * Puts newEdge in the place of oldEdge in this.edges, so changing a weight keeps the edge's position
+     *
+     * @param oldEdge, an edge in this.edges
+     * @param newEdge, an edge not in this.edges
+     */
+    private void replaceInEdges(Edge<L> oldEdge, Edge<L> newEdge) {
+    	int index = positions.remove(oldEdge);
+    	edges.set(index, newEdge);
+    	positions.put(newEdge, index);
+    }
+    
+    
+    /**
+     * Removes edge from this.edges in amortized constant time, keeping the order of the other
+     * edges: its place is left null, and once more than half of this.edges is null the list is
+     * compacted in one pass
+     *
+     * @param edge, an edge in this.edges
+     */
+    private void removeFromEdges(Edge<L> edge) {
+    	int index = positions.remove(edge);
+    	edges.set(index, null);
+    	holes++;
+    	if(holes * 2 > edges.size()) {
+    		compactEdges();
+    	}
+    }
+    
+    
+    /**
+     * Moves every edge of this.edges over the null entries before it, in order, and drops the
+     * null entries left at the end
+     */
+    private void compactEdges() {
+    	int kept = 0;
+    	for(int index = 0; index < edges.size(); index++) {
+    		Edge<L> edge = edges.get(index);
+    		if(edge != null) {
+    			edges.set(kept, edge);
+    			positions.put(edge, kept);
+    			kept++;
+    		}
+    	}
+    	edges.subList(kept, edges.size()).clear();
+    	holes = 0;
+    }
+    
+    
+    /**
+     * Removes edge from outgoingEdges and incomingEdges, dropping inner maps that become empty
+     *
+     * @param edge, an edge indexed in this graph
+     */
+    private void unindexEdge(Edge<L> edge) {
+    	Map<L, Edge<L>> edgesFromHead = outgoingEdges.get(edge.getHead());
+    	edgesFromHead.remove(edge.getTail());
+    	if(edgesFromHead.isEmpty()) {
+    		outgoingEdges.remove(edge.getHead());
+    	}
+    	Map<L, Edge<L>> edgesToTail = incomingEdges.get(edge.getTail());
+    	edgesToTail.remove(edge.getHead());
+    	if(edgesToTail.isEmpty()) {
+    		incomingEdges.remove(edge.getTail());
+    	}
+    }
+    
     
     /**
      * Checks whether this graph has a directed edge from head to tail 
@@ -148,13 +381,7 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
      *         otherwise returns false if no edge exists from head to tail
      */
     private boolean hasEdgeBetween(L possibleHead, L possibleTail) {
-    	for(Edge<L> currentEdge:this.edges) {
-        		if( currentEdge.hasEdgeBetween(possibleHead, possibleTail) ) {
-        			return true;
-        		}
-        }
-    	checkRep();
-    	return false;
+    	return getEdge(possibleHead, possibleTail) != null;
     }
     
     
@@ -166,16 +393,15 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
      * @return the weight of the removed edge, or zero if there was no such edge
      */
     private int removeEdge(L possibleHead, L possibleTail) {
-    	// Iterate over this.edges and if there is an edge from possibleHead to possibleTail removes it
-    	// and returns true, Otherwise, return false.
-    	for (Edge<L> currentEdge:edges) {
-    		if(currentEdge.hasEdgeBetween(possibleHead, possibleTail)) {
-    			edges.remove(currentEdge);
-    			return currentEdge.getEdgeWeight();
-    		}
+    	// Look up the edge from possibleHead to possibleTail and if there is one remove it
+    	// from this.edges and the indexes and return its weight, Otherwise, return zero.
+    	Edge<L> currentEdge = getEdge(possibleHead, possibleTail);
+    	if(currentEdge == null) {
+    		return 0;
     	}
-    	checkRep();
-    	return 0;
+    	removeFromEdges(currentEdge);
+    	unindexEdge(currentEdge);
+    	return currentEdge.getEdgeWeight();
     }
     
     /**
@@ -191,19 +417,16 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
      * @returns true if a directed edge is added from source to target
      *          otherwise, returns false if no edge was added
      */
-     private boolean addEdge(L source, L target, Integer weight) {
+     private boolean addEdge(L source, L target, int weight) {
     	// If source or target are absent from this.vertices, add source and target to this.vertices; 
     	if (hasEdgeBetween(source, target) | weight <= 0) {
     		return false;
     	}else {
-    		if(!vertices.contains(source)) {
-     			vertices.add(source);
-     		}
-     		if(!vertices.contains(target)) {
-     			vertices.add(target);
-     		}
-     		edges.add(new Edge<>(source, target, weight)); // add new edge
-     		checkRep();
+    		vertices.add(source);
+     		vertices.add(target);
+     		Edge<L> newEdge = new Edge<>(source, target, weight);
+     		addToEdges(newEdge); // add new edge
+     		indexEdge(newEdge);
      		return true;
     	}
     	
@@ -220,13 +443,14 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
       * @returns previous weight of the directed edge if the edge is changed,
       *          otherwise, returns zero if there was no such edge
       */
-      private int changeEdgeWeight(L source, L target, Integer newWeight) {
-     	// If source or target are absent from this.vertices, add source and target to this.vertices; 
+      private int changeEdgeWeight(L source, L target, int newWeight) {
+     	// Replace the existing immutable edge by a new edge with newWeight
     	if(this.hasEdgeBetween(source, target) && newWeight > 0 ) {
-  			int previousEdgeWeight = removeEdge(source, target); // remove exiting edge 
-  			edges.add(new Edge<L>(source, target, newWeight)); // add new edge
-  			checkRep();
-  			return previousEdgeWeight;
+  			Edge<L> previousEdge = getEdge(source, target);
+  			Edge<L> newEdge = new Edge<L>(source, target, newWeight);
+  			replaceInEdges(previousEdge, newEdge); // the new edge takes the place of the exiting edge
+  			indexEdge(newEdge);
+  			return previousEdge.getEdgeWeight();
   		}
     	
     	return 0;
@@ -259,6 +483,9 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     	// Add edges to result
     	String stringGraph = "";
       	for(Edge<L> edge:edges) {
+      		if(edge == null) {
+      			continue;
+      		}
  
       		connectedVertices.add(edge.getHead());
       		connectedVertices.add(edge.getTail());
@@ -278,6 +505,70 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
      
       
     
+}
+
+/**
+ * This class is internal to the rep of ConcreteEdgesGraph.
+ * An unmodifiable view of a map from neighbour to Edge, as a map from
+ * neighbour to the weight of the edge.
+ */
+class WeightView<L> extends AbstractMap<L, Integer> {
+	
+	// fields
+	private final Map<L, Edge<L>> edges;
+	private final boolean keyIsHead;
+	
+	// Abstraction function:
+	//   AF(edges, keyIsHead) = the map from every key k of edges to edges[k].weight
+	
+	// Representation invariant:
+	//   every edge edges[k] has its head (if keyIsHead) or else its tail equal to k
+	
+	// Safety from rep exposure:
+	//   all the fields are private and final, the view has no mutators and Edge is immutable.
+	
+	// constructor
+	WeightView(Map<L, Edge<L>> edges, boolean keyIsHead) {
+		this.edges = edges;
+		this.keyIsHead = keyIsHead;
+	}
+	
+	@Override public int size() {
+		return edges.size();
+	}
+	
+	@Override public boolean containsKey(Object key) {
+		return edges.containsKey(key);
+	}
+	
+	@Override public Integer get(Object key) {
+		Edge<L> edge = edges.get(key);
+		return edge == null ? null : edge.getEdgeWeight();
+	}
+	
+	@Override public Set<Map.Entry<L, Integer>> entrySet() {
+		return new AbstractSet<Map.Entry<L, Integer>>() {
+			@Override public int size() {
+				return edges.size();
+			}
+			
+			@Override public Iterator<Map.Entry<L, Integer>> iterator() {
+				Iterator<Edge<L>> iterator = edges.values().iterator();
+				return new Iterator<Map.Entry<L, Integer>>() {
+					@Override public boolean hasNext() {
+						return iterator.hasNext();
+					}
+					
+					@Override public Map.Entry<L, Integer> next() {
+						Edge<L> edge = iterator.next();
+						L key = keyIsHead ? edge.getHead() : edge.getTail();
+						return new AbstractMap.SimpleImmutableEntry<>(key, edge.getEdgeWeight());
+					}
+				};
+			}
+		};
+	}
+	
 }
 
 /**
@@ -292,7 +583,7 @@ class Edge<L> {
    // fields
 	private final L head;
 	private final L tail;
-	private final Integer weight;
+	private final int weight;
 	
     
     // Abstraction function:
@@ -348,7 +639,7 @@ class Edge<L> {
      * 
      * @return the weight of this directed edge
      */
-    public Integer getEdgeWeight() {
+    public int getEdgeWeight() {
     	return weight;
     }
     
@@ -5,6 +5,7 @@ package graph;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -16,15 +17,22 @@ import java.util.HashSet;
  * 
  * <p>PS2 instructions: you MUST use the provided rep.
  */
-public class ConcreteVerticesGraph<L> implements Graph<L> {
+public class ConcreteVerticesGraph<L> implements IndexedGraph<L> {
     
-    private final List<Vertex<L>> vertices = new ArrayList<>();
+    private final List<Vertex<L>> vertices;
+    private final Map<L, Vertex<L>> vertexIndex;
+    private final Map<L, Integer> positions;
+    private int holes = 0;
     
     // Abstraction function:
-    //  AF(vertices) = A graph with all its vertices in this.vertices and 
+    //  AF(vertices, vertexIndex, positions) = A graph with all its vertices in the non-null entries of this.vertices and 
     //                 for each vertex in this.vertices, there is a directed edge from all the vertices in 
     //                 vertex.incomingVertices to this vertex and a directed edge from vertex to each of  
     //                 the vertices in vertex.outgoingVertices.
+    //                 vertexIndex maps the name of every vertex to that vertex, and positions maps it 
+    //                 to the index of that vertex in this.vertices, they are lookup indexes only and add 
+    //                 nothing to the abstract value.
+    //                 A null entry is the place of a removed vertex, and holes counts them.
     
     // Representation invariant:
     //   1. All the vertices in this.vertices are unique and have a non empty string as their name
@@ -32,35 +40,97 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
     //      where x,y are a present in this.vertices, and w is a integer greater than zero
     //   3. For every pair x,w in y.outgoingEdges, there exist a pair y,w in x.incomingEdges
     //      where x,y are a Vertex type objects present in this.vertices, and w is a integer greater than zero
+    //   4. vertexIndex has exactly one entry name -> vertex for every vertex in this.vertices
+    //   5. positions has exactly one entry name -> index for every vertex in this.vertices, where
+    //      index is the position of that vertex in this.vertices
+    //   6. this.vertices holds exactly holes null entries, and holes * 2 <= vertices.size()
   
     // Safety from rep exposure:
     //  All the fields are private and final
     //  The mutators like set, remove, vertices, sources, targets don't expose ADT's internal rep to the client
+    //  verticesView, sourcesView and targetsView return unmodifiable views of the rep
     
     
     // constructor
     // ConcreteVerticesGraph() to create an empty graph
     public ConcreteVerticesGraph() {
+    	vertices = new ArrayList<>();
+    	vertexIndex = new HashMap<>();
+    	positions = new HashMap<>();
+    }
+    
+    // Constructor used by GraphBuilder to create a graph from an adjacency table, in which
+    // every label is a key and every map holds the positive weights of the edges from that
+    // key; the structures are presized and the rep is checked once, at the end
+    ConcreteVerticesGraph(Map<L, IntWeightMap<L>> adjacency) {
+    	vertices = new ArrayList<>(adjacency.size());
+    	vertexIndex = new HashMap<>(adjacency.size() * 4 / 3 + 1);
+    	positions = new HashMap<>(adjacency.size() * 4 / 3 + 1);
     	
+    	IntWeightMap<L> incomingDegrees = new IntWeightMap<>(adjacency.size());
+    	for(IntWeightMap<L> targets:adjacency.values()) {
+    		targets.forEachInt((target, weight) -> incomingDegrees.addInt(target, 1));
+    	}
+    	for(Map.Entry<L, IntWeightMap<L>> entry:adjacency.entrySet()) {
+    		Vertex<L> vertex = new Vertex<>(entry.getKey(), entry.getValue(), incomingDegrees.getInt(entry.getKey()));
+    		addToVertices(vertex);
+    	}
+    	for(Map.Entry<L, IntWeightMap<L>> entry:adjacency.entrySet()) {
+    		L source = entry.getKey();
+    		entry.getValue().forEachInt((target, weight) -> vertexIndex.get(target).putEdgeFrom(source, weight));
+    	}
+    	checkRep();
     }
     
-	    // TODO checkRep
-	    // Check that the rep invariant is true
+	    // checkRep
+	    // Check that the rep invariant is true for the whole graph, if Validation says so
 	    private void checkRep() {
-		    	for(Vertex<L> vertex:vertices) {
-		    		List<Integer> incomingVertexIndices = getVertexIndices(vertex.getIncomingNeighbours());
-		    		for(Integer index:incomingVertexIndices) {
-		    			Vertex<L> incomingVertex = vertices.get(index);
-		    			Integer weight = vertex.getIncomingEdgeWeight(incomingVertex.getName());
-		    			assert incomingVertex.hasEdgeTo(vertex.getName(), weight);
-		    		}
-		    		
-		    		List<Integer> outgoingVertexIndices = getVertexIndices(vertex.getOutgoingNeighbours());
-		    		for(Integer index:outgoingVertexIndices) {
-		    			Vertex<L> outgoingVertex = vertices.get(index);
-		    			Integer weight = vertex.getOutgoingEdgeWeight(outgoingVertex.getName());
-		    			assert outgoingVertex.hasEdgeFrom(vertex.getName(), weight);
+		    	if(!Validation.due()) {
+		    		return;
+		    	}
+		    	long start = System.nanoTime();
+		    	assert vertices.size() - holes == vertexIndex.size() && positions.size() == vertexIndex.size();
+		    	assert holes * 2 <= vertices.size();
+		    	for(int index = 0; index < vertices.size(); index++) {
+		    		Vertex<L> vertex = vertices.get(index);
+		    		if(vertex == null) {
+		    			continue;
 		    		}
+		    		assert vertexIndex.get(vertex.getName()) == vertex;
+		    		assert positions.get(vertex.getName()) == index;
+		    		checkVertex(vertex.getName());
+		    	}
+		    	Validation.record(start);
+	    }
+	    
+	    // checkRep
+	    // Check that the rep invariant is true for the edges incident on a single vertex,
+	    // if Validation says so; set() only touches the edges of its source and target
+	    // so it checks just those
+	    private void checkRep(L label) {
+		    	if(!Validation.due()) {
+		    		return;
+		    	}
+		    	long start = System.nanoTime();
+		    	checkVertex(label);
+		    	Validation.record(start);
+	    }
+	    
+	    // Check the edges incident on a single vertex, for checkRep
+	    private void checkVertex(L label) {
+		    	Vertex<L> vertex = vertexIndex.get(label);
+		    	if(vertex == null) {
+		    		return;
+		    	}
+		    	for(L incomingName:vertex.getIncomingNeighbours()) {
+		    		Vertex<L> incomingVertex = vertexIndex.get(incomingName);
+		    		int weight = vertex.getIncomingEdgeWeight(incomingName);
+		    		assert incomingVertex != null && incomingVertex.hasEdgeTo(label, weight);
+		    	}
+		    	for(L outgoingName:vertex.getOutgoingNeighbours()) {
+		    		Vertex<L> outgoingVertex = vertexIndex.get(outgoingName);
+		    		int weight = vertex.getOutgoingEdgeWeight(outgoingName);
+		    		assert outgoingVertex != null && outgoingVertex.hasEdgeFrom(label, weight);
 		    	}
 	    }
 	    
@@ -79,11 +149,13 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 		    		if(hasEdgeBetween(source,target)) {
 		    			int oldWeight = getEdgeWeight(source, target);
 		    	    	changeEdgeWeight(source, target, weight);
-		    	    	checkRep();
+		    	    	checkRep(source);
+		    	    	checkRep(target);
 		    	    	return oldWeight;
 		    	    }else {
 		    	    	addEdge(source, target, weight);
-		    	    	checkRep();
+		    	    	checkRep(source);
+		    	    	checkRep(target);
 		    	    	return 0;
 		    	    }
 		    	}
@@ -93,7 +165,8 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 		    	if(weight == 0){
 		    		int oldWeight = getEdgeWeight(source, target);
 		    		deleteEdge(source,target);
-		    		checkRep();
+		    		checkRep(source);
+		    		checkRep(target);
 		    	    return oldWeight;
 		    	}
 		    	
@@ -103,53 +176,39 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 	    
 	    @Override public boolean remove(L vertex) {
 		    	// if the vertex to be removed is absent from this.vertices then return false
-		    	if(hasVertex(vertex)) {
-		    		// find the indices of the outgoing and incoming neighbours from and to the given vertex
-		    		int removedVertexIndex = getVertexIndex(vertex);
-		    		Vertex<L> vertexToBeRemoved = vertices.get(removedVertexIndex);
-		    		
-		    		// Delete all the incoming edges and the outgoing edges to and from this vertex respectively.
-		    		// and then delete the vertex itself
-		    		vertexToBeRemoved.deleteAllEdges();
-		    		vertices.remove(removedVertexIndex);
-		    		
-		    		// Delete all the outgoing edges from vertexToBeremoved 
-		    		List<Integer> outgoingNeighboursIndices = getVertexIndices(vertexToBeRemoved.getOutgoingNeighbours());
-		    		for (Integer neighbourIndex:outgoingNeighboursIndices) {
-		    			Vertex<L> neighbourVertex = vertices.get(neighbourIndex);
-		    			neighbourVertex.deleteEdgeTo(vertex);
-		    		}
-		    		// Delete all the incoming edges to vertexToBeremoved
-		    		List<Integer> incomingNeighboursIndices = getVertexIndices(vertexToBeRemoved.getIncomingNeighbours());
-		    		for (Integer neighbourIndex:incomingNeighboursIndices) {
-		    			Vertex<L> neighbourVertex = vertices.get(neighbourIndex);
-		    			neighbourVertex.deleteEdgeFrom(vertex);
-		    		}
-		    		checkRep();
-		    		return true;
-		    		
+		    	Vertex<L> vertexToBeRemoved = vertexIndex.get(vertex);
+		    	if(vertexToBeRemoved == null) {
+		    		return false;
+		    	}
+		    	
+		    	// Delete the edges incident on vertexToBeRemoved from its neighbours, 
+		    	// copies of the neighbour sets are iterated since a self loop edits them
+		    	for (L neighbour:new ArrayList<L>(vertexToBeRemoved.getOutgoingNeighbours())) {
+		    		vertexIndex.get(neighbour).deleteEdgeFrom(vertex);
+		    	}
+		    	for (L neighbour:new ArrayList<L>(vertexToBeRemoved.getIncomingNeighbours())) {
+		    		vertexIndex.get(neighbour).deleteEdgeTo(vertex);
 		    	}
+		    	
+		    	// Delete all the incoming edges and the outgoing edges to and from this vertex respectively.
+		    	// and then delete the vertex itself
+		    	vertexToBeRemoved.deleteAllEdges();
+		    	removeFromVertices(vertex);
 		    	checkRep();
-		    	return false;
-	    	
+		    	return true;
 	    }
 	    
 	    
 	    @Override public Set<L> vertices() {
-		    	// Create a list of vertices by iterating on this.vertices
-		    	Set<L> verticesName = new HashSet<L>();
-		    	for(Vertex<L> vertex:vertices) {
-		    		verticesName.add(vertex.getName());
-		    	}
-		        return verticesName;
+		    	// Return a copy of the key set of this.vertexIndex
+		        return new HashSet<L>(vertexIndex.keySet());
 	    }
 	    
 	    
 	    @Override public Map<L, Integer> sources(L target) {
-		    	// Find the index of target and return a copy of target.incomingVertices
-		    	if (hasVertex(target)) {
-		    		int index = getVertexIndex(target);
-		    		Vertex<L> targetVertex = vertices.get(index);
+		    	// Look up target and return a copy of target.incomingVertices
+		    	Vertex<L> targetVertex = vertexIndex.get(target);
+		    	if (targetVertex != null) {
 		    		return targetVertex.getIncomingEdges();
 		    	}else {
 		    		return new HashMap<L, Integer>();
@@ -158,15 +217,73 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 	    
 	    
 	    @Override public Map<L, Integer> targets(L source) {
-		    	// Find the index of source and return a copy of target.outingVertices 
-		    	if (hasVertex(source)) {
-		    		int index = getVertexIndex(source);
-		    		Vertex<L> sourceVertex = vertices.get(index);
+		    	// Look up source and return a copy of source.outgoingVertices 
+		    	Vertex<L> sourceVertex = vertexIndex.get(source);
+		    	if (sourceVertex != null) {
 		    		return sourceVertex.getOutgoingEdges();
 		    	}else {
 		    		return new HashMap<L, Integer>();
 		    	}
 	    }
+	    
+	    
+	    /**
+	     * {@inheritDoc}
+	     * 
+	     * <p>The view is live: it follows later changes to this graph.
+	     */
+	    @Override public Set<L> verticesView() {
+		    	return Collections.unmodifiableSet(vertexIndex.keySet());
+	    }
+	    
+	    
+	    /**
+	     * {@inheritDoc}
+	     * 
+	     * <p>While target is a vertex the view is live: it follows later changes to this graph.
+	     */
+	    @Override public Map<L, Integer> sourcesView(L target) {
+		    	// Look up target and return the view of target.incomingVertices
+		    	Vertex<L> targetVertex = vertexIndex.get(target);
+		    	if (targetVertex != null) {
+		    		return targetVertex.getIncomingEdgesView();
+		    	}else {
+		    		return Collections.emptyMap();
+		    	}
+	    }
+	    
+	    
+	    /**
+	     * {@inheritDoc}
+	     * 
+	     * <p>While source is a vertex the view is live: it follows later changes to this graph.
+	     */
+	    @Override public Map<L, Integer> targetsView(L source) {
+		    	// Look up source and return the view of source.outgoingVertices
+		    	Vertex<L> sourceVertex = vertexIndex.get(source);
+		    	if (sourceVertex != null) {
+		    		return sourceVertex.getOutgoingEdgesView();
+		    	}else {
+		    		return Collections.emptyMap();
+		    	}
+	    }
+	    
+	    
+	    @Override public int weight(L source, L target) {
+		    	return getEdgeWeight(source, target);
+	    }
+	    
+	    
+	    @Override public int increment(L source, L target, int delta) {
+		    	// Look up or create both vertices once, then add delta to both sides of the edge
+		    	Vertex<L> sourceVertex = getOrAddVertex(source);
+		    	Vertex<L> targetVertex = getOrAddVertex(target);
+		    	int newWeight = sourceVertex.incrementEdgeTo(target, delta);
+		    	targetVertex.incrementEdgeFrom(source, delta);
+		    	checkRep(source);
+		    	checkRep(target);
+		    	return newWeight;
+	    }
     
 	    
 	    /**
@@ -180,14 +297,11 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 	     *          otherwise, returns zero if there is no directed edge from source to target
 	     */
 	     private int getEdgeWeight(L source, L target) {
-		   	  	if(hasEdgeBetween(source,target)){
-		   	  		// Find the index of source from this.vertices  
-		          	int sourceIndex = getVertexIndex(source);
-		          	Vertex<L> sourceVertex = vertices.get(sourceIndex);
-		          	 return sourceVertex.getOutgoingEdgeWeight(target);
-		     	 }
-		   	  	return 0;
-	   	    
+		   	  	Vertex<L> sourceVertex = vertexIndex.get(source);
+		   	  	if(sourceVertex == null) {
+		   	  		return 0;
+		   	  	}
+		   	  	return sourceVertex.getOutgoingEdgeWeight(target);
 	     }
     
 	     
@@ -202,19 +316,16 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 	     * @returns true if a directed edge is added from source to target
 	     *          otherwise, returns false
 	     */
-	     private boolean addEdge(L source, L target, Integer weight) {
+	     private boolean addEdge(L source, L target, int weight) {
 		    	if(hasEdgeBetween(source,target) || weight <= 0) {
 		    		 return false;
 		    	 }
 		    	
-		    	// Check whether the current vertex is a source or a target vertex
-		    	// Create new source or target vertex if they don't exist in this.vertices. Keep track of there indices
+		    	// Create new source or target vertex if they don't exist in this.vertices
 		    	addVertex(source);
 		    	addVertex(target);
-		    	int sourceIndex = getVertexIndex(source);
-		    	int targetIndex = getVertexIndex(target);
-		    	Vertex<L> sourceVertex = vertices.get(sourceIndex);
-		    	Vertex<L> targetVertex = vertices.get(targetIndex);
+		    	Vertex<L> sourceVertex = vertexIndex.get(source);
+		    	Vertex<L> targetVertex = vertexIndex.get(target);
 		    	
 		    	// Add to the source vertex an outgoing edge from source vertex  
 		    	// Add to the target vertex an incoming edge from source vertex 
@@ -226,7 +337,7 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 	     
 	     /**
 	      * To this graph adds a vertex into the graph if it is not already present in 
-	      * the graph and returns its position in this.vertices
+	      * the graph
 	      * 
 	      * @param vertex, a label of source of the edge
 	      * @returns true if a new vertex is added 
@@ -236,11 +347,68 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 		     	if(hasVertex(vertex)) {
 		     		return false;
 		     	}
-		     	vertices.add(new Vertex<>(vertex));
+		     	addToVertices(new Vertex<>(vertex));
 		     	return true;
 	      }
 	      
 	      
+	     /**
+	      * Returns the vertex of this graph with the given label, adding a new vertex
+	      * with that label if it is not already present in the graph
+	      * 
+	      * @param vertex, a label
+	      * @returns the vertex labelled vertex
+	      */
+	      private Vertex<L> getOrAddVertex(L vertex) {
+		     	Vertex<L> existingVertex = vertexIndex.get(vertex);
+		     	if(existingVertex != null) {
+		     		return existingVertex;
+		     	}
+		     	Vertex<L> newVertex = new Vertex<>(vertex);
+		     	addToVertices(newVertex);
+		     	return newVertex;
+	      }
+	      
+	      
+	     /**
+	      * Appends a vertex to this.vertices and records it in vertexIndex and positions
+	      * 
+	      * @param vertex, a vertex whose name is not a vertex of this graph
+	      */
+	      private void addToVertices(Vertex<L> vertex) {
+		     	positions.put(vertex.getName(), vertices.size());
+		     	vertices.add(vertex);
+		     	vertexIndex.put(vertex.getName(), vertex);
+	      }
+	      
+	      
+	     /**
+	      * Removes a vertex from this.vertices and the indexes in amortized constant time,
+	      * keeping the order of the other vertices: its place is left null, and once more
+	      * than half of this.vertices is null the list is compacted in one pass
+	      * 
+	      * @param vertex, a label of a vertex of this graph
+	      */
+	      private void removeFromVertices(L vertex) {
+		     	int index = positions.remove(vertex);
+		     	vertexIndex.remove(vertex);
+		     	vertices.set(index, null);
+		     	holes++;
+		     	if(holes * 2 > vertices.size()) {
+		     		int kept = 0;
+		     		for(Vertex<L> current:vertices) {
+		     			if(current != null) {
+		     				vertices.set(kept, current);
+		     				positions.put(current.getName(), kept);
+		     				kept++;
+		     			}
+		     		}
+		     		vertices.subList(kept, vertices.size()).clear();
+		     		holes = 0;
+		     	}
+	      }
+	      
+	      
 	     /**
 	      * From this graph deletes the weighted directed edge from source to target
 	      * If there exist no directed edge between source to target then it 
@@ -256,11 +424,8 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 		      		 return false;
 		      	  }
 		    	  
-		    	  // Find the indices of source and target from this.vertices  
-		      	  int sourceIndex = getVertexIndex(source);
-		      	  int targetIndex = getVertexIndex(target);
-		      	  Vertex<L> sourceVertex = vertices.get(sourceIndex);
-		      	  Vertex<L> targetVertex = vertices.get(targetIndex);
+		    	  Vertex<L> sourceVertex = vertexIndex.get(source);
+		      	  Vertex<L> targetVertex = vertexIndex.get(target);
 		      	
 		          // Delete the target,weight pair from sourceVertex.incomingVertex and
 		 	      // source,weight pair from targetVertex.outgoingVertex
@@ -280,16 +445,13 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 	      * @returns true if a directed edge is deleted from source to target
 	      *          otherwise, returns false
 	      */
-	      private boolean changeEdgeWeight(L source, L target, Integer Weight) {
+	      private boolean changeEdgeWeight(L source, L target, int Weight) {
 		     	 if(!hasEdgeBetween(source,target)) {
 		       		 return false;
 		       	 }
 		     	
-			     // Find the indices of source and target from this.vertices
-		       	 int sourceIndex = getVertexIndex(source);
-		       	 int targetIndex = getVertexIndex(target); 	
-		       	 Vertex<L> sourceVertex = vertices.get(sourceIndex);
-		       	 Vertex<L> targetVertex = vertices.get(targetIndex);
+		       	 Vertex<L> sourceVertex = vertexIndex.get(source);
+		       	 Vertex<L> targetVertex = vertexIndex.get(target);
 		       	
 		        // Change the value of sourceVertex.outgoingVertex[target] to new weight and
 			    // that of targetVertex.incomingVertex[source] to new weight.
@@ -309,37 +471,14 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 	     *          possibleHead to possibleTail, otherwise returns false
 	     */
 	    private boolean hasEdgeBetween(L possibleHead, L possibleTail) {
-		    	int headIndex = getVertexIndex(possibleHead);
-		    	int tailIndex = getVertexIndex(possibleTail);
+		    	Vertex<L> head = vertexIndex.get(possibleHead);
+		    	Vertex<L> tail = vertexIndex.get(possibleTail);
 		        
-		    	if(headIndex == -1 || tailIndex == -1) {
+		    	if(head == null || tail == null) {
 		    		return false;
 		    	}
 		    	
-		    	Vertex<L> head = this.vertices.get(headIndex);
-		    	Vertex<L> tail = this.vertices.get(tailIndex);
-		    	
-		    	return head.hasEdgeTo(tail.getName()) && tail.hasEdgeFrom(head.getName()); 
-	    }
-    
-	    
-	    /**
-	     * Returns the position of vertex within the this.vertices list having 
-	     * its name equal to possibleVertex
-	     * 
-	     * @param possibleVertex, a label of vertex
-	     * @return returns the position of vertex within this.vertices 
-	     *         such that 0 <= position < this.vertices.size()
-	     *         otherwise, returns -1 if vertex is absent from this.vertices
-	     */
-	    private int getVertexIndex(L possibleVertex) {
-		    	for(int index = 0; index < vertices.size(); index++) {
-		    		Vertex<L> vertex = vertices.get(index);
-		    		if(vertex.getName().equals(possibleVertex)) {
-		    			return index;
-		    		}
-		    	}
-		    	return -1;
+		    	return head.hasEdgeTo(possibleTail) && tail.hasEdgeFrom(possibleHead); 
 	    }
     
 	    
@@ -352,33 +491,7 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 	     *          possibleVertexName in the graph, otherwise returns false
 	     */
 	    private boolean hasVertex(L possibleVertexName) {
-		    	for(Vertex<L> currentVertex:vertices) {
-		    		if(currentVertex.getName().equals(possibleVertexName)) {
-		    			return true;
-		    		}
-		    	}
-		    	return false;
-	    }
-     
-	    
-	    /**
-	     * Returns a list of indices of the given vertices from this.vertices in the same order
-	     * as they appear in the input list
-	     * 
-	     * @param possibleVertices, a set of vertices, all vertices must be present in this graph
-	     * @return a list of indices of vertex in the same order as they appear in the 
-	     *         input list
-	     */
-	    private List<Integer> getVertexIndices(Set<L> possibleVertices) {
-		    	List<Integer> indices = new ArrayList<Integer>();
-		    	for (int index = 0; index < vertices.size(); index++) {
-		    		Vertex<L> currentVertex = vertices.get(index);
-		    		L currentVertexName = currentVertex.getName();
-		    		if(possibleVertices.contains(currentVertexName)) {
-		    			indices.add(index);
-		    		}
-		    	}
-		    	return indices;
+		    	return vertexIndex.containsKey(possibleVertexName);
 	    }
     
 	    
@@ -411,6 +524,9 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 		    	Set<String> subStringSet = new HashSet<String>();
 		    	String stringGraph = "";
 		    	for (Vertex<L> vertex:vertices) {
+		    		if(vertex == null) {
+		    			continue;
+		    		}
 		    		for(String substring:vertex.toString().split("\n")) {
 		    			if(!subStringSet.contains(substring)) {
 		    				subStringSet.add(substring);
@@ -437,8 +553,10 @@ class Vertex<L> {
     
     // fields
 	private final L name;             // name of the vertex
-	private final Map<L, Integer> incomingEdges    = new HashMap<L, Integer>(); 
-	private final Map<L, Integer> outgoingEdges    = new HashMap<L, Integer>();
+	private final IntWeightMap<L> incomingEdges; 
+	private final IntWeightMap<L> outgoingEdges;
+	private final Map<L, Integer> incomingEdgesView;
+	private final Map<L, Integer> outgoingEdgesView;
     
     // Abstraction function:
     //   AF(name, incomingVertices, outgoingVertices, 
@@ -452,32 +570,52 @@ class Vertex<L> {
 	//   The directed edges from this vertex to all the vertices in outgoingVertices have a positive weight
     
 	// Safety from rep exposure:
-    //   
+    //   getIncomingEdges and getOutgoingEdges return copies, and getIncomingEdgesView and
+    //   getOutgoingEdgesView return unmodifiable views of the maps.
     
     // Constructor
     public Vertex(L name){
-    	this.name = name;
+    	this(name, new IntWeightMap<L>(), new IntWeightMap<L>());
     }
     
     public Vertex(L name,
     		Map<L, Integer> incomingEdges, Map<L, Integer> outgoingEdges) {
-    	this.name = name;
+    	this(name);
     	this.incomingEdges.putAll(incomingEdges);
-    	this.outgoingEdges.putAll(incomingEdges);
+    	this.outgoingEdges.putAll(outgoingEdges);
+    }
+    
+    // Constructor for bulk loading, with a copy of the outgoing edges and room for
+    // incomingDegree incoming edges, which are then added with putEdgeFrom
+    Vertex(L name, IntWeightMap<L> outgoingEdges, int incomingDegree) {
+    	this(name, new IntWeightMap<L>(incomingDegree), new IntWeightMap<L>(outgoingEdges));
+    }
+    
+    private Vertex(L name, IntWeightMap<L> incomingEdges, IntWeightMap<L> outgoingEdges) {
+    	this.name = name;
+    	this.incomingEdges = incomingEdges;
+    	this.outgoingEdges = outgoingEdges;
+    	this.incomingEdgesView = Collections.unmodifiableMap(incomingEdges);
+    	this.outgoingEdgesView = Collections.unmodifiableMap(outgoingEdges);
     }
 	
     // checkRep
-    // Check that the rep invariant is true
+    // Check that the rep invariant is true, if Validation says so
     private void checkRep() {
-    	assert !name.equals("");
-    	for (Map.Entry<L,Integer> entry: incomingEdges.entrySet()) {
-    		assert !entry.getKey().equals("");
-    		assert entry.getValue().intValue() > 0;
-    	}
-    	for (Map.Entry<L,Integer> entry: outgoingEdges.entrySet()) {
-    		assert !entry.getKey().equals("");
-    		assert entry.getValue().intValue() > 0;
+    	if (!Validation.due()) {
+    		return;
     	}
+    	long start = System.nanoTime();
+    	assert !name.equals("");
+    	incomingEdges.forEachInt((source, weight) -> {
+    		assert !source.equals("");
+    		assert weight > 0;
+    	});
+    	outgoingEdges.forEachInt((target, weight) -> {
+    		assert !target.equals("");
+    		assert weight > 0;
+    	});
+    	Validation.record(start);
     }
     
     // methods
@@ -520,11 +658,8 @@ class Vertex<L> {
       *          otherwise, returns 0 if there exist no edge from this vertex to target
       */
       public int getOutgoingEdgeWeight(L target) {
- 		  // return false if there exist an edge from source or weight is zero
- 		  if (!hasEdgeTo(target)) {
- 			 return 0;
- 		  }
- 		  return outgoingEdges.get(target);
+ 		  // weights are positive, so zero means there is no edge to target
+ 		  return outgoingEdges.getInt(target);
       }
       
       /**
@@ -537,11 +672,8 @@ class Vertex<L> {
        *          otherwise, returns 0 if there exist no edge from source to this vertex
        */
        public int getIncomingEdgeWeight(L source) {
-  		  // return false if there exist an edge from source or weight is zero
-  		  if (!hasEdgeFrom(source)) {
-  			 return 0;
-  		  }
-  		  return incomingEdges.get(source);
+  		  // weights are positive, so zero means there is no edge from source
+  		  return incomingEdges.getInt(source);
        }
       
        
@@ -555,7 +687,7 @@ class Vertex<L> {
        *         the key to target
        */
       public Map<L, Integer> getIncomingEdges(){
-    	  return new HashMap<L, Integer>(incomingEdges);
+    	  return new IntWeightMap<L>(incomingEdges);
       }
      
       /**
@@ -568,7 +700,29 @@ class Vertex<L> {
        *         source to the key
        */
       public Map<L, Integer> getOutgoingEdges(){
-    	  return new HashMap<L, Integer>(outgoingEdges);
+    	  return new IntWeightMap<L>(outgoingEdges);
+      }
+      
+      /**
+       * Get an unmodifiable view of the source vertices with directed edges to
+       * this vertex and the weights of those edges, which follows later changes
+       * to this vertex.
+       * 
+       * @return an unmodifiable view of the map returned by getIncomingEdges()
+       */
+      public Map<L, Integer> getIncomingEdgesView(){
+    	  return incomingEdgesView;
+      }
+      
+      /**
+       * Get an unmodifiable view of the target vertices with directed edges from
+       * this vertex and the weights of those edges, which follows later changes
+       * to this vertex.
+       * 
+       * @return an unmodifiable view of the map returned by getOutgoingEdges()
+       */
+      public Map<L, Integer> getOutgoingEdgesView(){
+    	  return outgoingEdgesView;
       }
       
       
@@ -583,13 +737,13 @@ class Vertex<L> {
 	 * @return true if directed weight edge is added,
 	 *         otherwise,false. 
 	 */
-	 public boolean addEdgeFrom(L source, Integer weight) {	
+	 public boolean addEdgeFrom(L source, int weight) {	
 		 if (hasEdgeFrom(source) || weight == 0) {
 			 return false;
 		 }	
 		 
 		 // add an incoming edge from source to this vertex
-		 incomingEdges.put(source, weight);
+		 incomingEdges.putInt(source, weight);
 		 checkRep();
 		 return true;
 	 }
@@ -606,13 +760,13 @@ class Vertex<L> {
 	 * @return true if directed weight edge is added,
 	 *         otherwise,false. 
 	 */
-	 public boolean addEdgeTo(L target, Integer weight) {
+	 public boolean addEdgeTo(L target, int weight) {
 		 if (hasEdgeTo(target) || weight == 0) {
 			 return false;
 		 }
 		 
 		 // outgoingVertices.put(targetName, target);
-		 outgoingEdges.put(target, weight);
+		 outgoingEdges.putInt(target, weight);
 		 checkRep();
 		 return true;
 	}
@@ -634,7 +788,7 @@ class Vertex<L> {
 		 }
 		 
 		 // delete the incoming edge of this vertex from the source to this vertex
-		 incomingEdges.remove(source);
+		 incomingEdges.removeInt(source);
 		 checkRep();
 		 return true;
 	  }
@@ -656,7 +810,7 @@ class Vertex<L> {
 		 }
 		 
 		 // delete the outgoing edge of this vertex to target. 
-		 outgoingEdges.remove(target);
+		 outgoingEdges.removeInt(target);
 		 checkRep();
 		 return true;
 	  }
@@ -668,18 +822,56 @@ class Vertex<L> {
 	  *  
 	  */
 	  public void deleteAllEdges() {
-		  // delete all incoming edges
-		  for(L incomingNeighbour:getIncomingNeighbours()) {
-				deleteEdgeFrom(incomingNeighbour);
-			}
-		  // delete all outgoing edges
-		  for(L outgoingNeighbour:getOutgoingNeighbours()) {
-				deleteEdgeTo(outgoingNeighbour);
-			}
+		  // delete all incoming and outgoing edges, clearing the maps directly
+		  // since removing keys while iterating over them is not allowed
+		  incomingEdges.clear();
+		  outgoingEdges.clear();
 		  checkRep();
 	  }
 		
 
+	 /**
+	  * To this vertex adds an incoming directed edge from source without checking the
+	  * rep, for bulk loading; the graph checks its whole rep once loading is done
+	  * 
+	  * @param source, a label of the source vertex, with no edge to this vertex yet
+	  * @param weight, a positive weight of the directed edge
+	  */
+	  void putEdgeFrom(L source, int weight) {
+		  incomingEdges.putInt(source, weight);
+	  }
+	  
+	  
+	 /**
+	  * To this vertex adds delta to the weight of the incoming directed edge from source,
+	  * adding the edge with weight delta if it is not present
+	  * 
+	  * @param source, a label of the source vertex
+	  * @param delta, a positive amount to add to the weight of the edge
+	  * @return the new weight of the edge
+	  */
+	  public int incrementEdgeFrom(L source, int delta) {
+		  int newWeight = incomingEdges.addInt(source, delta);
+		  checkRep();
+		  return newWeight;
+	  }
+	  
+	  
+	 /**
+	  * To this vertex adds delta to the weight of the outgoing directed edge to target,
+	  * adding the edge with weight delta if it is not present
+	  * 
+	  * @param target, a label of the target vertex
+	  * @param delta, a positive amount to add to the weight of the edge
+	  * @return the new weight of the edge
+	  */
+	  public int incrementEdgeTo(L target, int delta) {
+		  int newWeight = outgoingEdges.addInt(target, delta);
+		  checkRep();
+		  return newWeight;
+	  }
+	  
+	  
 	 /**
 	  * From this vertex changes the weight of directed edge from source to this vertex.
 	  * If there exist is no edge between source or edge weight is zero,
@@ -690,14 +882,14 @@ class Vertex<L> {
 	  * @return true if directed weight edge is added,
 	  *         otherwise,false. 
 	  */
-	  public boolean changeEdgeWeightFrom(L source, Integer weight) {
+	  public boolean changeEdgeWeightFrom(L source, int weight) {
 		  //L sourceName = source.getName();
 		  // return false if there exist no edge from source or weight is zero
 		  if (!hasEdgeFrom(source) || weight == 0) {
 			  return false;
 		  }
 		  
-		  incomingEdges.put(source, weight);
+		  incomingEdges.putInt(source, weight);
 		  checkRep();
 		  return true;
 	  }
@@ -713,14 +905,14 @@ class Vertex<L> {
 	   * @return true if directed weight edge is changed,
 	   *         otherwise,false. 
 	   */
-	   public boolean changeEdgeWeightTo(L target, Integer weight) {
+	   public boolean changeEdgeWeightTo(L target, int weight) {
 			// String targetName = target.getName();
 			// return false if there exist no edge to target or weight is zero
 			if (!hasEdgeTo(target) || weight == 0) {
 				return false;
 			}
 			  
-			outgoingEdges.put(target, weight);
+			outgoingEdges.putInt(target, weight);
 			checkRep();
 			return true;
 		  }
@@ -747,8 +939,8 @@ class Vertex<L> {
 		* @return true if all the incoming directed weight edge are deleted,
 		*         otherwise,false. 
 		*/
-		public boolean hasEdgeFrom(L source, Integer weight) {
-			   return incomingEdges.containsKey(source)	&& incomingEdges.get(source).equals(weight);
+		public boolean hasEdgeFrom(L source, int weight) {
+			   return weight > 0 && incomingEdges.getInt(source) == weight;
 		}
 	
 		
@@ -774,8 +966,8 @@ class Vertex<L> {
 		* @return true if all the outing directed weight edge are deleted,
 		*         otherwise,false. 
 		*/
-		public boolean hasEdgeTo(L target, Integer weight) {
-			 return  outgoingEdges.containsKey(target)	&& outgoingEdges.get(target).equals(weight);
+		public boolean hasEdgeTo(L target, int weight) {
+			 return weight > 0 && outgoingEdges.getInt(target) == weight;
 		}
         
 		/**
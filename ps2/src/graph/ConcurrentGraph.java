@@ -0,0 +1,316 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe implementation of Graph.
+ *
+ * <p>
+ * Every vertex keeps its incoming and outgoing edges in concurrent maps.
+ * Writers lock the stripes of the vertices they change: set and increment lock
+ * the stripes of their source and target, so writers to unrelated vertices do
+ * not wait for each other, and remove locks every stripe. Readers never lock: vertices,
+ * sources and targets copy the concurrent maps, and may run while edges are
+ * being changed. A copy then shows each edge either with its old or with its
+ * new weight. The views of IndexedGraph are live and stay valid, with the
+ * same guarantee, while the graph is changed.
+ */
+public class ConcurrentGraph<L> implements IndexedGraph<L> {
+
+    private static final int STRIPES = 64; // must be a power of two
+
+    private final ConcurrentMap<L, Node<L>> nodes = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    // Abstraction function:
+    //   AF(nodes) = A graph whose vertices are the keys of nodes, with an edge from
+    //               source to target of weight w for every pair target,w in
+    //               nodes[source].outgoing.
+
+    // Representation invariant:
+    //   nodes[v].label equals v
+    //   every weight is positive
+    //   while no writer holds the stripe locks of x and y, the pair y,w is in
+    //   nodes[x].outgoing iff the pair x,w is in nodes[y].incoming
+
+    // Safety from rep exposure:
+    //   All the fields are private and final, and vertices, sources and targets
+    //   return new collections. verticesView, sourcesView and targetsView return
+    //   unmodifiable views of the concurrent maps.
+
+    // Thread safety argument:
+    //   nodes and every adjacency map are concurrent maps, so reads need no lock.
+    //   Every change to an edge from x to y is made holding the stripe locks of x
+    //   and y, so the two sides of an edge change together and the previous weight
+    //   returned by set is the one the change replaced. remove holds every stripe
+    //   lock, so no edge can be added to or from a vertex while it is removed.
+    //   Stripe locks are always taken in increasing stripe order, so writers
+    //   cannot deadlock.
+
+    /**
+     * Create an empty graph.
+     */
+    public ConcurrentGraph() {
+	for (int i = 0; i < STRIPES; i++) {
+	    locks[i] = new ReentrantLock();
+	}
+    }
+
+    /**
+     * Create a graph from an adjacency table, for GraphBuilder. The graph is not
+     * shared with other threads until the constructor returns, so no lock is
+     * taken.
+     *
+     * @param adjacency, maps every label to the positive weights of the edges
+     *                   from it; every target is also a key
+     */
+    ConcurrentGraph(Map<L, IntWeightMap<L>> adjacency) {
+	this();
+	for (Map.Entry<L, IntWeightMap<L>> entry : adjacency.entrySet()) {
+	    nodes.put(entry.getKey(), new Node<>(entry.getKey()));
+	}
+	for (Map.Entry<L, IntWeightMap<L>> entry : adjacency.entrySet()) {
+	    L source = entry.getKey();
+	    Node<L> sourceNode = nodes.get(source);
+	    entry.getValue().forEachInt((target, weight) -> {
+		sourceNode.outgoing.put(target, weight);
+		nodes.get(target).incoming.put(source, weight);
+	    });
+	}
+	for (Map.Entry<L, IntWeightMap<L>> entry : adjacency.entrySet()) {
+	    for (L target : entry.getValue().keySet()) {
+		checkRep(entry.getKey(), target);
+	    }
+	}
+    }
+
+    // checkRep
+    // Check that the rep invariant is true for the edge from source to target, if
+    // Validation says so; the caller must hold the stripe locks of source and target
+    private void checkRep(L source, L target) {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	Node<L> sourceNode = nodes.get(source);
+	Node<L> targetNode = nodes.get(target);
+	Integer outgoingWeight = sourceNode == null ? null : sourceNode.outgoing.get(target);
+	Integer incomingWeight = targetNode == null ? null : targetNode.incoming.get(source);
+	assert outgoingWeight == null ? incomingWeight == null : outgoingWeight.equals(incomingWeight);
+	assert outgoingWeight == null || outgoingWeight > 0;
+	Validation.record(start);
+    }
+
+    @Override
+    public boolean add(L vertex) {
+	return nodes.putIfAbsent(vertex, new Node<>(vertex)) == null;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+	int first = stripe(source);
+	int second = stripe(target);
+	if (first > second) {
+	    int swap = first;
+	    first = second;
+	    second = swap;
+	}
+
+	locks[first].lock();
+	locks[second].lock();
+	try {
+	    Integer previous;
+	    if (weight > 0) {
+		Node<L> sourceNode = nodes.computeIfAbsent(source, Node::new);
+		Node<L> targetNode = nodes.computeIfAbsent(target, Node::new);
+		previous = sourceNode.outgoing.put(target, weight);
+		targetNode.incoming.put(source, weight);
+	    } else {
+		Node<L> sourceNode = nodes.get(source);
+		Node<L> targetNode = nodes.get(target);
+		if (sourceNode == null || targetNode == null) {
+		    return 0;
+		}
+		previous = sourceNode.outgoing.remove(target);
+		targetNode.incoming.remove(source);
+	    }
+	    checkRep(source, target);
+	    return previous == null ? 0 : previous;
+	} finally {
+	    locks[second].unlock();
+	    locks[first].unlock();
+	}
+    }
+
+    @Override
+    public int increment(L source, L target, int delta) {
+	int first = stripe(source);
+	int second = stripe(target);
+	if (first > second) {
+	    int swap = first;
+	    first = second;
+	    second = swap;
+	}
+
+	locks[first].lock();
+	locks[second].lock();
+	try {
+	    Node<L> sourceNode = nodes.computeIfAbsent(source, Node::new);
+	    Node<L> targetNode = nodes.computeIfAbsent(target, Node::new);
+	    int weight = sourceNode.outgoing.merge(target, delta, Integer::sum);
+	    targetNode.incoming.put(source, weight);
+	    checkRep(source, target);
+	    return weight;
+	} finally {
+	    locks[second].unlock();
+	    locks[first].unlock();
+	}
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+	for (ReentrantLock lock : locks) {
+	    lock.lock();
+	}
+	try {
+	    Node<L> removed = nodes.remove(vertex);
+	    if (removed == null) {
+		return false;
+	    }
+	    // a self loop is already gone with the removed node
+	    for (L target : removed.outgoing.keySet()) {
+		Node<L> targetNode = nodes.get(target);
+		if (targetNode != null) {
+		    targetNode.incoming.remove(vertex);
+		}
+	    }
+	    for (L source : removed.incoming.keySet()) {
+		Node<L> sourceNode = nodes.get(source);
+		if (sourceNode != null) {
+		    sourceNode.outgoing.remove(vertex);
+		}
+	    }
+	    return true;
+	} finally {
+	    for (int i = STRIPES - 1; i >= 0; i--) {
+		locks[i].unlock();
+	    }
+	}
+    }
+
+    @Override
+    public Set<L> vertices() {
+	return new HashSet<L>(nodes.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+	Node<L> node = nodes.get(target);
+	return node == null ? new HashMap<L, Integer>() : new HashMap<L, Integer>(node.incoming);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+	Node<L> node = nodes.get(source);
+	return node == null ? new HashMap<L, Integer>() : new HashMap<L, Integer>(node.outgoing);
+    }
+
+    @Override
+    public Set<L> verticesView() {
+	return Collections.unmodifiableSet(nodes.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * While target is a vertex the view is live and may be used concurrently
+     * with changes to this graph.
+     */
+    @Override
+    public Map<L, Integer> sourcesView(L target) {
+	Node<L> node = nodes.get(target);
+	return node == null ? Collections.emptyMap() : node.incomingView;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * While source is a vertex the view is live and may be used concurrently
+     * with changes to this graph.
+     */
+    @Override
+    public Map<L, Integer> targetsView(L source) {
+	Node<L> node = nodes.get(source);
+	return node == null ? Collections.emptyMap() : node.outgoingView;
+    }
+
+    @Override
+    public int weight(L source, L target) {
+	Node<L> node = nodes.get(source);
+	Integer weight = node == null ? null : node.outgoing.get(target);
+	return weight == null ? 0 : weight;
+    }
+
+    /**
+     * Returns the index of the lock guarding the edges of vertex.
+     *
+     * @param vertex, a label
+     * @return a stripe index, 0 <= index < STRIPES
+     */
+    private static int stripe(Object vertex) {
+	int hash = vertex.hashCode();
+	return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Returns a string representation of the graph, one edge per line followed
+     * by the isolated vertices, in the same format as the other
+     * implementations.
+     *
+     * @return a string representation of the graph
+     */
+    @Override
+    public String toString() {
+	StringBuilder edges = new StringBuilder();
+	StringBuilder isolatedVertices = new StringBuilder();
+	for (Node<L> node : nodes.values()) {
+	    if (node.outgoing.isEmpty() && node.incoming.isEmpty()) {
+		isolatedVertices.append(node.label).append("\n");
+	    }
+	    for (Map.Entry<L, Integer> entry : node.outgoing.entrySet()) {
+		edges.append(String.format("%s-----(%d)----->%s", node.label, entry.getValue(), entry.getKey()));
+		edges.append("\n");
+	    }
+	}
+	return edges.append(isolatedVertices).toString().trim();
+    }
+
+    /**
+     * A vertex of a ConcurrentGraph with its incoming and outgoing edges. This
+     * class is internal to the rep of ConcurrentGraph.
+     */
+    private static class Node<L> {
+	private final L label;
+	private final ConcurrentMap<L, Integer> incoming = new ConcurrentHashMap<>();
+	private final ConcurrentMap<L, Integer> outgoing = new ConcurrentHashMap<>();
+	private final Map<L, Integer> incomingView = Collections.unmodifiableMap(incoming);
+	private final Map<L, Integer> outgoingView = Collections.unmodifiableMap(outgoing);
+
+	Node(L label) {
+	    this.label = label;
+	}
+    }
+
+}
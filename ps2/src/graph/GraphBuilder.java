@@ -0,0 +1,214 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A mutable builder that loads many edges at once and then makes a graph of
+ * any of the implementations.
+ *
+ * <p>
+ * Loading a graph with Graph.set checks the rep of the graph after every
+ * edge. A builder only collects the vertices and edges, with the same meaning
+ * as add, set and increment on a graph; each build method then presizes the
+ * structures of its implementation, fills them in one pass and checks the rep
+ * once.
+ * Building does not change the builder, so one builder can make several
+ * graphs, and later changes to the builder are not reflected in graphs
+ * already built.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class GraphBuilder<L> {
+
+    private final Map<L, IntWeightMap<L>> adjacency;
+
+    // Abstraction function:
+    //   AF(adjacency) = the graph whose vertices are the keys of adjacency, in
+    //                   the order they were first added, with an edge from s to t
+    //                   of weight w for every pair t,w in adjacency[s]
+
+    // Representation invariant:
+    //   every weight is positive
+    //   every key of every map in adjacency is also a key of adjacency
+
+    // Safety from rep exposure:
+    //   adjacency is private and final, and is only passed to the package-private
+    //   constructors of the implementations, which copy it.
+
+    /**
+     * Make a builder with no vertices and no edges.
+     */
+    public GraphBuilder() {
+	this(16);
+    }
+
+    /**
+     * Make a builder with no vertices and no edges, with room for
+     * expectedVertices vertices before its tables have to grow.
+     *
+     * @param expectedVertices, the number of vertices expected, nonnegative
+     */
+    public GraphBuilder(int expectedVertices) {
+	adjacency = new LinkedHashMap<>(expectedVertices * 4 / 3 + 1);
+    }
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so; it costs
+    // O(vertices + edges) so it only runs before a graph is built
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	for (IntWeightMap<L> targets : adjacency.values()) {
+	    targets.forEachInt((target, weight) -> {
+		assert weight > 0;
+		assert adjacency.containsKey(target);
+	    });
+	}
+	Validation.record(start);
+    }
+
+    /**
+     * Add a vertex, as {@link Graph#add(Object)} would.
+     *
+     * @param vertex label for the new vertex
+     * @return this builder
+     */
+    public GraphBuilder<L> add(L vertex) {
+	targetsOf(vertex);
+	return this;
+    }
+
+    /**
+     * Add, change, or remove a weighted directed edge, as
+     * {@link Graph#set(Object, Object, int)} would.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight nonnegative weight of the edge
+     * @return this builder
+     */
+    public GraphBuilder<L> set(L source, L target, int weight) {
+	if (weight > 0) {
+	    targetsOf(target);
+	    targetsOf(source).putInt(target, weight);
+	} else if (weight == 0) {
+	    IntWeightMap<L> targets = adjacency.get(source);
+	    if (targets != null) {
+		targets.removeInt(target);
+	    }
+	}
+	return this;
+    }
+
+    /**
+     * Add to the weight of a directed edge, as
+     * {@link IndexedGraph#increment(Object, Object, int)} would.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta  positive amount to add to the weight of the edge
+     * @return this builder
+     */
+    public GraphBuilder<L> increment(L source, L target, int delta) {
+	targetsOf(target);
+	targetsOf(source).addInt(target, delta);
+	return this;
+    }
+
+    /**
+     * Set many edges, as calling {@link #set(Object, Object, int)} on every
+     * index in order would.
+     *
+     * @param sources labels of the source vertices
+     * @param targets labels of the target vertices, as long as sources
+     * @param weights nonnegative weights of the edges, as long as sources
+     * @return this builder
+     */
+    public GraphBuilder<L> setAll(L[] sources, L[] targets, int[] weights) {
+	if (sources.length != targets.length || sources.length != weights.length) {
+	    throw new IllegalArgumentException("sources, targets and weights must have the same length");
+	}
+	for (int i = 0; i < sources.length; i++) {
+	    set(sources[i], targets[i], weights[i]);
+	}
+	return this;
+    }
+
+    /**
+     * Make a ConcreteVerticesGraph with the vertices and edges of this builder.
+     *
+     * @return a new graph
+     */
+    public ConcreteVerticesGraph<L> buildConcreteVerticesGraph() {
+	checkRep();
+	return new ConcreteVerticesGraph<>(adjacency);
+    }
+
+    /**
+     * Make a ConcreteEdgesGraph with the vertices and edges of this builder.
+     *
+     * @return a new graph
+     */
+    public ConcreteEdgesGraph<L> buildConcreteEdgesGraph() {
+	checkRep();
+	return new ConcreteEdgesGraph<>(adjacency);
+    }
+
+    /**
+     * Make a ConcurrentGraph with the vertices and edges of this builder.
+     *
+     * @return a new graph
+     */
+    public ConcurrentGraph<L> buildConcurrentGraph() {
+	checkRep();
+	return new ConcurrentGraph<>(adjacency);
+    }
+
+    /**
+     * Make a CompactGraph with the vertices and edges of this builder.
+     *
+     * @return a new immutable graph
+     */
+    public CompactGraph<L> buildCompactGraph() {
+	checkRep();
+	return CompactGraph.build(new ArrayList<>(adjacency.keySet()), adjacency::get);
+    }
+
+    /**
+     * Make a MappedGraph with the vertices and edges of this builder, whose file
+     * is in the default temporary-file directory.
+     *
+     * @return a new graph, which the caller should close
+     */
+    public MappedGraph<L> buildMappedGraph() {
+	return buildMappedGraph(new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Make a MappedGraph with the vertices and edges of this builder, whose file
+     * is in directory.
+     *
+     * @param directory, an existing directory for the file of the graph
+     * @return a new graph, which the caller should close
+     */
+    public MappedGraph<L> buildMappedGraph(File directory) {
+	checkRep();
+	return new MappedGraph<>(directory, adjacency);
+    }
+
+    /**
+     * Returns the map of the edges from vertex, adding vertex if it is new.
+     */
+    private IntWeightMap<L> targetsOf(L vertex) {
+	return adjacency.computeIfAbsent(vertex, label -> new IntWeightMap<>());
+    }
+
+}
@@ -0,0 +1,471 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Traversals and shortest paths over a graph: breadth-first reachability,
+ * Dijkstra's algorithm, and bidirectional Dijkstra.
+ *
+ * <p>
+ * The graph is frozen into a CompactGraph, unless it is one already, and every
+ * search works on its vertex ids. The distances, parents and heap of a search
+ * are arrays indexed by id, allocated once per GraphSearch and reused by every
+ * query: a vertex counts as reached in the current query only if its stamp is
+ * the stamp of the query, so starting a query costs nothing and a query
+ * allocates no object per vertex it visits. The weight of a path is the sum of
+ * the weights of its edges, as a long.
+ *
+ * <p>
+ * Since it reuses its arrays, a GraphSearch is not thread-safe. Threads can
+ * search the same graph by each making a GraphSearch of the same CompactGraph.
+ *
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public final class GraphSearch<L> {
+
+    private final CompactGraph<L> graph;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    private final Frontier forward;
+    private final int[] queue;
+    private Frontier backward;
+
+    // Abstraction function:
+    //   AF(graph) = a searcher of the paths of graph
+    //   forward, queue and backward are scratch space for the current query
+    //   the arrays are the adjacency arrays of graph, kept in fields to save a
+    //   call per vertex visited
+
+    // Representation invariant:
+    //   every adjacency array is the same array as the one of graph
+    //   forward, queue and backward, once made, have one entry per vertex of graph
+    //   the heap of forward and of backward is ordered by distance
+
+    // Safety from rep exposure:
+    //   All the fields are private, graph is immutable and its arrays are only
+    //   read; the sets and lists returned are new.
+
+    /**
+     * Make a searcher of a graph. Later changes to graph are not reflected in
+     * the searches.
+     *
+     * @param graph, the graph to search; a CompactGraph is used as it is, any
+     *               other graph is frozen into one
+     */
+    public GraphSearch(Graph<L> graph) {
+	this.graph = graph instanceof CompactGraph<L> compact ? compact : CompactGraph.freeze(graph);
+	this.outOffsets = this.graph.outOffsets();
+	this.outTargets = this.graph.outTargets();
+	this.outWeights = this.graph.outWeights();
+	this.inOffsets = this.graph.inOffsets();
+	this.inSources = this.graph.inSources();
+	this.inWeights = this.graph.inWeights();
+	this.forward = new Frontier(this.graph.vertexCount());
+	this.queue = new int[this.graph.vertexCount()];
+	checkRep();
+    }
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	assert outOffsets == graph.outOffsets() && outTargets == graph.outTargets()
+		&& outWeights == graph.outWeights();
+	assert inOffsets == graph.inOffsets() && inSources == graph.inSources() && inWeights == graph.inWeights();
+	assert queue.length == graph.vertexCount();
+	forward.checkRep(graph.vertexCount());
+	if (backward != null) {
+	    backward.checkRep(graph.vertexCount());
+	}
+	Validation.record(start);
+    }
+
+    /**
+     * Tell whether there is a path from one vertex to another.
+     *
+     * @param source, a label
+     * @param target, a label
+     * @return true iff source and target are vertices of the graph and there is
+     *         a path of zero or more edges from source to target
+     */
+    public boolean isReachable(L source, L target) {
+	return hops(source, target) >= 0;
+    }
+
+    /**
+     * Find the vertices reachable from a vertex, by breadth-first search.
+     *
+     * @param source, a label
+     * @return the set of vertices with a path of zero or more edges from
+     *         source, including source; empty if source is not a vertex
+     */
+    public Set<L> reachable(L source) {
+	int id = graph.id(source);
+	if (id < 0) {
+	    return new HashSet<>();
+	}
+	int count = breadthFirst(id, -1);
+	Set<L> result = new HashSet<>(count * 2);
+	for (int i = 0; i < count; i++) {
+	    result.add(graph.label(queue[i]));
+	}
+	checkRep();
+	return result;
+    }
+
+    /**
+     * Find the number of edges on the shortest path from one vertex to
+     * another, ignoring weights, by breadth-first search.
+     *
+     * @param source, a label
+     * @param target, a label
+     * @return the least number of edges on a path from source to target, zero
+     *         if they are the same vertex, or -1 if there is no such path or
+     *         either is not a vertex
+     */
+    public int hops(L source, L target) {
+	int from = graph.id(source);
+	int to = graph.id(target);
+	if (from < 0 || to < 0) {
+	    return -1;
+	}
+	breadthFirst(from, to);
+	int hops = forward.reached(to) ? (int) forward.distances[to] : -1;
+	checkRep();
+	return hops;
+    }
+
+    /**
+     * Find the weight of the lightest path from one vertex to another, with
+     * Dijkstra's algorithm.
+     *
+     * @param source, a label
+     * @param target, a label
+     * @return the least total weight of a path from source to target, zero if
+     *         they are the same vertex, or -1 if there is no such path or
+     *         either is not a vertex
+     */
+    public long distance(L source, L target) {
+	int from = graph.id(source);
+	int to = graph.id(target);
+	long distance = from >= 0 && to >= 0 && dijkstra(from, to) ? forward.distances[to] : -1;
+	checkRep();
+	return distance;
+    }
+
+    /**
+     * Find the lightest path from one vertex to another, with Dijkstra's
+     * algorithm.
+     *
+     * @param source, a label
+     * @param target, a label
+     * @return an unmodifiable list of the vertices of a path from source to
+     *         target of least total weight, starting with source and ending
+     *         with target; just source if they are the same vertex; empty if
+     *         there is no such path or either is not a vertex
+     */
+    public List<L> shortestPath(L source, L target) {
+	int from = graph.id(source);
+	int to = graph.id(target);
+	if (from < 0 || to < 0 || !dijkstra(from, to)) {
+	    checkRep();
+	    return Collections.emptyList();
+	}
+	List<L> path = new ArrayList<>();
+	for (int v = to; v >= 0; v = forward.parents[v]) {
+	    path.add(graph.label(v));
+	}
+	Collections.reverse(path);
+	checkRep();
+	return Collections.unmodifiableList(path);
+    }
+
+    /**
+     * Find the weight of the lightest path from one vertex to another, with
+     * Dijkstra's algorithm run forward from source over out-edges and backward
+     * from target over in-edges, settling one vertex at a time on the side
+     * whose next vertex is closer. The search stops once the two next
+     * distances add up to no less than the lightest path found joining the two
+     * sides, so on a large graph it settles far fewer vertices than
+     * {@link #distance(Object, Object)}, which it always agrees with.
+     *
+     * @param source, a label
+     * @param target, a label
+     * @return the least total weight of a path from source to target, zero if
+     *         they are the same vertex, or -1 if there is no such path or
+     *         either is not a vertex
+     */
+    public long bidirectionalDistance(L source, L target) {
+	int from = graph.id(source);
+	int to = graph.id(target);
+	if (from < 0 || to < 0) {
+	    return -1;
+	}
+	if (backward == null) {
+	    backward = new Frontier(graph.vertexCount());
+	}
+	forward.reset();
+	backward.reset();
+	forward.offer(from, 0, -1);
+	backward.offer(to, 0, -1);
+	long best = from == to ? 0 : Long.MAX_VALUE;
+	while (!forward.isEmpty() && !backward.isEmpty() && forward.minimum() + backward.minimum() < best) {
+	    if (forward.minimum() <= backward.minimum()) {
+		best = settle(forward, backward, outOffsets, outTargets, outWeights, best);
+	    } else {
+		best = settle(backward, forward, inOffsets, inSources, inWeights, best);
+	    }
+	}
+	checkRep();
+	return best == Long.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Visits the vertices reachable from source in breadth-first order, putting
+     * them in queue and their number of hops from source in the distances of
+     * forward.
+     *
+     * @param source, a vertex id
+     * @param target, a vertex id at which to stop, or -1 to visit every
+     *                reachable vertex
+     * @return the number of vertices put in queue
+     */
+    private int breadthFirst(int source, int target) {
+	forward.reset();
+	forward.visit(source, 0, -1);
+	queue[0] = source;
+	int head = 0;
+	int tail = 1;
+	while (head < tail && !forward.reached(target)) {
+	    int u = queue[head++];
+	    long hops = forward.distances[u] + 1;
+	    for (int i = outOffsets[u]; i < outOffsets[u + 1]; i++) {
+		int v = outTargets[i];
+		if (!forward.reached(v)) {
+		    forward.visit(v, hops, u);
+		    queue[tail++] = v;
+		}
+	    }
+	}
+	return tail;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from source until target is settled, leaving
+     * the distances and parents in forward.
+     *
+     * @param source, a vertex id
+     * @param target, a vertex id
+     * @return true iff target is reachable from source
+     */
+    private boolean dijkstra(int source, int target) {
+	forward.reset();
+	forward.offer(source, 0, -1);
+	while (!forward.isEmpty()) {
+	    int u = forward.poll();
+	    if (u == target) {
+		return true;
+	    }
+	    long distance = forward.distances[u];
+	    for (int i = outOffsets[u]; i < outOffsets[u + 1]; i++) {
+		forward.offer(outTargets[i], distance + outWeights[i], u);
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Settles the closest vertex of one side of a bidirectional search and
+     * relaxes its edges.
+     *
+     * @param side,       the side to advance, not empty
+     * @param other,      the other side
+     * @param offsets,    the row offsets of the edges side follows
+     * @param neighbours, the neighbour ids of those rows
+     * @param weights,    the weights parallel to neighbours
+     * @param best,       the weight of the lightest path found joining the sides
+     * @return the weight of the lightest path found joining the sides after
+     *         relaxing the edges
+     */
+    private static long settle(Frontier side, Frontier other, int[] offsets, int[] neighbours, int[] weights,
+	    long best) {
+	int u = side.poll();
+	long distance = side.distances[u];
+	for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+	    int v = neighbours[i];
+	    long through = distance + weights[i];
+	    side.offer(v, through, u);
+	    if (other.reached(v)) {
+		best = Math.min(best, through + other.distances[v]);
+	    }
+	}
+	return best;
+    }
+
+    /**
+     * The state of one search direction: the distance and parent of every
+     * vertex reached, and a binary heap of the reached vertices not yet
+     * settled, ordered by distance.
+     */
+    private static final class Frontier {
+	private final long[] distances;
+	private final int[] parents;
+	private final int[] stamps;
+	private final int[] positions;
+	private final int[] heap;
+	private int size = 0;
+	private int stamp = 0;
+
+	// Abstraction function:
+	//   AF = the vertices v with stamps[v] == stamp are reached, at distance
+	//        distances[v] through the edge from parents[v] (-1 for the start);
+	//        they are settled if positions[v] < 0, and otherwise in the heap at
+	//        heap[positions[v]]; every other vertex is unreached
+	// Representation invariant:
+	//   heap[0..size) are distinct reached vertices, positions[heap[i]] == i, and
+	//   the distance of heap[i] is at least that of heap[(i - 1) / 2]
+
+	Frontier(int vertexCount) {
+	    distances = new long[vertexCount];
+	    parents = new int[vertexCount];
+	    stamps = new int[vertexCount];
+	    positions = new int[vertexCount];
+	    heap = new int[vertexCount];
+	}
+
+	void checkRep(int vertexCount) {
+	    assert distances.length == vertexCount && parents.length == vertexCount && stamps.length == vertexCount;
+	    assert positions.length == vertexCount && heap.length == vertexCount;
+	    for (int i = 0; i < size; i++) {
+		assert reached(heap[i]) && positions[heap[i]] == i;
+		assert i == 0 || distances[heap[(i - 1) / 2]] <= distances[heap[i]];
+	    }
+	}
+
+	/**
+	 * Make every vertex unreached, with a new stamp.
+	 */
+	void reset() {
+	    size = 0;
+	    if (++stamp == Integer.MAX_VALUE) {
+		Arrays.fill(stamps, 0);
+		stamp = 1;
+	    }
+	}
+
+	boolean reached(int v) {
+	    return v >= 0 && stamps[v] == stamp;
+	}
+
+	boolean isEmpty() {
+	    return size == 0;
+	}
+
+	/**
+	 * @return the distance of the closest vertex in the heap, which is not
+	 *         empty
+	 */
+	long minimum() {
+	    return distances[heap[0]];
+	}
+
+	/**
+	 * Reaches an unreached vertex and settles it at once, for breadth-first
+	 * search.
+	 */
+	void visit(int v, long distance, int parent) {
+	    stamps[v] = stamp;
+	    distances[v] = distance;
+	    parents[v] = parent;
+	    positions[v] = -1;
+	}
+
+	/**
+	 * Reaches a vertex, or moves it closer, unless it is settled or already
+	 * at least as close.
+	 */
+	void offer(int v, long distance, int parent) {
+	    if (!reached(v)) {
+		stamps[v] = stamp;
+		distances[v] = distance;
+		parents[v] = parent;
+		heap[size] = v;
+		positions[v] = size;
+		siftUp(size++);
+	    } else if (positions[v] >= 0 && distance < distances[v]) {
+		distances[v] = distance;
+		parents[v] = parent;
+		siftUp(positions[v]);
+	    }
+	}
+
+	/**
+	 * Settles the closest vertex in the heap, which is not empty.
+	 *
+	 * @return the vertex settled
+	 */
+	int poll() {
+	    int v = heap[0];
+	    positions[v] = -1;
+	    size--;
+	    if (size > 0) {
+		heap[0] = heap[size];
+		positions[heap[0]] = 0;
+		siftDown(0);
+	    }
+	    return v;
+	}
+
+	private void siftUp(int i) {
+	    int v = heap[i];
+	    while (i > 0) {
+		int parent = (i - 1) >>> 1;
+		if (distances[heap[parent]] <= distances[v]) {
+		    break;
+		}
+		heap[i] = heap[parent];
+		positions[heap[i]] = i;
+		i = parent;
+	    }
+	    heap[i] = v;
+	    positions[v] = i;
+	}
+
+	private void siftDown(int i) {
+	    int v = heap[i];
+	    while (true) {
+		int child = 2 * i + 1;
+		if (child >= size) {
+		    break;
+		}
+		if (child + 1 < size && distances[heap[child + 1]] < distances[heap[child]]) {
+		    child++;
+		}
+		if (distances[v] <= distances[heap[child]]) {
+		    break;
+		}
+		heap[i] = heap[child];
+		positions[heap[i]] = i;
+		i = child;
+	    }
+	    heap[i] = v;
+	    positions[v] = i;
+	}
+    }
+
+}
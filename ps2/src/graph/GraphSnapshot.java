@@ -0,0 +1,228 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact binary file format for graphs with string labels.
+ *
+ * <p>
+ * A snapshot holds a string table followed by the adjacency lists. Every
+ * number after the header is an unsigned varint: seven bits per byte, least
+ * significant group first, with the high bit set on every byte but the last.
+ *
+ * <pre>
+ *     magic        4 bytes, "GSNP"
+ *     version      4 bytes, big-endian, 1
+ *     vertexCount  varint
+ *     edgeCount    varint
+ *     labels       vertexCount times: varint length, then length bytes of UTF-8;
+ *                  the i-th label is the vertex with id i
+ *     adjacency    vertexCount times, in id order: varint outDegree, then
+ *                  outDegree pairs of varint target gap and varint weight
+ * </pre>
+ * <p>
+ * The targets of every vertex are in increasing id order; the gap of the
+ * first target is its id, and the gap of every later target is the difference
+ * from the previous id, so it is positive. Weights are positive.
+ *
+ * <p>
+ * Reading maps the file read-only into memory and decodes it in one pass into
+ * a CompactGraph, without building any intermediate graph; the pages of the
+ * file are shared with every other process reading the same snapshot through
+ * the page cache.
+ */
+public final class GraphSnapshot {
+
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int VERSION = 1;
+
+    private GraphSnapshot() {
+	throw new AssertionError("GraphSnapshot is not instantiable");
+    }
+
+    /**
+     * Write a snapshot of a graph to a file, replacing the file if it exists.
+     * If graph is a CompactGraph, every vertex keeps its id, so the graph read
+     * back breaks ties between vertices by id exactly as graph does.
+     *
+     * @param graph, the graph to write
+     * @param file,  the file to write the snapshot to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Graph<String> graph, File file) throws IOException {
+	// the rows of a CompactGraph are already sorted by target id
+	CompactGraph<String> compact = graph instanceof CompactGraph<String> frozen ? frozen
+		: CompactGraph.freeze(graph);
+	int vertexCount = compact.vertexCount();
+	int[] outOffsets = compact.outOffsets();
+	int[] outTargets = compact.outTargets();
+	int[] outWeights = compact.outWeights();
+
+	try (DataOutputStream out = new DataOutputStream(
+		new BufferedOutputStream(Files.newOutputStream(file.toPath()), 1 << 16))) {
+	    out.writeInt(MAGIC);
+	    out.writeInt(VERSION);
+	    writeVarint(out, vertexCount);
+	    writeVarint(out, outOffsets[vertexCount]);
+	    for (int id = 0; id < vertexCount; id++) {
+		byte[] bytes = compact.label(id).getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length);
+		out.write(bytes);
+	    }
+	    for (int source = 0; source < vertexCount; source++) {
+		writeVarint(out, outOffsets[source + 1] - outOffsets[source]);
+		int previous = 0;
+		for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+		    writeVarint(out, outTargets[i] - previous);
+		    writeVarint(out, outWeights[i]);
+		    previous = outTargets[i];
+		}
+	    }
+	}
+    }
+
+    /**
+     * Read a snapshot written by {@link #write(Graph, File)}.
+     *
+     * @param file, the snapshot file
+     * @return an immutable graph with the vertices and edges of the snapshot
+     * @throws IOException if the file cannot be read, or is not a well-formed
+     *                     snapshot
+     */
+    public static CompactGraph<String> read(File file) throws IOException {
+	try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+	    long size = channel.size();
+	    if (size > Integer.MAX_VALUE) {
+		throw new IOException("Snapshot too large to map: " + file);
+	    }
+	    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+	    try {
+		return decode(buffer);
+	    } catch (BufferUnderflowException exp) {
+		throw new IOException("Truncated snapshot: " + file, exp);
+	    }
+	}
+    }
+
+    /**
+     * Decodes a snapshot.
+     *
+     * @param buffer, the bytes of a snapshot, from position to limit
+     * @return the graph of the snapshot
+     * @throws IOException if the bytes are not a well-formed snapshot
+     * @throws BufferUnderflowException if the bytes end too early
+     */
+    private static CompactGraph<String> decode(ByteBuffer buffer) throws IOException {
+	if (buffer.getInt() != MAGIC) {
+	    throw new IOException("Not a graph snapshot");
+	}
+	int version = buffer.getInt();
+	if (version != VERSION) {
+	    throw new IOException("Unsupported snapshot version " + version);
+	}
+	int vertexCount = readVarint(buffer);
+	int edgeCount = readVarint(buffer);
+	// every label and every edge takes at least one byte
+	if (vertexCount > buffer.remaining() || edgeCount > buffer.remaining()) {
+	    throw new IOException("Snapshot counts exceed its size");
+	}
+
+	String[] labels = new String[vertexCount];
+	Map<String, Integer> ids = new HashMap<>(vertexCount * 2);
+	byte[] bytes = new byte[64];
+	for (int id = 0; id < vertexCount; id++) {
+	    int length = readVarint(buffer);
+	    if (length > bytes.length) {
+		bytes = new byte[Math.max(length, bytes.length * 2)];
+	    }
+	    buffer.get(bytes, 0, length);
+	    labels[id] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+	    if (ids.put(labels[id], id) != null) {
+		throw new IOException("Duplicate vertex in snapshot: " + labels[id]);
+	    }
+	}
+
+	int[] outOffsets = new int[vertexCount + 1];
+	int[] outTargets = new int[edgeCount];
+	int[] outWeights = new int[edgeCount];
+	int position = 0;
+	for (int source = 0; source < vertexCount; source++) {
+	    int degree = readVarint(buffer);
+	    if (degree > edgeCount - position) {
+		throw new IOException("Snapshot has more edges than its header says");
+	    }
+	    int target = 0;
+	    for (int i = 0; i < degree; i++) {
+		int gap = readVarint(buffer);
+		if (i > 0 && gap == 0 || gap >= vertexCount - target) {
+		    throw new IOException("Bad target in snapshot for vertex " + labels[source]);
+		}
+		target += gap;
+		int weight = readVarint(buffer);
+		if (weight <= 0) {
+		    throw new IOException("Bad weight in snapshot for vertex " + labels[source]);
+		}
+		outTargets[position] = target;
+		outWeights[position] = weight;
+		position++;
+	    }
+	    outOffsets[source + 1] = position;
+	}
+	if (position != edgeCount) {
+	    throw new IOException("Snapshot has fewer edges than its header says");
+	}
+	if (buffer.hasRemaining()) {
+	    throw new IOException("Trailing bytes after snapshot");
+	}
+
+	return CompactGraph.fromOutEdges(Arrays.asList(labels), ids, outOffsets, outTargets, outWeights);
+    }
+
+    /**
+     * Writes a nonnegative int as an unsigned varint.
+     */
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+	while ((value & ~0x7F) != 0) {
+	    out.write((value & 0x7F) | 0x80);
+	    value >>>= 7;
+	}
+	out.write(value);
+    }
+
+    /**
+     * Reads an unsigned varint that fits in a nonnegative int.
+     *
+     * @throws IOException if the varint is too long or too large
+     */
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+	int value = 0;
+	for (int shift = 0; shift < 32; shift += 7) {
+	    byte next = buffer.get();
+	    value |= (next & 0x7F) << shift;
+	    if (next >= 0) {
+		if (value < 0 || shift == 28 && (next & 0x70) != 0) {
+		    throw new IOException("Varint out of range in snapshot");
+		}
+		return value;
+	    }
+	}
+	throw new IOException("Varint too long in snapshot");
+    }
+
+}
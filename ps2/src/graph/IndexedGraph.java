@@ -0,0 +1,77 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Graph whose implementation can answer queries straight from its internal
+ * indexes, without copying them.
+ *
+ * <p>
+ * Graph itself must not grow new methods, so implementations that can offer
+ * these operations cheaply implement this interface as well, and clients that
+ * care about the cost of a query use it instead of Graph.
+ *
+ * <p>
+ * A view returned by this interface is unmodifiable, and is only valid until
+ * this graph is next modified: after that its contents and behavior are
+ * unspecified, unless the implementation says otherwise.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public interface IndexedGraph<L> extends Graph<L> {
+
+    /**
+     * Get a view of the vertices in this graph.
+     *
+     * @return an unmodifiable view of the set of labels of vertices in this graph,
+     *         equal to {@link #vertices()}
+     */
+    public Set<L> verticesView();
+
+    /**
+     * Get a view of the source vertices with directed edges to a target vertex
+     * and the weights of those edges.
+     *
+     * @param target a label
+     * @return an unmodifiable view of the map {@link #sources(Object)
+     *         sources(target)} would return
+     */
+    public Map<L, Integer> sourcesView(L target);
+
+    /**
+     * Get a view of the target vertices with directed edges from a source vertex
+     * and the weights of those edges.
+     *
+     * @param source a label
+     * @return an unmodifiable view of the map {@link #targets(Object)
+     *         targets(source)} would return
+     */
+    public Map<L, Integer> targetsView(L source);
+
+    /**
+     * Get the weight of the edge from a source vertex to a target vertex.
+     *
+     * @param source a label
+     * @param target a label
+     * @return the weight of the edge from source to target, or zero if there is
+     *         no such edge
+     */
+    public int weight(L source, L target);
+
+    /**
+     * Add to the weight of a directed edge in this graph. If there is no such
+     * edge it is added with weight delta; vertices with the given labels are
+     * added to the graph if they do not already exist.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta  positive amount to add to the weight of the edge
+     * @return the new weight of the edge
+     */
+    public int increment(L source, L target, int delta);
+
+}
@@ -0,0 +1,522 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A mutable map from labels to int weights, stored without boxing.
+ *
+ * <p>
+ * Keys and weights live in two parallel arrays with open addressing and
+ * linear probing, so an entry costs one reference and one int instead of a
+ * hash map node and an Integer. The int methods (getInt, putInt, addInt,
+ * removeInt, forEachInt) never box; the Map methods box the weights they
+ * return. Neither keys nor weights may be null. This class is internal to the
+ * rep of the graph implementations, which only store positive weights, so for
+ * them a weight of zero from getInt means the key is absent.
+ *
+ * @param <L> type of the keys, must be immutable
+ */
+class IntWeightMap<L> extends AbstractMap<L, Integer> {
+
+    /** Marks a slot whose entry was removed, so probing continues past it. */
+    private static final Object TOMBSTONE = new Object();
+    private static final Object[] NO_KEYS = {};
+    private static final int[] NO_WEIGHTS = {};
+    private static final int MINIMUM_CAPACITY = 4;
+
+    private Object[] keys = NO_KEYS;
+    private int[] weights = NO_WEIGHTS;
+    private int size = 0;
+    private int used = 0;
+    private int modifications = 0;
+
+    // Abstraction function:
+    //   AF(keys, weights) = the map from keys[i] to weights[i] for every slot i
+    //                       whose key is neither null nor TOMBSTONE
+    //   size, used and modifications are caches and counters only
+
+    // Representation invariant:
+    //   keys.length == weights.length, and is zero or a power of two
+    //   no key occurs in two slots
+    //   every key k is in the slot of its hash or after it, with no null slot
+    //   in between (wrapping around the end of the arrays)
+    //   size is the number of entries, used is size plus the number of
+    //   tombstones, and used <= 3/4 of keys.length unless keys is empty
+
+    // Safety from rep exposure:
+    //   All the fields are private, and no array is returned. Entries,
+    //   iterators and key sets write through this map, as the Map spec requires.
+
+    /**
+     * Make an empty map.
+     */
+    IntWeightMap() {
+    }
+
+    /**
+     * Make an empty map with room for expectedSize entries before its arrays
+     * have to grow.
+     *
+     * @param expectedSize, the number of entries expected, nonnegative
+     */
+    IntWeightMap(int expectedSize) {
+	if (expectedSize > 0) {
+	    int capacity = MINIMUM_CAPACITY;
+	    while (expectedSize * 4L > capacity * 3L) {
+		capacity *= 2;
+	    }
+	    keys = new Object[capacity];
+	    weights = new int[capacity];
+	}
+    }
+
+    /**
+     * Make a map with the same entries as other.
+     *
+     * @param other, a map to copy
+     */
+    IntWeightMap(IntWeightMap<L> other) {
+	if (other.size > 0) {
+	    keys = other.keys.clone();
+	    weights = other.weights.clone();
+	    size = other.size;
+	    used = other.used;
+	}
+	checkRep();
+    }
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so; it costs
+    // O(keys.length) so it runs only when the arrays are copied or rehashed,
+    // which cost as much anyway
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	assert keys.length == weights.length;
+	assert (keys.length & (keys.length - 1)) == 0;
+	int entries = 0;
+	int tombstones = 0;
+	for (int i = 0; i < keys.length; i++) {
+	    if (keys[i] == TOMBSTONE) {
+		tombstones++;
+	    } else if (keys[i] != null) {
+		entries++;
+		assert slotOf(keys[i]) == i;
+	    }
+	}
+	assert entries == size;
+	assert entries + tombstones == used;
+	assert keys.length == 0 || used * 4 <= keys.length * 3;
+	Validation.record(start);
+    }
+
+    /**
+     * Get the weight of a key.
+     *
+     * @param key, any object
+     * @return the weight of key, or zero if key is not in this map
+     */
+    int getInt(Object key) {
+	int slot = slotOf(key);
+	return slot < 0 ? 0 : weights[slot];
+    }
+
+    /**
+     * Set the weight of a key.
+     *
+     * @param key,    a label
+     * @param weight, a weight
+     * @return the previous weight of key, or zero if key was not in this map
+     */
+    int putInt(L key, int weight) {
+	int slot = slotOf(key);
+	if (slot >= 0) {
+	    int previous = weights[slot];
+	    weights[slot] = weight;
+	    return previous;
+	}
+	insert(key, weight);
+	return 0;
+    }
+
+    /**
+     * Add to the weight of a key, adding the key with weight delta if it is not
+     * in this map.
+     *
+     * @param key,   a label
+     * @param delta, an amount to add to the weight of key
+     * @return the new weight of key
+     */
+    int addInt(L key, int delta) {
+	int slot = slotOf(key);
+	if (slot >= 0) {
+	    weights[slot] += delta;
+	    return weights[slot];
+	}
+	insert(key, delta);
+	return delta;
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key, any object
+     * @return the weight key had, or zero if key was not in this map
+     */
+    int removeInt(Object key) {
+	int slot = slotOf(key);
+	if (slot < 0) {
+	    return 0;
+	}
+	int previous = weights[slot];
+	removeSlot(slot);
+	return previous;
+    }
+
+    /**
+     * Run action on every entry of this map, without boxing the weights. action
+     * must not modify this map.
+     *
+     * @param action, called with the key and weight of every entry
+     */
+    void forEachInt(ObjIntConsumer<? super L> action) {
+	int expectedModifications = modifications;
+	for (int i = 0; i < keys.length; i++) {
+	    if (keys[i] != null && keys[i] != TOMBSTONE) {
+		action.accept(keyAt(i), weights[i]);
+	    }
+	}
+	if (modifications != expectedModifications) {
+	    throw new ConcurrentModificationException();
+	}
+    }
+
+    @Override
+    public int size() {
+	return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+	return slotOf(key) >= 0;
+    }
+
+    @Override
+    public Integer get(Object key) {
+	int slot = slotOf(key);
+	return slot < 0 ? null : weights[slot];
+    }
+
+    @Override
+    public Integer put(L key, Integer weight) {
+	int slot = slotOf(key);
+	Integer previous = slot < 0 ? null : weights[slot];
+	putInt(key, weight);
+	return previous;
+    }
+
+    @Override
+    public Integer remove(Object key) {
+	int slot = slotOf(key);
+	if (slot < 0) {
+	    return null;
+	}
+	int previous = weights[slot];
+	removeSlot(slot);
+	return previous;
+    }
+
+    @Override
+    public void clear() {
+	if (used > 0) {
+	    Arrays.fill(keys, null);
+	    size = 0;
+	    used = 0;
+	    modifications++;
+	}
+    }
+
+    @Override
+    public Set<L> keySet() {
+	return new AbstractSet<L>() {
+	    @Override
+	    public int size() {
+		return size;
+	    }
+
+	    @Override
+	    public boolean contains(Object key) {
+		return containsKey(key);
+	    }
+
+	    @Override
+	    public boolean remove(Object key) {
+		return IntWeightMap.this.remove(key) != null;
+	    }
+
+	    @Override
+	    public void clear() {
+		IntWeightMap.this.clear();
+	    }
+
+	    @Override
+	    public Iterator<L> iterator() {
+		return new SlotIterator<L>() {
+		    @Override
+		    L at(int slot) {
+			return keyAt(slot);
+		    }
+		};
+	    }
+	};
+    }
+
+    @Override
+    public Set<Map.Entry<L, Integer>> entrySet() {
+	return new AbstractSet<Map.Entry<L, Integer>>() {
+	    @Override
+	    public int size() {
+		return size;
+	    }
+
+	    @Override
+	    public void clear() {
+		IntWeightMap.this.clear();
+	    }
+
+	    @Override
+	    public Iterator<Map.Entry<L, Integer>> iterator() {
+		return new SlotIterator<Map.Entry<L, Integer>>() {
+		    @Override
+		    Map.Entry<L, Integer> at(int slot) {
+			return new Entry(slot);
+		    }
+		};
+	    }
+	};
+    }
+
+    /**
+     * Returns the slot holding key, or -1 if key is not in this map.
+     */
+    private int slotOf(Object key) {
+	if (keys.length == 0) {
+	    return -1;
+	}
+	int mask = keys.length - 1;
+	for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+	    Object current = keys[slot];
+	    if (current == null) {
+		return -1;
+	    }
+	    if (current != TOMBSTONE && current.equals(key)) {
+		return slot;
+	    }
+	}
+    }
+
+    /**
+     * Adds an entry for key, which must not be in this map, growing or
+     * rehashing the arrays first if they are too full.
+     */
+    private void insert(L key, int weight) {
+	Objects.requireNonNull(key);
+	if ((used + 1) * 4 > keys.length * 3) {
+	    // grow only if the live entries need it, otherwise just drop tombstones
+	    int capacity = Math.max(MINIMUM_CAPACITY, keys.length);
+	    while ((size + 1) * 2 > capacity) {
+		capacity *= 2;
+	    }
+	    rehash(capacity);
+	}
+	int mask = keys.length - 1;
+	int slot = hash(key) & mask;
+	while (keys[slot] != null && keys[slot] != TOMBSTONE) {
+	    slot = (slot + 1) & mask;
+	}
+	if (keys[slot] == null) {
+	    used++;
+	}
+	keys[slot] = key;
+	weights[slot] = weight;
+	size++;
+	modifications++;
+    }
+
+    /**
+     * Removes the entry in slot, leaving a tombstone unless the next slot is
+     * empty.
+     */
+    private void removeSlot(int slot) {
+	int mask = keys.length - 1;
+	if (keys[(slot + 1) & mask] == null) {
+	    keys[slot] = null;
+	    used--;
+	} else {
+	    keys[slot] = TOMBSTONE;
+	}
+	size--;
+	modifications++;
+    }
+
+    /**
+     * Moves every entry into new arrays of the given capacity, dropping the
+     * tombstones.
+     */
+    private void rehash(int capacity) {
+	Object[] oldKeys = keys;
+	int[] oldWeights = weights;
+	keys = new Object[capacity];
+	weights = new int[capacity];
+	int mask = capacity - 1;
+	for (int i = 0; i < oldKeys.length; i++) {
+	    Object key = oldKeys[i];
+	    if (key != null && key != TOMBSTONE) {
+		int slot = hash(key) & mask;
+		while (keys[slot] != null) {
+		    slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		weights[slot] = oldWeights[i];
+	    }
+	}
+	used = size;
+	checkRep();
+    }
+
+    @SuppressWarnings("unchecked")
+    private L keyAt(int slot) {
+	return (L) keys[slot];
+    }
+
+    private static int hash(Object key) {
+	int hash = key.hashCode() * 0x9E3779B9;
+	return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * An iterator over the occupied slots, whose remove writes through this map.
+     * Removing never moves other entries, so the iteration continues correctly.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+	private int next = advance(0);
+	private int last = -1;
+	private int expectedModifications = modifications;
+
+	abstract T at(int slot);
+
+	private int advance(int from) {
+	    int slot = from;
+	    while (slot < keys.length && (keys[slot] == null || keys[slot] == TOMBSTONE)) {
+		slot++;
+	    }
+	    return slot;
+	}
+
+	@Override
+	public boolean hasNext() {
+	    return next < keys.length;
+	}
+
+	@Override
+	public T next() {
+	    if (modifications != expectedModifications) {
+		throw new ConcurrentModificationException();
+	    }
+	    if (!hasNext()) {
+		throw new NoSuchElementException();
+	    }
+	    last = next;
+	    next = advance(next + 1);
+	    return at(last);
+	}
+
+	@Override
+	public void remove() {
+	    if (last < 0) {
+		throw new IllegalStateException();
+	    }
+	    if (modifications != expectedModifications) {
+		throw new ConcurrentModificationException();
+	    }
+	    removeSlot(last);
+	    expectedModifications = modifications;
+	    last = -1;
+	}
+    }
+
+    /**
+     * An entry of this map at a slot, whose setValue writes through this map.
+     */
+    private class Entry implements Map.Entry<L, Integer> {
+	private final L key;
+	private final int slot;
+	private int weight;
+
+	Entry(int slot) {
+	    this.key = keyAt(slot);
+	    this.slot = slot;
+	    this.weight = weights[slot];
+	}
+
+	@Override
+	public L getKey() {
+	    return key;
+	}
+
+	@Override
+	public Integer getValue() {
+	    // follow later changes while the entry stays in its slot
+	    if (slot < keys.length && keys[slot] == key) {
+		weight = weights[slot];
+	    }
+	    return weight;
+	}
+
+	@Override
+	public Integer setValue(Integer weight) {
+	    Integer previous = put(key, weight);
+	    this.weight = weight;
+	    return previous;
+	}
+
+	@Override
+	public boolean equals(Object that) {
+	    if (!(that instanceof Map.Entry)) {
+		return false;
+	    }
+	    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) that;
+	    return key.equals(entry.getKey()) && getValue().equals(entry.getValue());
+	}
+
+	@Override
+	public int hashCode() {
+	    return key.hashCode() ^ getValue().hashCode();
+	}
+
+	@Override
+	public String toString() {
+	    return key + "=" + getValue();
+	}
+    }
+
+}
@@ -0,0 +1,1003 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An implementation of Graph whose edges live off the Java heap, in a
+ * memory-mapped file.
+ *
+ * <p>
+ * Vertex labels are interned to dense int ids on the heap, in a map that does
+ * not box the ids. The edges are kept in two parts. The base is a temporary
+ * file, mapped into memory, that holds the edges in compressed sparse row form
+ * like CompactGraph: for every vertex id a slice of (target id, weight) pairs
+ * sorted by target id, and the same edges again indexed by target. Changes go
+ * to a delta on the heap, sorted int arrays per vertex that override the base
+ * edge by edge. When the delta holds more than a fixed number of changes
+ * ({@value #DEFAULT_MAXIMUM_DELTA} unless the graph was created with another
+ * limit), or when {@link #compact()} is called, base and delta are merged into
+ * a new file and the delta is emptied.
+ *
+ * <p>
+ * So the heap holds only the labels and a bounded number of recent changes,
+ * and the garbage collector never scans the edges. Every compaction rewrites
+ * the whole file, so a large graph should be loaded with GraphBuilder rather
+ * than edge by edge. Reads of a vertex with no change since the last
+ * compaction go straight to the mapped file, and the views of IndexedGraph for
+ * such a vertex are backed by it; for a vertex with pending changes the views
+ * are copies.
+ *
+ * <p>
+ * A graph should be closed when it is no longer needed, which deletes its
+ * files; after that it must not be used. The file replaced by a compaction is
+ * deleted at once where the system allows deleting a mapped file, and
+ * otherwise at a later compaction or on close. A graph that becomes
+ * unreachable without being closed has its files deleted once it is garbage
+ * collected, or when the JVM exits.
+ *
+ * <p>
+ * Each of the four sections of the file is mapped on its own and must fit in
+ * 2 GB, so a graph holds at most {@value #MAXIMUM_EDGES} edges. Errors reading
+ * or writing the file are thrown as UncheckedIOException. A MappedGraph is not
+ * thread-safe.
+ */
+public class MappedGraph<L> implements IndexedGraph<L>, Closeable {
+
+    /** The largest number of edges a graph can hold. */
+    public static final int MAXIMUM_EDGES = Integer.MAX_VALUE / 8;
+
+    /** The number of changes a graph holds on the heap by default. */
+    public static final int DEFAULT_MAXIMUM_DELTA = 1 << 16;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    // The files of every graph neither closed nor collected, deleted when the
+    // JVM exits, since the cleaner does not run then
+    private static final Set<Generations> OPEN = ConcurrentHashMap.newKeySet();
+
+    static {
+	Runtime.getRuntime().addShutdownHook(new Thread(() -> OPEN.forEach(Generations::deleteAll)));
+    }
+
+    private final File directory;
+    private final int maximumDelta;
+    private final List<L> labels = new ArrayList<>();
+    private final IntWeightMap<L> ids = new IntWeightMap<>();
+    private final List<DeltaRow> outDelta = new ArrayList<>();
+    private final List<DeltaRow> inDelta = new ArrayList<>();
+    private final Generations generations = new Generations();
+    private final Cleaner.Cleanable cleanable;
+    private int deltaSize = 0;
+    private boolean closed = false;
+
+    private int baseVertexCount;
+    private IntBuffer outOffsets;
+    private IntBuffer outEdges;
+    private IntBuffer inOffsets;
+    private IntBuffer inEdges;
+
+    // Abstraction function:
+    //   AF(labels, ids, outOffsets, outEdges, outDelta) =
+    //     A graph whose vertices are the keys of ids, with an edge from labels[s] to
+    //     labels[t] of weight w for every pair of live ids s, t where w > 0 and
+    //       w = outDelta[s].get(t) if outDelta[s] has an override for t, otherwise
+    //       w = outEdges[2i + 1] for the i with outOffsets[s] <= i < outOffsets[s+1]
+    //           and outEdges[2i] == t, or zero if there is none.
+    //     An id v is live if labels[v] is not null.
+    //   inOffsets, inEdges and inDelta hold the same edges indexed by target;
+    //   generations, cleanable, baseVertexCount and deltaSize describe the rep only.
+    //   A closed graph has no abstract value.
+
+    // Representation invariant, while the graph is not closed:
+    //   ids maps labels[v] to v + 1 for every live id v, and has no other keys
+    //   outDelta and inDelta have the same length as labels; their rows are null or not empty
+    //   outOffsets and inOffsets have length baseVertexCount + 1 <= labels.size() + 1,
+    //     start at zero, are non-decreasing and end at the number of base edges;
+    //     outEdges and inEdges hold two ints per base edge
+    //   within every slice of the base the neighbour ids are strictly increasing,
+    //     below baseVertexCount, and every weight is positive
+    //   the base edge v -> u with weight w is in the out slice of v iff it is in the
+    //     in slice of u
+    //   outDelta[s][t] == inDelta[t][s] for every pair with either side present
+    //   every override differs from the base weight of its edge, and is
+    //     nonnegative; an override of zero is only for an edge of the base
+    //   every base edge from or to a dead id has an override of zero, and every
+    //     positive override is between live ids
+    //   deltaSize is the number of overrides in outDelta
+    //   the mapped buffers are regions of generations.current
+
+    // Safety from rep exposure:
+    //   All the fields are private, and no buffer or collection of the rep is
+    //   returned; vertices, sources and targets return new collections, and
+    //   verticesView, sourcesView and targetsView return unmodifiable views or copies.
+    //   generations is shared with the cleaner and the shutdown hook, which only
+    //   delete its files.
+
+    /**
+     * Create an empty graph whose file is in the default temporary-file
+     * directory.
+     */
+    public MappedGraph() {
+	this(new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Create an empty graph whose file is in directory.
+     *
+     * @param directory, an existing directory for the file of the graph
+     */
+    public MappedGraph(File directory) {
+	this(directory, DEFAULT_MAXIMUM_DELTA);
+    }
+
+    /**
+     * Create an empty graph whose file is in directory, that compacts its delta
+     * once it holds more than maximumDelta changes.
+     *
+     * @param directory,    an existing directory for the file of the graph
+     * @param maximumDelta, the number of changes the delta may hold, nonnegative
+     * @throws IllegalArgumentException if maximumDelta is negative
+     */
+    public MappedGraph(File directory, int maximumDelta) {
+	if (maximumDelta < 0) {
+	    throw new IllegalArgumentException("maximumDelta must be nonnegative: " + maximumDelta);
+	}
+	this.directory = directory;
+	this.maximumDelta = maximumDelta;
+	this.cleanable = CLEANER.register(this, generations);
+	OPEN.add(generations);
+	writeBase(0, (vertex, consumer) -> {
+	});
+	checkRep();
+    }
+
+    /**
+     * Create a graph from an adjacency table, for GraphBuilder, whose file is in
+     * directory.
+     *
+     * @param directory, an existing directory for the file of the graph
+     * @param adjacency, maps every label to the positive weights of the edges
+     *                   from it; every target is also a key
+     */
+    MappedGraph(File directory, Map<L, IntWeightMap<L>> adjacency) {
+	this.directory = directory;
+	this.maximumDelta = DEFAULT_MAXIMUM_DELTA;
+	this.cleanable = CLEANER.register(this, generations);
+	OPEN.add(generations);
+	for (L label : adjacency.keySet()) {
+	    addVertex(label);
+	}
+	writeBase(labels.size(), (vertex, consumer) -> adjacency.get(labels.get(vertex))
+		.forEachInt((target, weight) -> consumer.accept(id(target), weight)));
+	checkRep();
+    }
+
+    // checkRep
+    // Check that the whole rep invariant is true, if Validation says so; it
+    // costs O(vertices + edges), so it only runs when the base is rewritten
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	int live = 0;
+	for (int v = 0; v < labels.size(); v++) {
+	    if (labels.get(v) != null) {
+		assert id(labels.get(v)) == v;
+		live++;
+	    }
+	}
+	assert ids.size() == live;
+	assert outDelta.size() == labels.size() && inDelta.size() == labels.size();
+	assert baseVertexCount <= labels.size();
+	assert outOffsets.limit() == baseVertexCount + 1 && inOffsets.limit() == baseVertexCount + 1;
+	assert outOffsets.get(0) == 0 && inOffsets.get(0) == 0;
+	assert outEdges.limit() == 2 * outOffsets.get(baseVertexCount);
+	assert inEdges.limit() == 2 * inOffsets.get(baseVertexCount);
+	for (int v = 0; v < baseVertexCount; v++) {
+	    checkSlice(outOffsets, outEdges, v);
+	    checkSlice(inOffsets, inEdges, v);
+	}
+	int overrides = 0;
+	for (int s = 0; s < labels.size(); s++) {
+	    if (outDelta.get(s) != null) {
+		outDelta.get(s).checkRep();
+		overrides += outDelta.get(s).size;
+	    }
+	    if (inDelta.get(s) != null) {
+		inDelta.get(s).checkRep();
+	    }
+	    checkRep(s);
+	}
+	assert overrides == deltaSize;
+	assert !closed && generations.current != null;
+	Validation.record(start);
+    }
+
+    // Check one slice of the base
+    private void checkSlice(IntBuffer offsets, IntBuffer edges, int vertex) {
+	assert offsets.get(vertex) <= offsets.get(vertex + 1);
+	for (int i = offsets.get(vertex); i < offsets.get(vertex + 1); i++) {
+	    assert edges.get(2 * i) < baseVertexCount;
+	    assert i == offsets.get(vertex) || edges.get(2 * i - 2) < edges.get(2 * i);
+	    assert edges.get(2 * i + 1) > 0;
+	}
+    }
+
+    // Check the overrides of the edges from source, unguarded
+    private void checkRep(int source) {
+	DeltaRow row = outDelta.get(source);
+	if (row == null) {
+	    return;
+	}
+	for (int i = 0; i < row.size; i++) {
+	    int target = row.neighbours[i];
+	    int weight = row.weights[i];
+	    assert inDelta.get(target) != null && inDelta.get(target).get(source) == weight;
+	    assert weight >= 0 && weight != baseWeight(source, target);
+	    assert weight == 0 || labels.get(source) != null && labels.get(target) != null;
+	}
+    }
+
+    // Check the rep invariant for the edge between two ids, if Validation says so
+    private void checkRep(int source, int target) {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	DeltaRow outRow = outDelta.get(source);
+	DeltaRow inRow = inDelta.get(target);
+	int outWeight = outRow == null ? -1 : outRow.get(target);
+	int inWeight = inRow == null ? -1 : inRow.get(source);
+	assert outWeight == inWeight;
+	assert outRow == null || outRow.size > 0;
+	assert inRow == null || inRow.size > 0;
+	assert weight(source, target) >= 0;
+	Validation.record(start);
+    }
+
+    @Override
+    public boolean add(L vertex) {
+	checkOpen();
+	if (id(vertex) >= 0) {
+	    return false;
+	}
+	addVertex(vertex);
+	return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+	checkOpen();
+	int previous;
+	if (weight > 0) {
+	    int sourceId = idOf(source);
+	    int targetId = idOf(target);
+	    previous = weight(sourceId, targetId);
+	    override(sourceId, targetId, weight);
+	    checkRep(sourceId, targetId);
+	} else {
+	    int sourceId = id(source);
+	    int targetId = id(target);
+	    if (sourceId < 0 || targetId < 0) {
+		return 0;
+	    }
+	    previous = weight(sourceId, targetId);
+	    if (previous > 0) {
+		override(sourceId, targetId, 0);
+	    }
+	    checkRep(sourceId, targetId);
+	}
+	compactIfLarge();
+	return previous;
+    }
+
+    @Override
+    public int increment(L source, L target, int delta) {
+	checkOpen();
+	int sourceId = idOf(source);
+	int targetId = idOf(target);
+	int weight = weight(sourceId, targetId) + delta;
+	override(sourceId, targetId, weight);
+	checkRep(sourceId, targetId);
+	compactIfLarge();
+	return weight;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+	checkOpen();
+	int id = id(vertex);
+	if (id < 0) {
+	    return false;
+	}
+	List<Integer> targets = new ArrayList<>();
+	forEachEdge(outOffsets, outEdges, outDelta, id, (target, weight) -> targets.add(target));
+	List<Integer> sources = new ArrayList<>();
+	forEachEdge(inOffsets, inEdges, inDelta, id, (source, weight) -> sources.add(source));
+	for (int target : targets) {
+	    override(id, target, 0);
+	}
+	for (int source : sources) {
+	    override(source, id, 0);
+	}
+	labels.set(id, null);
+	ids.removeInt(vertex);
+	compactIfLarge();
+	return true;
+    }
+
+    /**
+     * Merge the changes made since the last compaction into a new file, and
+     * delete the old one. This does not change the abstract value of the graph,
+     * but views returned earlier are no longer valid.
+     *
+     * @throws UncheckedIOException if the new file cannot be written
+     */
+    public void compact() {
+	checkOpen();
+	int[] newIds = new int[labels.size()];
+	List<L> newLabels = new ArrayList<>(ids.size());
+	int[] oldIds = new int[ids.size()];
+	for (int v = 0; v < labels.size(); v++) {
+	    if (labels.get(v) == null) {
+		newIds[v] = -1;
+	    } else {
+		newIds[v] = newLabels.size();
+		oldIds[newLabels.size()] = v;
+		newLabels.add(labels.get(v));
+	    }
+	}
+	// Read the rows from the old base and delta while writing the new base
+	IntBuffer oldOutOffsets = outOffsets;
+	IntBuffer oldOutEdges = outEdges;
+	writeBase(newLabels.size(), (vertex, consumer) -> forEachEdge(oldOutOffsets, oldOutEdges, outDelta,
+		oldIds[vertex], (target, weight) -> consumer.accept(newIds[target], weight)));
+
+	labels.clear();
+	ids.clear();
+	outDelta.clear();
+	inDelta.clear();
+	for (L label : newLabels) {
+	    addVertex(label);
+	}
+	deltaSize = 0;
+	checkRep();
+    }
+
+    /**
+     * Compacts the graph if its delta has grown too large.
+     */
+    private void compactIfLarge() {
+	if (deltaSize > maximumDelta) {
+	    compact();
+	}
+    }
+
+    /**
+     * Delete the files of this graph and release its memory. Closing a graph
+     * that is already closed has no effect. After close, every operation of
+     * Graph and IndexedGraph throws IllegalStateException, and views returned
+     * earlier are no longer valid.
+     */
+    @Override
+    public void close() {
+	if (closed) {
+	    return;
+	}
+	closed = true;
+	labels.clear();
+	ids.clear();
+	outDelta.clear();
+	inDelta.clear();
+	deltaSize = 0;
+	baseVertexCount = 0;
+	outOffsets = null;
+	outEdges = null;
+	inOffsets = null;
+	inEdges = null;
+	cleanable.clean();
+    }
+
+    /**
+     * Throws IllegalStateException if this graph is closed.
+     */
+    private void checkOpen() {
+	if (closed) {
+	    throw new IllegalStateException("MappedGraph is closed");
+	}
+    }
+
+    @Override
+    public Set<L> vertices() {
+	checkOpen();
+	return new HashSet<>(ids.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+	checkOpen();
+	int id = id(target);
+	if (id < 0) {
+	    return new HashMap<>();
+	}
+	Map<L, Integer> result = new HashMap<>(baseDegree(inOffsets, id) * 2);
+	forEachEdge(inOffsets, inEdges, inDelta, id, (source, weight) -> result.put(labels.get(source), weight));
+	return result;
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+	checkOpen();
+	int id = id(source);
+	if (id < 0) {
+	    return new HashMap<>();
+	}
+	Map<L, Integer> result = new HashMap<>(baseDegree(outOffsets, id) * 2);
+	forEachEdge(outOffsets, outEdges, outDelta, id, (target, weight) -> result.put(labels.get(target), weight));
+	return result;
+    }
+
+    // Returns the number of edges of vertex in one direction of the base
+    private int baseDegree(IntBuffer offsets, int vertex) {
+	return vertex < baseVertexCount ? offsets.get(vertex + 1) - offsets.get(vertex) : 0;
+    }
+
+    @Override
+    public Set<L> verticesView() {
+	checkOpen();
+	return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sourcesView(L target) {
+	checkOpen();
+	int id = id(target);
+	if (id < 0 || id >= baseVertexCount && inDelta.get(id) == null) {
+	    return Collections.emptyMap();
+	}
+	if (inDelta.get(id) != null) {
+	    return Collections.unmodifiableMap(sources(target));
+	}
+	return new SliceView(inOffsets, inEdges, id);
+    }
+
+    @Override
+    public Map<L, Integer> targetsView(L source) {
+	checkOpen();
+	int id = id(source);
+	if (id < 0 || id >= baseVertexCount && outDelta.get(id) == null) {
+	    return Collections.emptyMap();
+	}
+	if (outDelta.get(id) != null) {
+	    return Collections.unmodifiableMap(targets(source));
+	}
+	return new SliceView(outOffsets, outEdges, id);
+    }
+
+    @Override
+    public int weight(L source, L target) {
+	checkOpen();
+	int sourceId = id(source);
+	int targetId = id(target);
+	if (sourceId < 0 || targetId < 0) {
+	    return 0;
+	}
+	return weight(sourceId, targetId);
+    }
+
+    /**
+     * Returns the weight of the edge between two ids, with the delta applied.
+     */
+    private int weight(int source, int target) {
+	DeltaRow row = outDelta.get(source);
+	if (row != null) {
+	    int weight = row.get(target);
+	    if (weight >= 0) {
+		return weight;
+	    }
+	}
+	return baseWeight(source, target);
+    }
+
+    /**
+     * Returns the weight of the edge between two ids in the base, or zero if
+     * the base has no such edge.
+     */
+    private int baseWeight(int source, int target) {
+	int index = indexOf(outOffsets, outEdges, source, target);
+	return index < 0 ? 0 : outEdges.get(2 * index + 1);
+    }
+
+    /**
+     * Returns the index of an edge in the base.
+     *
+     * @param offsets,   offsets of the slices of edges
+     * @param edges,     pairs of neighbour id and weight
+     * @param vertex,    an id
+     * @param neighbour, an id
+     * @return i such that edges[2i] is neighbour within the slice of vertex, or
+     *         -1 if there is none
+     */
+    private int indexOf(IntBuffer offsets, IntBuffer edges, int vertex, int neighbour) {
+	if (vertex >= baseVertexCount) {
+	    return -1;
+	}
+	int low = offsets.get(vertex);
+	int high = offsets.get(vertex + 1) - 1;
+	while (low <= high) {
+	    int middle = (low + high) >>> 1;
+	    int id = edges.get(2 * middle);
+	    if (id < neighbour) {
+		low = middle + 1;
+	    } else if (id > neighbour) {
+		high = middle - 1;
+	    } else {
+		return middle;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * Sets the override of the edge between two ids, or drops it if weight is
+     * the weight of the edge in the base.
+     */
+    private void override(int source, int target, int weight) {
+	if (weight == baseWeight(source, target)) {
+	    if (removeOverride(outDelta, source, target)) {
+		deltaSize--;
+	    }
+	    removeOverride(inDelta, target, source);
+	} else {
+	    if (rowOf(outDelta, source).put(target, weight)) {
+		deltaSize++;
+	    }
+	    rowOf(inDelta, target).put(source, weight);
+	}
+    }
+
+    // Returns the row of delta for vertex, adding an empty one if it has none
+    private static DeltaRow rowOf(List<DeltaRow> delta, int vertex) {
+	DeltaRow row = delta.get(vertex);
+	if (row == null) {
+	    row = new DeltaRow();
+	    delta.set(vertex, row);
+	}
+	return row;
+    }
+
+    // Removes an override from the row of delta for vertex, dropping the row if it
+    // becomes empty; returns whether there was an override
+    private static boolean removeOverride(List<DeltaRow> delta, int vertex, int neighbour) {
+	DeltaRow row = delta.get(vertex);
+	if (row == null || !row.remove(neighbour)) {
+	    return false;
+	}
+	if (row.size == 0) {
+	    delta.set(vertex, null);
+	}
+	return true;
+    }
+
+    /**
+     * Returns the id of a vertex, or -1 if it is not in this graph.
+     */
+    private int id(Object vertex) {
+	return ids.getInt(vertex) - 1;
+    }
+
+    /**
+     * Returns the id of vertex, adding it if it is new.
+     */
+    private int idOf(L vertex) {
+	int id = id(vertex);
+	return id >= 0 ? id : addVertex(vertex);
+    }
+
+    /**
+     * Adds a new vertex with no edges and returns its id.
+     */
+    private int addVertex(L vertex) {
+	int id = labels.size();
+	labels.add(vertex);
+	outDelta.add(null);
+	inDelta.add(null);
+	ids.putInt(vertex, id + 1);
+	return id;
+    }
+
+    /**
+     * Receives the edges of a vertex as neighbour ids and positive weights.
+     */
+    private interface EdgeConsumer {
+	void accept(int neighbour, int weight);
+    }
+
+    /**
+     * The rows of an adjacency table by vertex id.
+     */
+    private interface Rows {
+	void forEachEdge(int vertex, EdgeConsumer consumer);
+    }
+
+    /**
+     * Calls consumer on every edge of a vertex, with the delta applied.
+     *
+     * @param offsets,  offsets of the slices of base edges
+     * @param edges,    pairs of neighbour id and weight of the base edges
+     * @param delta,    the overrides for the same direction as the base edges
+     * @param vertex,   a live id
+     * @param consumer, called once for every edge of vertex
+     */
+    private void forEachEdge(IntBuffer offsets, IntBuffer edges, List<DeltaRow> delta, int vertex,
+	    EdgeConsumer consumer) {
+	DeltaRow row = delta.get(vertex);
+	int i = vertex < baseVertexCount ? offsets.get(vertex) : 0;
+	int end = vertex < baseVertexCount ? offsets.get(vertex + 1) : 0;
+	int j = 0;
+	int overrides = row == null ? 0 : row.size;
+	// Merge the base slice with the overrides; both are sorted by neighbour id
+	while (i < end || j < overrides) {
+	    int base = i < end ? edges.get(2 * i) : Integer.MAX_VALUE;
+	    int changed = j < overrides ? row.neighbours[j] : Integer.MAX_VALUE;
+	    if (base < changed) {
+		consumer.accept(base, edges.get(2 * i + 1));
+		i++;
+	    } else {
+		if (row.weights[j] > 0) {
+		    consumer.accept(changed, row.weights[j]);
+		}
+		if (base == changed) {
+		    i++;
+		}
+		j++;
+	    }
+	}
+    }
+
+    /**
+     * The overrides of the edges of one vertex in one direction.
+     */
+    private static class DeltaRow {
+	private int[] neighbours = new int[2];
+	private int[] weights = new int[2];
+	private int size = 0;
+
+	// Abstraction function:
+	//   AF(neighbours, weights, size) = the override weights[i] of the edge
+	//     with neighbours[i], for 0 <= i < size
+
+	// Representation invariant:
+	//   neighbours and weights have the same length, at least size
+	//   neighbours[0..size) is strictly increasing, and weights[0..size) is
+	//     nonnegative
+
+	// Check the rep invariant, unguarded: MappedGraph.checkRep calls it
+	void checkRep() {
+	    assert neighbours.length == weights.length && size <= neighbours.length;
+	    for (int i = 0; i < size; i++) {
+		assert i == 0 || neighbours[i - 1] < neighbours[i];
+		assert weights[i] >= 0;
+	    }
+	}
+
+	// Returns the override for neighbour, or -1 if there is none
+	int get(int neighbour) {
+	    int index = Arrays.binarySearch(neighbours, 0, size, neighbour);
+	    return index < 0 ? -1 : weights[index];
+	}
+
+	// Sets the override for neighbour; returns whether it is new
+	boolean put(int neighbour, int weight) {
+	    int index = Arrays.binarySearch(neighbours, 0, size, neighbour);
+	    if (index >= 0) {
+		weights[index] = weight;
+		return false;
+	    }
+	    index = -index - 1;
+	    if (size == neighbours.length) {
+		neighbours = Arrays.copyOf(neighbours, size * 2);
+		weights = Arrays.copyOf(weights, size * 2);
+	    }
+	    System.arraycopy(neighbours, index, neighbours, index + 1, size - index);
+	    System.arraycopy(weights, index, weights, index + 1, size - index);
+	    neighbours[index] = neighbour;
+	    weights[index] = weight;
+	    size++;
+	    return true;
+	}
+
+	// Removes the override for neighbour; returns whether there was one
+	boolean remove(int neighbour) {
+	    int index = Arrays.binarySearch(neighbours, 0, size, neighbour);
+	    if (index < 0) {
+		return false;
+	    }
+	    System.arraycopy(neighbours, index + 1, neighbours, index, size - index - 1);
+	    System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+	    size--;
+	    return true;
+	}
+    }
+
+    /**
+     * Writes a new base to a new file, maps it, and retires the old file. The
+     * delta, labels and ids are not changed.
+     *
+     * @param vertexCount, the number of vertices of the new base
+     * @param rows,        the edges from every vertex of the new base
+     * @throws UncheckedIOException if the file cannot be written
+     * @throws IllegalStateException if the graph would have more than
+     *                               MAXIMUM_EDGES edges
+     */
+    private void writeBase(int vertexCount, Rows rows) {
+	// Count the degrees first, so the file can be laid out in one pass
+	int[] outDegrees = new int[vertexCount];
+	int[] inDegrees = new int[vertexCount];
+	long edgeCount = 0;
+	int maximumDegree = 0;
+	for (int v = 0; v < vertexCount; v++) {
+	    int source = v;
+	    rows.forEachEdge(source, (target, weight) -> {
+		outDegrees[source]++;
+		inDegrees[target]++;
+	    });
+	    edgeCount += outDegrees[source];
+	    maximumDegree = Math.max(maximumDegree, outDegrees[source]);
+	}
+	if (edgeCount > MAXIMUM_EDGES) {
+	    throw new IllegalStateException("MappedGraph cannot hold " + edgeCount + " edges");
+	}
+
+	File newFile;
+	IntBuffer newOutOffsets;
+	IntBuffer newOutEdges;
+	IntBuffer newInOffsets;
+	IntBuffer newInEdges;
+	try {
+	    newFile = File.createTempFile("graph", ".edges", directory);
+	} catch (IOException exp) {
+	    throw new UncheckedIOException(exp);
+	}
+	try (FileChannel channel = FileChannel.open(newFile.toPath(), StandardOpenOption.READ,
+		StandardOpenOption.WRITE)) {
+	    long offsetBytes = 4L * (vertexCount + 1);
+	    long edgeBytes = 8L * edgeCount;
+	    newOutOffsets = map(channel, 0, offsetBytes);
+	    newOutEdges = map(channel, offsetBytes, edgeBytes);
+	    newInOffsets = map(channel, offsetBytes + edgeBytes, offsetBytes);
+	    newInEdges = map(channel, 2 * offsetBytes + edgeBytes, edgeBytes);
+	} catch (IOException exp) {
+	    newFile.delete();
+	    throw new UncheckedIOException(exp);
+	}
+
+	newOutOffsets.put(0, 0);
+	newInOffsets.put(0, 0);
+	for (int v = 0; v < vertexCount; v++) {
+	    newOutOffsets.put(v + 1, newOutOffsets.get(v) + outDegrees[v]);
+	    newInOffsets.put(v + 1, newInOffsets.get(v) + inDegrees[v]);
+	}
+
+	// Write every row sorted by target id; visiting sources in increasing order
+	// keeps every in slice sorted by source id
+	int[] next = inDegrees;
+	for (int v = 0; v < vertexCount; v++) {
+	    next[v] = newInOffsets.get(v);
+	}
+	RowBuffer row = new RowBuffer(maximumDegree);
+	for (int source = 0; source < vertexCount; source++) {
+	    row.size = 0;
+	    rows.forEachEdge(source, row);
+	    Arrays.sort(row.packed, 0, row.size);
+	    int position = newOutOffsets.get(source);
+	    for (int i = 0; i < row.size; i++) {
+		int target = (int) (row.packed[i] >>> 32);
+		int weight = (int) row.packed[i];
+		newOutEdges.put(2 * position, target);
+		newOutEdges.put(2 * position + 1, weight);
+		position++;
+		int inPosition = next[target]++;
+		newInEdges.put(2 * inPosition, source);
+		newInEdges.put(2 * inPosition + 1, weight);
+	    }
+	}
+
+	baseVertexCount = vertexCount;
+	outOffsets = newOutOffsets;
+	outEdges = newOutEdges;
+	inOffsets = newInOffsets;
+	inEdges = newInEdges;
+	generations.replace(newFile);
+    }
+
+    /**
+     * The files of a graph that are not deleted yet: the one holding the
+     * current base, and older ones that the system refused to delete while
+     * they were still mapped. Running it deletes them all. It is shared with
+     * the cleaner and the shutdown hook, so it must not refer to the graph,
+     * and its methods are synchronized because they run it on their own
+     * threads.
+     */
+    private static class Generations implements Runnable {
+	private final List<File> retired = new ArrayList<>();
+	private File current;
+
+	// Makes next the current file, and deletes the older ones where possible
+	synchronized void replace(File next) {
+	    if (current != null) {
+		retired.add(current);
+	    }
+	    current = next;
+	    retired.removeIf(File::delete);
+	}
+
+	// Deletes every file where possible, keeping the others
+	synchronized void deleteAll() {
+	    if (current != null) {
+		retired.add(current);
+		current = null;
+	    }
+	    retired.removeIf(File::delete);
+	}
+
+	@Override
+	public synchronized void run() {
+	    OPEN.remove(this);
+	    deleteAll();
+	    for (File file : retired) {
+		// still mapped on a system that cannot delete mapped files
+		file.deleteOnExit();
+	    }
+	    retired.clear();
+	}
+    }
+
+    // Maps a region of channel as ints in native byte order
+    private static IntBuffer map(FileChannel channel, long position, long size) throws IOException {
+	return channel.map(FileChannel.MapMode.READ_WRITE, position, size).order(ByteOrder.nativeOrder())
+		.asIntBuffer();
+    }
+
+    /**
+     * Collects one row of edges, packing each neighbour id and positive weight
+     * so that sorting orders by id.
+     */
+    private static class RowBuffer implements EdgeConsumer {
+	private final long[] packed;
+	private int size = 0;
+
+	RowBuffer(int capacity) {
+	    packed = new long[capacity];
+	}
+
+	@Override
+	public void accept(int neighbour, int weight) {
+	    packed[size++] = ((long) neighbour << 32) | weight;
+	}
+    }
+
+    /**
+     * An unmodifiable map from neighbour label to edge weight over one slice of
+     * the base, for a vertex without overrides.
+     */
+    private class SliceView extends AbstractMap<L, Integer> {
+	private final IntBuffer edges;
+	private final IntBuffer offsets;
+	private final int vertex;
+	private final int from;
+	private final int to;
+
+	SliceView(IntBuffer offsets, IntBuffer edges, int vertex) {
+	    this.offsets = offsets;
+	    this.edges = edges;
+	    this.vertex = vertex;
+	    this.from = offsets.get(vertex);
+	    this.to = offsets.get(vertex + 1);
+	}
+
+	@Override
+	public int size() {
+	    return to - from;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+	    return get(key) != null;
+	}
+
+	@Override
+	public Integer get(Object key) {
+	    int neighbour = id(key);
+	    if (neighbour < 0) {
+		return null;
+	    }
+	    int index = indexOf(offsets, edges, vertex, neighbour);
+	    return index < 0 ? null : edges.get(2 * index + 1);
+	}
+
+	@Override
+	public Set<Map.Entry<L, Integer>> entrySet() {
+	    return new AbstractSet<Map.Entry<L, Integer>>() {
+		@Override
+		public int size() {
+		    return to - from;
+		}
+
+		@Override
+		public Iterator<Map.Entry<L, Integer>> iterator() {
+		    return new Iterator<Map.Entry<L, Integer>>() {
+			private int next = from;
+
+			@Override
+			public boolean hasNext() {
+			    return next < to;
+			}
+
+			@Override
+			public Map.Entry<L, Integer> next() {
+			    if (next >= to) {
+				throw new NoSuchElementException();
+			    }
+			    int i = next++;
+			    return new AbstractMap.SimpleImmutableEntry<>(labels.get(edges.get(2 * i)),
+				    edges.get(2 * i + 1));
+			}
+		    };
+		}
+	    };
+	}
+    }
+
+    /**
+     * Returns a string representation of the graph, one edge per line
+     * followed by the isolated vertices, in the same format as the other
+     * implementations.
+     *
+     * @return a string representation of the graph
+     */
+    @Override
+    public String toString() {
+	StringBuilder result = new StringBuilder();
+	for (int v = 0; v < labels.size(); v++) {
+	    L label = labels.get(v);
+	    if (label == null) {
+		continue;
+	    }
+	    Map<L, Integer> targets = targets(label);
+	    if (targets.isEmpty() && sourcesView(label).isEmpty()) {
+		result.append(label).append("\n");
+	    }
+	    for (Map.Entry<L, Integer> entry : targets.entrySet()) {
+		result.append(String.format("%s-----(%d)----->%s", label, entry.getValue(), entry.getKey()));
+		result.append("\n");
+	    }
+	}
+	return result.toString().trim();
+    }
+
+}
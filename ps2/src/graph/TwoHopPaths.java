@@ -0,0 +1,241 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Finds the heaviest two-edge path between two vertices of a graph.
+ *
+ * <p>
+ * The middle vertices of the two-edge paths from u to w are the targets of u
+ * that are also sources of w, so every query intersects two rows of a
+ * CompactGraph, both sorted by vertex id. When the rows have similar lengths
+ * they are merged, in time linear in their total length. When one row is
+ * more than PROBE_RATIO times longer than the other, every id of the shorter
+ * row is looked up in the longer one instead, by a galloping search starting
+ * where the previous lookup ended, so the cost grows with the shorter row and
+ * only logarithmically with the longer one. A query involving a word like
+ * "the", with hundreds of thousands of neighbours, then costs about as much
+ * as its partner has neighbours.
+ *
+ * <p>
+ * A vertex may be excluded from the middles, for a graph with a vertex that
+ * may be passed through but never named, like the empty word of a poet's
+ * graph.
+ *
+ * <p>
+ * A TwoHopPaths is immutable, so it is thread-safe.
+ *
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public final class TwoHopPaths<L> {
+
+    private static final int PROBE_RATIO = 16;
+
+    private final CompactGraph<L> graph;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    private final int excluded;
+
+    // Abstraction function:
+    //   AF(graph, excluded) = the two-edge paths of graph whose middle vertex is
+    //     not the vertex with id excluded
+    //   the arrays are the adjacency arrays of graph, kept in fields to save a
+    //   call per query
+
+    // Representation invariant:
+    //   every array is the same array as the one of graph
+    //   -1 <= excluded < graph.vertexCount()
+
+    // Safety from rep exposure:
+    //   All the fields are private and final, graph is immutable, and the arrays
+    //   are only read.
+
+    /**
+     * Make a path finder for a graph. Later changes to graph are not reflected
+     * in the paths found.
+     *
+     * @param graph, the graph to search; a CompactGraph is used as it is, any
+     *               other graph is frozen into one
+     */
+    public TwoHopPaths(Graph<L> graph) {
+	this(graph, null);
+    }
+
+    /**
+     * Make a path finder for a graph that never finds paths through one vertex.
+     * Later changes to graph are not reflected in the paths found.
+     *
+     * @param graph,          the graph to search; a CompactGraph is used as it
+     *                        is, any other graph is frozen into one
+     * @param excludedMiddle, a vertex that is never the middle of a path found,
+     *                        or null to exclude none
+     */
+    public TwoHopPaths(Graph<L> graph, L excludedMiddle) {
+	this.graph = graph instanceof CompactGraph<L> compact ? compact : CompactGraph.freeze(graph);
+	this.outOffsets = this.graph.outOffsets();
+	this.outTargets = this.graph.outTargets();
+	this.outWeights = this.graph.outWeights();
+	this.inOffsets = this.graph.inOffsets();
+	this.inSources = this.graph.inSources();
+	this.inWeights = this.graph.inWeights();
+	this.excluded = excludedMiddle == null ? -1 : this.graph.id(excludedMiddle);
+	checkRep();
+    }
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	assert outOffsets == graph.outOffsets() && outTargets == graph.outTargets()
+		&& outWeights == graph.outWeights();
+	assert inOffsets == graph.inOffsets() && inSources == graph.inSources() && inWeights == graph.inWeights();
+	assert -1 <= excluded && excluded < graph.vertexCount();
+	Validation.record(start);
+    }
+
+    /**
+     * Find the middle vertex of the heaviest two-edge path between two vertices.
+     *
+     * @param source, a label
+     * @param target, a label
+     * @return a vertex m, not the excluded middle, such that source -> m ->
+     *         target is a two-edge path with the maximum total weight of all
+     *         such paths (among several, the one with the smallest id in the
+     *         frozen graph), or null if there is no such path
+     */
+    public L bestMiddle(L source, L target) {
+	int middle = bestMiddle(graph.id(source), graph.id(target));
+	return middle < 0 ? null : graph.label(middle);
+    }
+
+    /**
+     * Find the middle vertex of the heaviest two-edge path between two vertex
+     * ids.
+     *
+     * @param source, a vertex id, or -1 for a vertex not in the graph
+     * @param target, a vertex id, or -1 for a vertex not in the graph
+     * @return the id of the middle vertex, as in bestMiddle(L, L), or -1 if
+     *         there is no two-edge path from source to target
+     */
+    int bestMiddle(int source, int target) {
+	if (source < 0 || target < 0) {
+	    return -1;
+	}
+	int outFrom = outOffsets[source];
+	int outTo = outOffsets[source + 1];
+	int inFrom = inOffsets[target];
+	int inTo = inOffsets[target + 1];
+	long outDegree = outTo - outFrom;
+	long inDegree = inTo - inFrom;
+	if (outDegree == 0 || inDegree == 0) {
+	    return -1;
+	}
+	if (outDegree * PROBE_RATIO < inDegree) {
+	    return probe(outTargets, outWeights, outFrom, outTo, inSources, inWeights, inFrom, inTo, excluded);
+	}
+	if (inDegree * PROBE_RATIO < outDegree) {
+	    return probe(inSources, inWeights, inFrom, inTo, outTargets, outWeights, outFrom, outTo, excluded);
+	}
+	return merge(outTargets, outWeights, outFrom, outTo, inSources, inWeights, inFrom, inTo, excluded);
+    }
+
+    /**
+     * Intersects two rows by merging them.
+     *
+     * @param left,         ids of one row, increasing in [leftFrom, leftTo)
+     * @param leftWeights,  edge weights parallel to left
+     * @param right,        ids of the other row, increasing in [rightFrom,
+     *                      rightTo)
+     * @param rightWeights, edge weights parallel to right
+     * @param excluded,     an id that is never returned, or -1
+     * @return the id in both rows other than excluded with the greatest sum of its two weights, the
+     *         smallest such id if there are several, or -1 if no id is in both
+     */
+    private static int merge(int[] left, int[] leftWeights, int leftFrom, int leftTo, int[] right,
+	    int[] rightWeights, int rightFrom, int rightTo, int excluded) {
+	int best = -1;
+	long bestWeight = 0;
+	int i = leftFrom;
+	int j = rightFrom;
+	while (i < leftTo && j < rightTo) {
+	    if (left[i] < right[j]) {
+		i++;
+	    } else if (left[i] > right[j]) {
+		j++;
+	    } else {
+		long weight = (long) leftWeights[i] + rightWeights[j];
+		if (weight > bestWeight && left[i] != excluded) {
+		    bestWeight = weight;
+		    best = left[i];
+		}
+		i++;
+		j++;
+	    }
+	}
+	return best;
+    }
+
+    /**
+     * Intersects a short row with a long one by looking up every id of the
+     * short row in the long one.
+     *
+     * @param small,        ids of the short row, increasing in [smallFrom,
+     *                      smallTo)
+     * @param smallWeights, edge weights parallel to small
+     * @param large,        ids of the long row, increasing in [largeFrom,
+     *                      largeTo)
+     * @param largeWeights, edge weights parallel to large
+     * @param excluded,     an id that is never returned, or -1
+     * @return the id in both rows other than excluded with the greatest sum of its two weights, the
+     *         smallest such id if there are several, or -1 if no id is in both
+     */
+    private static int probe(int[] small, int[] smallWeights, int smallFrom, int smallTo, int[] large,
+	    int[] largeWeights, int largeFrom, int largeTo, int excluded) {
+	int best = -1;
+	long bestWeight = 0;
+	int position = largeFrom;
+	for (int i = smallFrom; i < smallTo && position < largeTo; i++) {
+	    position = gallop(large, position, largeTo, small[i]);
+	    if (position < largeTo && large[position] == small[i]) {
+		long weight = (long) smallWeights[i] + largeWeights[position];
+		if (weight > bestWeight && small[i] != excluded) {
+		    bestWeight = weight;
+		    best = small[i];
+		}
+		position++;
+	    }
+	}
+	return best;
+    }
+
+    /**
+     * Finds the first position of a sorted slice holding at least key, probing
+     * 1, 2, 4, ... places ahead before searching the last gap found.
+     *
+     * @param ids,  increasing in [from, to)
+     * @param from, start of the slice, inclusive
+     * @param to,   end of the slice, exclusive
+     * @param key,  an id
+     * @return the least i in [from, to) with ids[i] >= key, or to if there is
+     *         none
+     */
+    static int gallop(int[] ids, int from, int to, int key) {
+	int bound = 1;
+	while (from + bound < to && ids[from + bound] < key) {
+	    bound <<= 1;
+	}
+	int index = Arrays.binarySearch(ids, from + (bound >> 1), Math.min(from + bound, to), key);
+	return index < 0 ? -index - 1 : index;
+    }
+
+}
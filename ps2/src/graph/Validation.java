@@ -0,0 +1,143 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How much of their representation invariant the graph implementations check.
+ *
+ * <p>
+ * Every checkRep of the graph ADTs first asks {@link #due()} whether to run,
+ * so with OFF the checking loops are skipped entirely rather than running
+ * with their assertions disabled. The level is global. It starts from the
+ * system property {@code graph.validation} (OFF, SAMPLED or FULL) if that is
+ * set to one of them, and otherwise is FULL when assertions are enabled for
+ * this class and OFF when they are not. The time spent checking is counted so that its cost
+ * can be measured.
+ */
+public enum Validation {
+
+    /** Never check the rep. */
+    OFF,
+
+    /** Check the rep on about one call in {@value #SAMPLE_PERIOD}. */
+    SAMPLED,
+
+    /** Check the rep on every call. */
+    FULL;
+
+    /** With SAMPLED, the average number of calls per check, a power of two. */
+    public static final int SAMPLE_PERIOD = 64;
+
+    private static volatile Validation level = initialLevel();
+    private static final LongAdder checks = new LongAdder();
+    private static final LongAdder nanos = new LongAdder();
+
+    /**
+     * Get the current validation level.
+     *
+     * @return the level
+     */
+    public static Validation level() {
+	return level;
+    }
+
+    /**
+     * Change the validation level, for every graph in this JVM.
+     *
+     * @param newLevel the level to use from now on
+     */
+    public static void setLevel(Validation newLevel) {
+	level = newLevel;
+    }
+
+    /**
+     * Get the number of rep checks run since the counters were last reset.
+     *
+     * @return the number of checks
+     */
+    public static long checks() {
+	return checks.sum();
+    }
+
+    /**
+     * Get the time spent in rep checks since the counters were last reset.
+     *
+     * @return the time in nanoseconds
+     */
+    public static long nanos() {
+	return nanos.sum();
+    }
+
+    /**
+     * Reset the number of checks and the time spent in them to zero.
+     */
+    public static void resetCounters() {
+	checks.reset();
+	nanos.reset();
+    }
+
+    /**
+     * Decides whether a checkRep call should run its checks. A checkRep
+     * written against this class looks like:
+     *
+     * <pre>
+     * if (!Validation.due()) {
+     *     return;
+     * }
+     * long start = System.nanoTime();
+     * // ... the checks ...
+     * Validation.record(start);
+     * </pre>
+     *
+     * @return true if the caller should check its rep and then call
+     *         {@link #record(long)} with the start time of the check
+     */
+    public static boolean due() {
+	Validation current = level;
+	return current == FULL
+		|| current == SAMPLED && (ThreadLocalRandom.current().nextInt() & (SAMPLE_PERIOD - 1)) == 0;
+    }
+
+    /**
+     * Counts one finished check.
+     *
+     * @param start the value of System.nanoTime() when the check started
+     */
+    public static void record(long start) {
+	nanos.add(System.nanoTime() - start);
+	checks.increment();
+    }
+
+    private static Validation initialLevel() {
+	return parseLevel(System.getProperty("graph.validation"), Validation.class.desiredAssertionStatus());
+    }
+
+    /**
+     * Finds the level that a value of the system property graph.validation
+     * names. This runs while the class is initialized, so a bad value must not
+     * throw: every graph asks this class whether to check its rep, and would
+     * fail with ExceptionInInitializerError.
+     *
+     * @param property,          the value of the property, or null if it is not
+     *                           set
+     * @param assertionsEnabled, whether assertions are enabled for this class
+     * @return the level named by property, ignoring case and surrounding
+     *         whitespace; if property is null or names no level, FULL when
+     *         assertionsEnabled and OFF otherwise
+     */
+    static Validation parseLevel(String property, boolean assertionsEnabled) {
+	if (property != null) {
+	    for (Validation candidate : values()) {
+		if (candidate.name().equalsIgnoreCase(property.trim())) {
+		    return candidate;
+		}
+	    }
+	}
+	return assertionsEnabled ? FULL : OFF;
+    }
+
+}
@@ -0,0 +1,118 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import graph.GraphBuilder;
+import graph.Validation;
+
+/**
+ * A mutable table counting how many times one word is followed by another.
+ *
+ * <p>
+ * Tables are filled independently, for example one per corpus file on
+ * different threads, then merged and copied into the builder of an affinity
+ * graph.
+ */
+class AdjacencyCounts {
+
+    private final Map<String, Map<String, Integer>> counts = new HashMap<>();
+    private int size = 0;
+
+    // Abstraction function:
+    //   AF(counts) = the multiset of word pairs in which the pair (w1, w2) occurs
+    //                counts[w1][w2] times
+
+    // Representation invariant:
+    //   every count is positive, and no inner map is empty
+    //   size is the total number of entries in the inner maps
+
+    // Safety from rep exposure:
+    //   All the fields are private, and no map of the rep is returned.
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	int entries = 0;
+	for (Map<String, Integer> row : counts.values()) {
+	    assert !row.isEmpty();
+	    for (int count : row.values()) {
+		assert count > 0;
+	    }
+	    entries += row.size();
+	}
+	assert entries == size;
+	Validation.record(start);
+    }
+
+    /**
+     * Counts one more occurrence of source followed by target.
+     *
+     * @param source, a word
+     * @param target, the word following source
+     */
+    void increment(String source, String target) {
+	add(source, target, 1);
+    }
+
+    /**
+     * Adds count occurrences of source followed by target.
+     *
+     * @param source, a word
+     * @param target, the word following source
+     * @param count,  a positive number of occurrences
+     */
+    private void add(String source, String target, int count) {
+	Map<String, Integer> row = counts.computeIfAbsent(source, word -> new HashMap<>());
+	if (row.merge(target, count, Integer::sum) == count) {
+	    size++;
+	}
+    }
+
+    /**
+     * Adds every count of other to this table, and returns the merged table; the
+     * smaller table is merged into the larger one so either table may be
+     * returned, and the other one must no longer be used.
+     *
+     * @param other, another table
+     * @return a table holding the sum of the counts of this and other
+     */
+    AdjacencyCounts merge(AdjacencyCounts other) {
+	if (other.size > this.size) {
+	    return other.merge(this);
+	}
+	for (Map.Entry<String, Map<String, Integer>> row : other.counts.entrySet()) {
+	    for (Map.Entry<String, Integer> entry : row.getValue().entrySet()) {
+		add(row.getKey(), entry.getKey(), entry.getValue());
+	    }
+	}
+	checkRep();
+	return this;
+    }
+
+    /**
+     * Adds every counted pair to builder as an edge from the first to the
+     * second word, adding the count to its weight. The words are interned in
+     * dictionary first, so the graph holds only its canonical Strings even when
+     * the table was filled from readers with dictionaries of their own.
+     *
+     * @param builder,    the builder of an affinity graph
+     * @param dictionary, the dictionary of the words of the graph
+     */
+    void addTo(GraphBuilder<String> builder, WordDictionary dictionary) {
+	for (Map.Entry<String, Map<String, Integer>> row : counts.entrySet()) {
+	    String source = dictionary.intern(row.getKey());
+	    for (Map.Entry<String, Integer> entry : row.getValue().entrySet()) {
+		builder.increment(source, dictionary.intern(entry.getKey()), entry.getValue());
+	    }
+	}
+    }
+
+}
@@ -0,0 +1,302 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the words of a corpus file one at a time.
+ *
+ * <p>
+ * Words are delimited by whitespace or the ends of the file, exactly as
+ * {@link java.util.Scanner} delimits tokens. Every word is returned in the
+ * normalized form used by GraphPoet: with all characters that are not letters
+ * or digits removed, and in lower case.
+ *
+ * <p>
+ * The file is decoded in the platform default charset, like Scanner does, from
+ * read-only memory-mapped windows of the file, so memory use does not grow with
+ * the size of the corpus. Tokenizing and normalizing are done by hand instead of
+ * with regular expressions.
+ */
+class CorpusReader implements Closeable {
+
+    private static final long DEFAULT_WINDOW_SIZE = 64L << 20; // bytes mapped at a time
+    private static final int CHAR_BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private final CharsetDecoder decoder;
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final StringBuilder word = new StringBuilder();
+    private final WordDictionary dictionary;
+
+    private ByteBuffer window = null;
+    private long windowStart = 0;
+    private boolean flushed = false;
+
+    // Abstraction function:
+    //   AF(channel, window, windowStart, chars, ...) = the sequence of words of the corpus
+    //     that have not been returned yet: those decoded into chars from position to limit,
+    //     followed by those in the bytes of the file from windowStart + window.position().
+
+    // Representation invariant:
+    //   0 <= windowStart <= size
+    //   if window is not null, windowStart + window.limit() <= size
+    //   chars is always ready to be read (flipped)
+    //   flushed only once every byte of the file has been decoded
+
+    // Safety from rep exposure:
+    //   All the fields are private, and words are returned as the immutable
+    //   Strings of the dictionary, which the caller may share on purpose.
+
+    /**
+     * Open a corpus for reading.
+     *
+     * @param corpus text file to read words from
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    CorpusReader(File corpus) throws IOException {
+	this(corpus, new WordDictionary());
+    }
+
+    /**
+     * Open a corpus for reading, interning its words in dictionary.
+     *
+     * @param corpus     text file to read words from
+     * @param dictionary dictionary returning the canonical String of every word
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    CorpusReader(File corpus, WordDictionary dictionary) throws IOException {
+	this(corpus, DEFAULT_WINDOW_SIZE, dictionary);
+    }
+
+    /**
+     * Open a corpus for reading, mapping at most windowSize bytes at a time.
+     *
+     * @param corpus     text file to read words from
+     * @param windowSize number of bytes mapped at a time, must be at least the
+     *                   longest encoding of one character
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    CorpusReader(File corpus, long windowSize) throws IOException {
+	this(corpus, windowSize, new WordDictionary());
+    }
+
+    /**
+     * Open a corpus for reading, mapping at most windowSize bytes at a time and
+     * interning its words in dictionary.
+     *
+     * @param corpus     text file to read words from
+     * @param windowSize number of bytes mapped at a time, must be at least the
+     *                   longest encoding of one character
+     * @param dictionary dictionary returning the canonical String of every word
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    CorpusReader(File corpus, long windowSize, WordDictionary dictionary) throws IOException {
+	this.dictionary = dictionary;
+	this.channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ);
+	this.size = channel.size();
+	this.windowSize = windowSize;
+	this.decoder = Charset.defaultCharset().newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+		.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	chars.flip();
+    }
+
+    /**
+     * Returns the next word of the corpus, normalized.
+     *
+     * @return the next word with its non-alphanumeric characters removed, in lower
+     *         case (possibly empty if the word had no letters or digits), as the
+     *         canonical String of the dictionary of this reader, or null if there
+     *         are no more words
+     * @throws IOException if the corpus cannot be read
+     */
+    String nextWord() throws IOException {
+	word.setLength(0);
+	boolean inWord = false;
+	boolean ascii = true;
+
+	while (true) {
+	    if (!chars.hasRemaining() && !fill()) {
+		break;
+	    }
+
+	    char c = chars.get();
+	    int codePoint = c;
+	    if (Character.isHighSurrogate(c)) {
+		if (!chars.hasRemaining() && !flushed) {
+		    // the low surrogate has not been decoded yet, keep c for the next fill
+		    chars.position(chars.position() - 1);
+		    fill();
+		    continue;
+		}
+		if (chars.hasRemaining() && Character.isLowSurrogate(chars.get(chars.position()))) {
+		    codePoint = Character.toCodePoint(c, chars.get());
+		}
+	    }
+
+	    if (Character.isWhitespace(codePoint)) {
+		if (inWord) {
+		    break;
+		}
+		continue;
+	    }
+
+	    inWord = true;
+	    if (isLetterOrNumber(codePoint)) {
+		word.appendCodePoint(codePoint);
+		ascii &= codePoint < 0x80;
+	    }
+	}
+
+	if (!inWord) {
+	    return null;
+	}
+	if (!ascii) {
+	    return dictionary.intern(word.toString().toLowerCase());
+	}
+	// a word already in the dictionary is found without making a new String
+	toLowerAscii(word);
+	return dictionary.intern(word);
+    }
+
+    /**
+     * Decodes more characters into chars, keeping any that have not been read.
+     *
+     * @return true if chars has characters left to read, false if the whole file
+     *         has been read
+     * @throws IOException if the corpus cannot be read
+     */
+    private boolean fill() throws IOException {
+	chars.compact();
+	int before = chars.position();
+
+	while (chars.position() == before && !flushed) {
+	    if (window == null) {
+		mapWindow(0);
+	    }
+	    boolean lastWindow = windowStart + window.limit() == size;
+	    CoderResult result = decoder.decode(window, chars, lastWindow);
+	    if (result.isOverflow()) {
+		break;
+	    }
+	    if (!lastWindow) {
+		// an incomplete character at the end of the window is decoded from the next one
+		mapWindow(windowStart + window.position());
+	    } else if (!decoder.flush(chars).isOverflow()) {
+		flushed = true;
+	    }
+	}
+
+	chars.flip();
+	return chars.hasRemaining();
+    }
+
+    /**
+     * Maps the window of the file starting at start.
+     *
+     * @param start offset in the file of the window, 0 <= start <= size
+     * @throws IOException if the corpus cannot be read
+     */
+    private void mapWindow(long start) throws IOException {
+	long length = Math.min(windowSize, size - start);
+	windowStart = start;
+	window = length == 0 ? ByteBuffer.allocate(0) : channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+	channel.close();
+    }
+
+    /**
+     * Removes any punctuation from the given word and convert it to lower-case.
+     *
+     * @param word, any word
+     * @return a word in lower-case letters and without punctuation.
+     */
+    static String normalize(CharSequence word) {
+	StringBuilder result = new StringBuilder(word.length());
+	normalize(word, 0, word.length(), result);
+	return result.toString();
+    }
+
+    /**
+     * Removes any punctuation from part of text and converts it to lower-case,
+     * into a buffer. Words of ASCII characters are normalized without
+     * allocating; other words go through String.toLowerCase.
+     *
+     * @param text,   any characters
+     * @param start,  index of the first character of the word, inclusive
+     * @param end,    index of the last character of the word, exclusive
+     * @param buffer, replaced by the word in lower-case letters and without
+     *                punctuation, as {@link #normalize(CharSequence)} would
+     *                return it
+     */
+    static void normalize(CharSequence text, int start, int end, StringBuilder buffer) {
+	buffer.setLength(0);
+	boolean ascii = true;
+	for (int i = start; i < end;) {
+	    int codePoint = Character.codePointAt(text, i);
+	    if (isLetterOrNumber(codePoint)) {
+		buffer.appendCodePoint(codePoint);
+		ascii &= codePoint < 0x80;
+	    }
+	    i += Character.charCount(codePoint);
+	}
+	if (ascii) {
+	    toLowerAscii(buffer);
+	} else {
+	    String lower = buffer.toString().toLowerCase();
+	    buffer.setLength(0);
+	    buffer.append(lower);
+	}
+    }
+
+    /**
+     * Checks whether codePoint is a letter (\p{L}) or a number (\p{N}).
+     *
+     * @param codePoint, a Unicode code point
+     * @return true if codePoint is in a Unicode letter or number category
+     */
+    private static boolean isLetterOrNumber(int codePoint) {
+	if (codePoint < 0x80) {
+	    return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z')
+		    || (codePoint >= '0' && codePoint <= '9');
+	}
+	if (Character.isLetter(codePoint)) {
+	    return true;
+	}
+	int type = Character.getType(codePoint);
+	return type == Character.DECIMAL_DIGIT_NUMBER || type == Character.LETTER_NUMBER
+		|| type == Character.OTHER_NUMBER;
+    }
+
+    /**
+     * Lowers the ASCII upper case letters of buffer in place.
+     *
+     * @param buffer, the characters of a word
+     */
+    private static void toLowerAscii(StringBuilder buffer) {
+	for (int i = 0; i < buffer.length(); i++) {
+	    char c = buffer.charAt(i);
+	    if (c >= 'A' && c <= 'Z') {
+		buffer.setCharAt(i, (char) (c + ('a' - 'A')));
+	    }
+	}
+    }
+
+}
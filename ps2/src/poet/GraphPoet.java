@@ -4,15 +4,32 @@
 package poet;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
-
-import graph.Graph;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import graph.BoundedPaths;
+import graph.CompactGraph;
+import graph.GraphBuilder;
+import graph.GraphSnapshot;
+import graph.TwoHopPaths;
+import graph.Validation;
 
 /**
  * A graph-based poetry generator.
@@ -47,7 +64,9 @@ import graph.Graph;
  * word between input words "w1" and "w2" will be some "b" such that w1 -> b ->
  * w2 is a two-edge-long path with maximum-weight weight among all the
  * two-edge-long paths from w1 to w2 in the affinity graph. If there are no such
- * paths, no bridge word is inserted. In the output poem, input words retain
+ * paths, no bridge word is inserted. A word of the corpus made only of
+ * punctuation, which is empty once normalized, is a vertex like any other but
+ * is never a bridge word. In the output poem, input words retain
  * their original case, while bridge words are lower case. The whitespace
  * between every word in the poem is a single space.
  * 
@@ -78,16 +97,61 @@ import graph.Graph;
  */
 public class GraphPoet {
 
-    private final Graph<String> graph = Graph.empty();
+    private static final int POEMS_PER_TASK = 32;
+    private static final int STREAM_BATCH = 8192;
+    private static final long LONGEST_BUDGET_NANOS = Long.MAX_VALUE / 4;
+    // the normalized form of a word made only of punctuation, never a bridge word
+    private static final String EMPTY_WORD = "";
+
+    /**
+     * How {@link GraphPoet#poem(String, int, PhraseRanking, Duration)} ranks the
+     * paths between two input words.
+     */
+    public enum PhraseRanking {
+
+	/** Prefer the path with the highest sum of edge weights. */
+	TOTAL_WEIGHT,
+
+	/** Prefer the path with the highest mean edge weight. */
+	AVERAGE_WEIGHT
+    }
+
+    private final CompactGraph<String> graph;
+    private final TwoHopPaths<String> paths;
+    private final WordDictionary dictionary;
+    private final Map<String, Map<String, String>> bridgeIndex;
+    private final RankedAdjacency rankedAdjacency;
+    private final BoundedPaths<String> phrases;
 
     // Abstraction function:
-    // TODO
+    //   AF(graph) = the poet whose word affinity graph is graph: a vertex for every
+    //     normalized word of the corpus that is followed or preceded by another,
+    //     and an edge from w1 to w2 weighted by how many times w1 is followed by w2.
+    // dictionary finds the vertex of a normalized input word without making a String.
+    // bridgeIndex, when not null, caches for a word w1 the best bridge word to
+    // every w2 reachable by a two-edge path; it adds nothing to the abstract value.
+    // paths finds the bridge words of graph, rankedAdjacency ranks the edges of
+    // graph by weight for bridgeWords, and phrases finds the bridge phrases of
+    // graph; they add nothing to the abstract value either.
 
     // Representation invariant:
-    // TODO
+    // every vertex of graph is the canonical String of its word in dictionary.
+    // paths and phrases search graph, and every row of bridgeIndex for w1 maps w2 to the
+    // bridge word paths finds.
 
     // Safety from rep exposure:
-    // TODO
+    //   All the fields are private and final, and no object of the rep is returned:
+    //   poem, poems and bridgeWords return new Strings and lists of the immutable
+    //   words of graph, and writeSnapshot only reads graph. The graph and dictionary
+    //   a poet keeps are made while it is created, and nothing else refers to them.
+
+    // Thread safety argument:
+    //   graph, paths and phrases are immutable. dictionary is only changed while
+    //   the poet is created, before it is published through its final fields, and
+    //   is only read after that. bridgeIndex is a concurrent map filled with
+    //   computeIfAbsent, and rankedAdjacency is thread-safe. Every other object
+    //   poem uses is local to one call, so any number of threads may call poem
+    //   and poems at once.
 
     /**
      * Create a new poet with the graph from corpus (as described above).
@@ -96,31 +160,222 @@ public class GraphPoet {
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
-	try (Scanner scanner = new Scanner(corpus);) {
-	    String previousWord = null;
-	    String currentWord = null;
-	    while (scanner.hasNext()) {
-		if (previousWord == null) {
+	this(corpus, false);
+    }
 
-		    previousWord = scanner.next();
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * optionally indexing bridge words.
+     * 
+     * <p>
+     * With the index, the first time a word w1 appears as the left word of a
+     * pair, the best bridge word from w1 to every word two edges away is
+     * computed and kept; later pairs starting with w1 are answered by a single
+     * lookup. Poems are the same with or without the index.
+     * 
+     * @param corpus           text file from which to derive the poet's
+     *                         affinity graph
+     * @param indexBridgeWords whether to cache bridge words per left word
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, boolean indexBridgeWords) throws IOException {
+	this(new WordDictionary(), corpus, indexBridgeWords);
+    }
 
-		} else {
+    /**
+     * Create a new poet with the graph from corpus, whose words are interned
+     * in dictionary.
+     * 
+     * @param dictionary,       an empty dictionary, kept by the poet
+     * @param corpus,           text file from which to derive the poet's
+     *                          affinity graph
+     * @param indexBridgeWords, whether to cache bridge words per left word
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    private GraphPoet(WordDictionary dictionary, File corpus, boolean indexBridgeWords) throws IOException {
+	this(dictionary, readCorpus(corpus, dictionary), indexBridgeWords);
+    }
 
-		    currentWord = scanner.next();
-		    // add consecutive words to the affinity graph.
-		    addEdgeToAffinityGraph(formatString(previousWord), formatString(currentWord));
+    /**
+     * Create a new poet with the graph from several corpora.
+     * 
+     * @param corpora text files from which to derive the poet's affinity graph
+     * @throws IOException if a corpus file cannot be found or read
+     * @see #GraphPoet(List, boolean)
+     */
+    public GraphPoet(List<File> corpora) throws IOException {
+	this(corpora, false);
+    }
 
-		    previousWord = currentWord;
+    /**
+     * Create a new poet with the graph from several corpora, optionally indexing
+     * bridge words (see {@link #GraphPoet(File, boolean)}).
+     * 
+     * <p>
+     * Every file is a separate text: the edge weights are the sum of the
+     * adjacency counts of all the files, and the last word of one file is not
+     * followed by the first word of the next. A directory in corpora stands for
+     * the files directly inside it. The files are read in parallel on the common
+     * fork-join pool.
+     * 
+     * @param corpora          text files or directories of text files from which
+     *                         to derive the poet's affinity graph
+     * @param indexBridgeWords whether to cache bridge words per left word
+     * @throws IOException if a corpus file cannot be found or read
+     */
+    public GraphPoet(List<File> corpora, boolean indexBridgeWords) throws IOException {
+	this(new WordDictionary(), corpora, indexBridgeWords);
+    }
+
+    /**
+     * Create a new poet with the graph from several corpora, whose words are
+     * interned in dictionary.
+     * 
+     * @param dictionary,       an empty dictionary, kept by the poet
+     * @param corpora,          text files or directories of text files from
+     *                          which to derive the poet's affinity graph
+     * @param indexBridgeWords, whether to cache bridge words per left word
+     * @throws IOException if a corpus file cannot be found or read
+     */
+    private GraphPoet(WordDictionary dictionary, List<File> corpora, boolean indexBridgeWords) throws IOException {
+	this(dictionary, readCorpora(corpora, dictionary), indexBridgeWords);
+    }
+
+    /**
+     * Reads the affinity graph of one corpus.
+     * 
+     * @param corpus,     a text file
+     * @param dictionary, the dictionary to intern the words of corpus in
+     * @return the affinity graph of corpus, whose vertices are the canonical
+     *         Strings of dictionary for the normalized words
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    private static CompactGraph<String> readCorpus(File corpus, WordDictionary dictionary) throws IOException {
+	GraphBuilder<String> builder = new GraphBuilder<>();
+	try (CorpusReader reader = new CorpusReader(corpus, dictionary)) {
+	    // the reader returns words already formatted and interned
+	    String previousWord = reader.nextWord();
+	    String currentWord;
+	    while (previousWord != null && (currentWord = reader.nextWord()) != null) {
+		// add consecutive words to the affinity graph, creating the edge with
+		// weight one or adding one to its weight, without boxing the weight.
+		builder.increment(previousWord, currentWord, 1);
+
+		previousWord = currentWord;
+	    }
+	}
+	return builder.buildCompactGraph();
+    }
+
+    /**
+     * Reads the affinity graph of several corpora, in parallel.
+     * 
+     * @param corpora,    text files or directories of text files
+     * @param dictionary, the dictionary to intern the words of corpora in
+     * @return the affinity graph of corpora (as described in
+     *         {@link #GraphPoet(List, boolean)}), whose vertices are the
+     *         canonical Strings of dictionary for the normalized words
+     * @throws IOException if a corpus file cannot be found or read
+     */
+    private static CompactGraph<String> readCorpora(List<File> corpora, WordDictionary dictionary)
+	    throws IOException {
+	GraphBuilder<String> builder = new GraphBuilder<>();
+	List<File> files = new ArrayList<>();
+	for (File corpus : corpora) {
+	    if (corpus.isDirectory()) {
+		File[] children = corpus.listFiles(File::isFile);
+		if (children == null) {
+		    throw new IOException("Cannot list the corpus directory " + corpus);
 		}
+		Arrays.sort(children);
+		files.addAll(Arrays.asList(children));
+	    } else {
+		files.add(corpus);
 	    }
-	} catch (FileNotFoundException exp) {
-	    // source not found
-	    throw new IOException(exp);
 	}
 
+	if (!files.isEmpty()) {
+	    try {
+		ForkJoinPool.commonPool().invoke(new CountTask(files, 0, files.size())).addTo(builder, dictionary);
+	    } catch (UncheckedIOException exp) {
+		throw exp.getCause();
+	    }
+	}
+	return builder.buildCompactGraph();
+    }
+
+    /**
+     * Create a new poet with a prebuilt affinity graph, optionally indexing
+     * bridge words.
+     * 
+     * @param dictionary,       a dictionary holding every vertex of graph as
+     *                          its canonical String, kept by the poet
+     * @param graph,            the affinity graph, with normalized words as
+     *                          vertices
+     * @param indexBridgeWords, whether to cache bridge words per left word
+     */
+    private GraphPoet(WordDictionary dictionary, CompactGraph<String> graph, boolean indexBridgeWords) {
+	this.dictionary = dictionary;
+	this.graph = graph;
+	this.paths = new TwoHopPaths<>(this.graph, EMPTY_WORD);
+	this.bridgeIndex = indexBridgeWords ? new ConcurrentHashMap<>() : null;
+	this.rankedAdjacency = new RankedAdjacency(this.graph);
+	this.phrases = new BoundedPaths<>(this.graph, EMPTY_WORD);
+	checkRep();
+    }
+
+    /**
+     * Create a new poet from a snapshot of its affinity graph written by
+     * {@link #writeSnapshot(File)}, optionally indexing bridge words (see
+     * {@link #GraphPoet(File, boolean)}).
+     * 
+     * <p>
+     * The corpus is not read again: the snapshot is memory-mapped and decoded
+     * in one pass, so loading it is much faster than building the poet from
+     * its corpus. The poet makes the same poems as the poet the snapshot was
+     * written from.
+     * 
+     * @param snapshot         snapshot file of an affinity graph
+     * @param indexBridgeWords whether to cache bridge words per left word
+     * @return a poet with the affinity graph of the snapshot
+     * @throws IOException if the snapshot cannot be read or is malformed
+     */
+    public static GraphPoet fromSnapshot(File snapshot, boolean indexBridgeWords) throws IOException {
+	CompactGraph<String> graph = GraphSnapshot.read(snapshot);
+	WordDictionary dictionary = new WordDictionary();
+	for (String word : graph.verticesView()) {
+	    dictionary.intern(word);
+	}
+	return new GraphPoet(dictionary, graph, indexBridgeWords);
+    }
+
+    /**
+     * Write a snapshot of this poet's affinity graph, which
+     * {@link #fromSnapshot(File, boolean)} can load later in place of the
+     * corpus.
+     * 
+     * @param snapshot file to write the snapshot to, replaced if it exists
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void writeSnapshot(File snapshot) throws IOException {
+	GraphSnapshot.write(graph, snapshot);
     }
 
-    // TODO checkRep
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so; it costs
+    // O(vertices), so it only runs when the poet is created, and the rows of
+    // bridgeIndex, which are added later, are not checked
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	for (String word : graph.verticesView()) {
+	    assert dictionary.find(word) == word;
+	}
+	assert bridgeIndex == null || bridgeIndex.isEmpty();
+	Validation.record(start);
+    }
 
     /**
      * Generate a poem.
@@ -130,38 +385,222 @@ public class GraphPoet {
      * 
      */
     public String poem(String input) {
+	return poem(input, new StringBuilder(input.length() * 2), new StringBuilder());
+    }
+
+    /**
+     * Generate a poem for every input of a batch, in parallel on the common
+     * fork-join pool.
+     * 
+     * <p>
+     * The inputs are split into ranges, and every range is written with one
+     * pair of buffers reused for all its poems.
+     * 
+     * @param inputs strings from which to create the poems
+     * @return an unmodifiable list whose i-th element is poem(inputs.get(i))
+     */
+    public List<String> poems(List<String> inputs) {
+	String[] batch = inputs.toArray(new String[0]);
+	String[] results = new String[batch.length];
+	if (batch.length > 0) {
+	    ForkJoinPool.commonPool().invoke(new PoemTask(batch, results, 0, batch.length));
+	}
+	return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Generate a poem for every input of a stream, in parallel on the common
+     * fork-join pool.
+     * 
+     * <p>
+     * The returned stream is lazy and sequential: it takes the inputs
+     * {@value #STREAM_BATCH} at a time and writes each batch with
+     * {@link #poems(List)}, so memory use does not grow with the number of
+     * inputs. Closing it closes inputs.
+     * 
+     * @param inputs strings from which to create the poems, in encounter order
+     * @return a stream of poem(input) for every input, in the same order
+     */
+    public Stream<String> poems(Stream<String> inputs) {
+	Iterator<String> iterator = inputs.iterator();
+	Spliterator<String> batches = new Spliterators.AbstractSpliterator<String>(Long.MAX_VALUE,
+		Spliterator.ORDERED | Spliterator.NONNULL) {
+	    private Iterator<String> batch = Collections.emptyIterator();
+
+	    @Override
+	    public boolean tryAdvance(Consumer<? super String> action) {
+		while (!batch.hasNext()) {
+		    if (!iterator.hasNext()) {
+			return false;
+		    }
+		    List<String> next = new ArrayList<>(STREAM_BATCH);
+		    while (next.size() < STREAM_BATCH && iterator.hasNext()) {
+			next.add(iterator.next());
+		    }
+		    batch = poems(next).iterator();
+		}
+		action.accept(batch.next());
+		return true;
+	    }
+	};
+	return StreamSupport.stream(batches, false).onClose(inputs::close);
+    }
 
+    /**
+     * Find the best bridge words between two words, for writing alternative
+     * poems.
+     * 
+     * <p>
+     * The words are compared as in poem: case-insensitively and without
+     * punctuation. The targets of w1 and the sources of w2 are searched
+     * heaviest edge first, starting with the shorter list, and the search stops
+     * once no word left can make a path heavier than the k-th best, so asking
+     * for more bridge words costs little more than asking for one.
+     * 
+     * @param w1 the word before the bridge
+     * @param w2 the word after the bridge
+     * @param k  the number of bridge words wanted, k >= 1
+     * @return up to k non-empty bridge words b in lower case, such that w1 ->
+     *         b -> w2 is a two-edge path in the affinity graph, those with the
+     *         highest path weight, in decreasing order of path weight with ties
+     *         in alphabetical order; empty if there is no such path
+     * @throws IllegalArgumentException if k < 1
+     */
+    public List<String> bridgeWords(String w1, String w2, int k) {
+	if (k < 1) {
+	    throw new IllegalArgumentException("k must be positive: " + k);
+	}
+	StringBuilder buffer = new StringBuilder();
+	String source = formatString(w1, 0, w1.length(), buffer);
+	String target = formatString(w2, 0, w2.length(), buffer);
+	if (source == null || target == null) {
+	    return Collections.emptyList();
+	}
+	return Collections.unmodifiableList(rankedAdjacency.topBridges(source, target, k));
+    }
+
+    /**
+     * Generate a poem with bridge phrases: between every adjacent pair of input
+     * words w1 and w2, insert the bridge words b1 ... bj, 1 <= j <=
+     * maxBridgeWords, of the best path w1 -> b1 -> ... -> bj -> w2 in the
+     * affinity graph whose bridge words are all distinct, as ranked by ranking;
+     * among paths of equal rank, one with the fewest bridge words. Nothing is
+     * inserted if there is no such path. Words are compared and written as in
+     * poem(input).
+     * 
+     * <p>
+     * The paths from a word are searched one bridge word at a time, and what
+     * was found is kept for the rest of the call, so a word that occurs many
+     * times in input is searched from once. The search keeps the best path to
+     * every word per number of bridge words, so the phrase is the best one for
+     * up to two bridge words, and may not be for more. Every pair may search for
+     * about budgetPerPair: when it runs out, the phrase is the best one among
+     * the paths found so far, and no longer paths are searched from w1 for the
+     * rest of the call. The paths with one bridge word are always searched, so
+     * with maxBridgeWords 1 or a zero budget the poem is poem(input).
+     * 
+     * @param input          string from which to create the poem
+     * @param maxBridgeWords the greatest number of bridge words between two
+     *                       input words, at least 1
+     * @param ranking        how to rank the paths between two input words
+     * @param budgetPerPair  the time searching for longer phrases may take per
+     *                       pair of input words, not negative
+     * @return poem with bridge phrases (as described above)
+     * @throws IllegalArgumentException if maxBridgeWords < 1 or budgetPerPair is
+     *                                  negative
+     */
+    public String poem(String input, int maxBridgeWords, PhraseRanking ranking, Duration budgetPerPair) {
+	if (maxBridgeWords < 1) {
+	    throw new IllegalArgumentException("maxBridgeWords must be positive: " + maxBridgeWords);
+	}
+	if (budgetPerPair.isNegative()) {
+	    throw new IllegalArgumentException("budgetPerPair must not be negative: " + budgetPerPair);
+	}
 	if (input.isBlank()) {
 	    return input;
 	}
+	// a budget too long to count in nanoseconds is as good as no deadline
+	long budget = budgetPerPair.compareTo(Duration.ofNanos(LONGEST_BUDGET_NANOS)) > 0 ? LONGEST_BUDGET_NANOS
+		: budgetPerPair.toNanos();
+	boolean average = ranking == PhraseRanking.AVERAGE_WEIGHT;
+	BoundedPaths<String>.Session session = phrases.session();
+	return poem(input, new StringBuilder(input.length() * 2), new StringBuilder(),
+		(previousWord, currentWord, result) -> {
+		    long deadline = System.nanoTime() + budget;
+		    for (String bridgeWord : session.heaviest(previousWord, currentWord, maxBridgeWords, average,
+			    deadline)) {
+			result.append(' ');
+			result.append(bridgeWord);
+		    }
+		});
+    }
 
-	StringBuilder result = new StringBuilder();
-	List<String> wordsList = Arrays.asList(input.split("\\s+"));
-	Iterator<String> iterator = wordsList.iterator();
+    /**
+     * Writes the bridge between two adjacent input words of a poem.
+     */
+    private interface Bridge {
+
+	/**
+	 * Appends the bridge words from one input word to the next to a poem,
+	 * each after a space.
+	 * 
+	 * @param previousWord, a word of the graph
+	 * @param currentWord,  the word of the graph following previousWord in the
+	 *                      input
+	 * @param result,       the poem so far, which ends with previousWord
+	 */
+	void append(String previousWord, String currentWord, StringBuilder result);
+    }
 
-	String previousWord = iterator.next();
-	result.append(previousWord);
+    /**
+     * Generate a poem, using the given buffers.
+     * 
+     * @param input  string from which to create the poem
+     * @param result buffer to write the poem in, overwritten
+     * @param buffer buffer to normalize words in, overwritten
+     * @return poem (as described above)
+     */
+    private String poem(String input, StringBuilder result, StringBuilder buffer) {
+	return poem(input, result, buffer, this::appendBridgeWord);
+    }
+
+    /**
+     * Generate a poem, using the given buffers and bridges.
+     * 
+     * @param input  string from which to create the poem
+     * @param result buffer to write the poem in, overwritten
+     * @param buffer buffer to normalize words in, overwritten
+     * @param bridge writes the bridge between every pair of adjacent input
+     *               words that are both in the graph
+     * @return poem (as described above), with the bridge words written by
+     *         bridge
+     */
+    private String poem(String input, StringBuilder result, StringBuilder buffer, Bridge bridge) {
 
-	String currentWord;
-	String bridgeWord;
+	if (input.isBlank()) {
+	    return input;
+	}
+
+	// The words are scanned in place and normalized into a reused buffer, so
+	// no String is made for a word; a word that is not in the dictionary is
+	// not in the graph either, and has no bridge word.
+	result.setLength(0);
 	String whiteSpace = " ";
 
-	while (iterator.hasNext()) {
-	    currentWord = iterator.next();
+	// the first word may be empty if input starts with whitespace
+	int end = endOfWord(input, 0);
+	result.append(input, 0, end);
+	String previousWord = formatString(input, 0, end, buffer);
 
-	    try {
-		// If bridge-word is exist, add whitespace bridge-word whitespace current-word
-		bridgeWord = getBridgeWord(formatString(previousWord), formatString(currentWord));
-		result.append(whiteSpace);
-		result.append(bridgeWord);
-		result.append(whiteSpace);
-		result.append(currentWord);
-
-	    } catch (PathNotFoundException exp) {
-		// No bridge-word found, add whitespace and then current-word only
-		result.append(whiteSpace);
-		result.append(currentWord);
+	for (int start = startOfWord(input, end); start < input.length(); start = startOfWord(input, end)) {
+	    end = endOfWord(input, start);
+	    String currentWord = formatString(input, start, end, buffer);
+
+	    if (previousWord != null && currentWord != null) {
+		bridge.append(previousWord, currentWord, result);
 	    }
+	    result.append(whiteSpace);
+	    result.append(input, start, end);
 
 	    previousWord = currentWord;
 	}
@@ -169,89 +608,71 @@ public class GraphPoet {
 	return result.toString();
     }
 
-    // TODO toString()
-
     /**
-     * Checks if there exist an edge from the source vertex to the target vertex,
-     * return true, otherwise false.
-     * 
-     * @param source, a source vertex of the possible edge
-     * @param target, a target vertex of the possible edge
-     * @return true, if there exist an edge from source vertex to target vertex,
-     *         false, otherwise.
+     * Appends the bridge word from source to target, after a space, to result
+     * if there is one; the Bridge of poem(input).
      */
-    private boolean hasAnEdge(String source, String target) {
-	Map<String, Integer> sources = graph.sources(target);
-	Map<String, Integer> targets = graph.targets(source);
-	if (sources.containsKey(source) && targets.containsKey(target)) {
-	    return sources.get(source).equals(targets.get(target));
-
+    private void appendBridgeWord(String source, String target, StringBuilder result) {
+	try {
+	    // If bridge-word is exist, add whitespace bridge-word
+	    String bridgeWord = getBridgeWord(source, target);
+	    result.append(' ');
+	    result.append(bridgeWord);
+	} catch (PathNotFoundException exp) {
+	    // No bridge-word found
 	}
-	return false;
     }
 
     /**
-     * Returns the weight of an edge from the source vertex to the target vertex,
-     * only if their exist an edge from the source to the target vertex, otherwise
-     * returns zero.
+     * Returns the index of the first character of the word at or after index,
+     * skipping the whitespace that input.split("\\s+") would split on.
      * 
-     * @param source, a source vertex of the possible edge
-     * @param target, a target vertex of the possible edge
-     * @return weight of edge from source to target vertex, if there exist an edge
-     *         from source vertex to target vertex, zero, otherwise.
+     * @param input, any string
+     * @param index, 0 <= index <= input.length()
+     * @return the index of the first non-whitespace character at or after
+     *         index, or input.length() if there is none
      */
-    private int getEdgeWeight(String source, String target) {
-	if (hasAnEdge(source, target)) {
-	    Map<String, Integer> sources = graph.sources(target);
-	    return sources.get(source);
+    private static int startOfWord(String input, int index) {
+	while (index < input.length() && isSplitWhitespace(input.charAt(index))) {
+	    index++;
 	}
-	return 0;
+	return index;
     }
 
     /**
-     * Adds an edge from source to target vertex with edge weight one to the
-     * affinity graph, adds vertices if they don't exist, only if the there exist no
-     * edge between from source to target. Updates the edge weight by one if there
-     * is already an edge from source to target.
+     * Returns the index just after the word starting at index.
      * 
-     * @param source, any word, must only contain lower-case letters and digits.
-     * @param target, any word, must only contain lower-case letters and digits.
-     * @return updated edge weight from source to target if the edges is already
-     *         present,otherwise, one if a new edge was added from source to target.
+     * @param input, any string
+     * @param index, 0 <= index <= input.length()
+     * @return the index of the first whitespace character at or after index, or
+     *         input.length() if there is none
      */
-    private int addEdgeToAffinityGraph(String source, String target) {
-	int result;
-
-	if (hasAnEdge(source, target)) {
-	    // Update the existing edge weight if there is an edge.
-	    int existingEdgeWeight = getEdgeWeight(source, target);
-	    int newEdgeWeight = existingEdgeWeight + 1;
-	    graph.set(source, target, newEdgeWeight);
-	    result = newEdgeWeight;
-
-	} else {
-	    // Create a new edge and add it to the graph.
-	    graph.set(source, target, 1);
-	    result = 1;
-
+    private static int endOfWord(String input, int index) {
+	while (index < input.length() && !isSplitWhitespace(input.charAt(index))) {
+	    index++;
 	}
+	return index;
+    }
 
-	return result;
+    // Whether c matches the regular expression \s
+    private static boolean isSplitWhitespace(char c) {
+	return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     /**
-     * Removes any punctuation from the given word and convert it to lower-case.
+     * Removes any punctuation from a word of input and convert it to lower-case,
+     * and finds it in the dictionary.
      * 
-     * @param word, any word
-     * @return a word in lower-case letters and without punctuation.
+     * @param input,  any string
+     * @param start,  index of the first character of the word, inclusive
+     * @param end,    index of the last character of the word, exclusive
+     * @param buffer, a buffer to normalize the word in, overwritten
+     * @return the canonical String of the word in lower-case letters and
+     *         without punctuation, or null if the word is not in the dictionary.
      */
-    private String formatString(String word) {
-
-	String cleanedText = word.replaceAll("[^\\p{L}\\p{N}]", ""); // remove non-alphanumeric characters.
-
-	String lowerCaseText = cleanedText.toLowerCase(); // convert the word to lower-case.
-
-	return lowerCaseText;
+    private String formatString(String input, int start, int end, StringBuilder buffer) {
+	CorpusReader.normalize(input, start, end, buffer);
+	return dictionary.find(buffer);
     }
 
     /**
@@ -268,38 +689,162 @@ public class GraphPoet {
      */
     private String getBridgeWord(String source, String target) throws PathNotFoundException {
 
-	Map<String, Integer> targets = graph.targets(source);
-	int maximumWeight = 0;
-	String bridgeWord = "";
-
-	for (Map.Entry<String, Integer> entry : targets.entrySet()) {
-
-	    // if there is a two edge path via the current word and and if the path weight
-	    // is maximum, the current word is the bridge word.
-	    String possibleBridgeWord = entry.getKey();
-	    if (this.hasAnEdge(possibleBridgeWord, target)) {
-		int currentWeight = entry.getValue() + getEdgeWeight(possibleBridgeWord, target);
-		if (maximumWeight < currentWeight) {
-		    maximumWeight = currentWeight;
-		    bridgeWord = entry.getKey();
-		}
+	if (bridgeIndex != null) {
+	    String bridgeWord = bridgeIndex.computeIfAbsent(source, this::computeBridgeWords).get(target);
+	    if (bridgeWord == null) {
+		throw new PathNotFoundException("There is no two edge path from source to target via some bridge word.");
 	    }
-
+	    return bridgeWord;
 	}
 
+	// intersect the targets of source with the sources of target, from the
+	// smaller side, so a pair with a very common word costs no more than the
+	// neighbours of the other word.
+	String bridgeWord = paths.bestMiddle(source, target);
+
 	// if there is no bridge word then throw PathNotFoundException, otherwise return
 	// bridge word.
-	if (bridgeWord.isEmpty()) {
+	if (bridgeWord == null) {
 	    throw new PathNotFoundException("There is no two edge path from source to target via some bridge word.");
 	} else {
 	    return bridgeWord;
 	}
     }
+
+    /**
+     * Returns the best bridge word from source to every word at the end of a two
+     * edge path (source -> word -> target) in the affinity graph. The views of
+     * the CompactGraph list words in id order and only a heavier path replaces
+     * a bridge word, so ties go to the smallest id, as in TwoHopPaths. The
+     * empty word is never a bridge word, as paths excludes it.
+     * 
+     * @param source, the starting word
+     * @return an unmodifiable map from every target word reachable by a two edge
+     *         path from source to the bridge word on the maximum weight path
+     */
+    private Map<String, String> computeBridgeWords(String source) {
+	Map<String, Integer> maximumWeights = new HashMap<>();
+	Map<String, String> bridgeWords = new HashMap<>();
+
+	for (Map.Entry<String, Integer> first : graph.targetsView(source).entrySet()) {
+	    if (first.getKey().isEmpty()) {
+		continue;
+	    }
+	    for (Map.Entry<String, Integer> second : graph.targetsView(first.getKey()).entrySet()) {
+		int currentWeight = first.getValue() + second.getValue();
+		if (maximumWeights.getOrDefault(second.getKey(), 0) < currentWeight) {
+		    maximumWeights.put(second.getKey(), currentWeight);
+		    bridgeWords.put(second.getKey(), first.getKey());
+		}
+	    }
+	}
+
+	return Collections.unmodifiableMap(bridgeWords);
+    }
+
+    /**
+     * Writes the poems of a range of a batch of inputs, splitting the range in
+     * halves until it holds at most POEMS_PER_TASK inputs.
+     */
+    private class PoemTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final String[] inputs;
+	private final String[] results;
+	private final int from;
+	private final int to;
+
+	/**
+	 * @param inputs,  the batch of inputs
+	 * @param results, the poems of the batch, filled in by this task for the range
+	 * @param from,    index of the first input of the range, inclusive
+	 * @param to,      index of the last input of the range, exclusive, from < to
+	 */
+	PoemTask(String[] inputs, String[] results, int from, int to) {
+	    this.inputs = inputs;
+	    this.results = results;
+	    this.from = from;
+	    this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+	    if (to - from <= POEMS_PER_TASK) {
+		StringBuilder result = new StringBuilder();
+		StringBuilder buffer = new StringBuilder();
+		for (int i = from; i < to; i++) {
+		    results[i] = poem(inputs[i], result, buffer);
+		}
+		return;
+	    }
+	    int middle = (from + to) >>> 1;
+	    invokeAll(new PoemTask(inputs, results, from, middle), new PoemTask(inputs, results, middle, to));
+	}
+    }
+
+    /**
+     * Counts the adjacent words in a range of corpus files, splitting the range
+     * in halves until it holds a single file.
+     */
+    private static class CountTask extends RecursiveTask<AdjacencyCounts> {
+	private static final long serialVersionUID = 1L;
+
+	private final List<File> files;
+	private final int from;
+	private final int to;
+
+	/**
+	 * @param files, corpus files
+	 * @param from,  index of the first file of the range, inclusive
+	 * @param to,    index of the last file of the range, exclusive, from < to
+	 */
+	CountTask(List<File> files, int from, int to) {
+	    this.files = files;
+	    this.from = from;
+	    this.to = to;
+	}
+
+	@Override
+	protected AdjacencyCounts compute() {
+	    if (to - from == 1) {
+		return count(files.get(from));
+	    }
+	    int middle = (from + to) >>> 1;
+	    CountTask left = new CountTask(files, from, middle);
+	    left.fork();
+	    AdjacencyCounts right = new CountTask(files, middle, to).compute();
+	    return left.join().merge(right);
+	}
+
+	/**
+	 * Counts the adjacent words in one corpus file.
+	 * 
+	 * @param corpus, a text file
+	 * @return the number of times every word is followed by every other word
+	 * @throws UncheckedIOException if the file cannot be found or read
+	 */
+	private static AdjacencyCounts count(File corpus) {
+	    AdjacencyCounts counts = new AdjacencyCounts();
+	    try (CorpusReader reader = new CorpusReader(corpus)) {
+		String previousWord = reader.nextWord();
+		String currentWord;
+		while (previousWord != null && (currentWord = reader.nextWord()) != null) {
+		    counts.increment(previousWord, currentWord);
+		    previousWord = currentWord;
+		}
+	    } catch (IOException exp) {
+		throw new UncheckedIOException(exp);
+	    }
+	    return counts;
+	}
+    }
 }
 
 /**
  * This Exception is thrown when a two edge path does not exist from a source to
- * target via some bridge word
+ * target via some bridge word. It is caught inside GraphPoet for every pair of
+ * input words without a bridge, so it records no stack trace: filling one in
+ * costs more than the search, and more still deep in a fork-join task.
  * 
  * @author Admin
  *
@@ -308,10 +853,10 @@ class PathNotFoundException extends Exception {
     private static final long serialVersionUID = 1L;
 
     PathNotFoundException(String message) {
-	super(message);
+	super(message, null, false, false);
     }
 
     PathNotFoundException(String message, Throwable cause) {
-	super(message, cause);
+	super(message, cause, false, false);
     }
 }
@@ -0,0 +1,245 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import graph.IndexedGraph;
+import graph.Validation;
+
+/**
+ * The adjacency of an affinity graph sorted by edge weight, for finding the
+ * best k bridge words between two words without looking at every neighbour.
+ *
+ * <p>
+ * The rows are sorted the first time they are asked for and kept, so a word
+ * costs one sort of its neighbours however many queries it is part of, and at
+ * most two more ints and one more reference per edge of the graph. The graph
+ * must not change after the first query. A RankedAdjacency is thread-safe.
+ */
+class RankedAdjacency {
+
+    private static final Row EMPTY = new Row(new String[0], new int[0]);
+
+    private final IndexedGraph<String> graph;
+    private final Map<String, Row> targets = new ConcurrentHashMap<>();
+    private final Map<String, Row> sources = new ConcurrentHashMap<>();
+
+    // Abstraction function:
+    //   AF(graph) = the edges of graph, with the targets and the sources of every
+    //               vertex ranked by decreasing edge weight
+    //   targets and sources cache the rows already ranked
+
+    // Representation invariant:
+    //   targets maps a vertex w to the edges w -> u of graph, sources maps it to
+    //     the edges u -> w, each as a Row
+    //   the weights of every Row are positive and non-increasing
+
+    // Safety from rep exposure:
+    //   All the fields are private and no Row is ever returned; the lists
+    //   returned by topBridges are new.
+
+    // Thread safety argument:
+    //   graph is only read. targets and sources are concurrent maps filled with
+    //   computeIfAbsent, and a Row is immutable once it is published through them.
+
+    /**
+     * Make a ranked adjacency of a graph.
+     *
+     * @param graph, an affinity graph; it may still change until the first
+     *               query, but not after
+     */
+    RankedAdjacency(IndexedGraph<String> graph) {
+	this.graph = graph;
+    }
+
+    // checkRep
+    // Check that the rep invariant is true of one row, if Validation says so;
+    // checking every cached row would cost as much as ranking them again
+    private static void checkRep(Row row) {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	assert row.words.length == row.weights.length;
+	for (int i = 0; i < row.weights.length; i++) {
+	    assert row.weights[i] > 0;
+	    assert i == 0 || row.weights[i - 1] >= row.weights[i];
+	}
+	Validation.record(start);
+    }
+
+    /**
+     * Get the targets of the edges from a word, heaviest edge first.
+     *
+     * @param word, any word
+     * @return the targets of word and the weights of the edges to them, in
+     *         non-increasing order of weight; empty if word is not a vertex
+     */
+    private Row targets(String word) {
+	return targets.computeIfAbsent(word, w -> rank(graph.targetsView(w)));
+    }
+
+    /**
+     * Get the sources of the edges to a word, heaviest edge first.
+     *
+     * @param word, any word
+     * @return the sources of word and the weights of the edges from them, in
+     *         non-increasing order of weight; empty if word is not a vertex
+     */
+    private Row sources(String word) {
+	return sources.computeIfAbsent(word, w -> rank(graph.sourcesView(w)));
+    }
+
+    /**
+     * Find the best bridge words between two words.
+     *
+     * <p>
+     * The bridges are the targets of source that are also sources of target.
+     * Both rows are scanned heaviest edge first, taking turns and starting with
+     * the smaller row, and the other edge of every word scanned is looked up in
+     * the graph. A bridge not scanned yet weighs at most the sum of the next
+     * weights of the two rows, so the scan stops as soon as that sum is below
+     * the k-th best path found, or when either row runs out, since every bridge
+     * is in both. The empty word, which a word made only of punctuation
+     * normalizes to, is skipped, as it is never a bridge word.
+     *
+     * @param source, the first word
+     * @param target, the last word
+     * @param k,      the number of bridge words wanted, k >= 1
+     * @return up to k non-empty words b such that source -> b -> target is a
+     *         two-edge path of the graph, those with the highest path weight, in decreasing
+     *         order of path weight with ties in increasing alphabetical order
+     */
+    List<String> topBridges(String source, String target, int k) {
+	assert k >= 1;
+	Row out = targets(source);
+	Row in = sources(target);
+	if (out.size() == 0 || in.size() == 0) {
+	    return Collections.emptyList();
+	}
+	int capacity = Math.min(k, Math.min(out.size(), in.size()));
+	String[] best = new String[capacity];
+	long[] scores = new long[capacity];
+	int count = 0;
+
+	// i and j are the next unseen positions of out and in; a bridge not seen
+	// yet weighs at most out.weights[i] + in.weights[j]
+	boolean fromOut = out.size() <= in.size();
+	for (int i = 0, j = 0; i < out.size() && j < in.size(); fromOut = !fromOut) {
+	    if (count == capacity && (long) out.weights[i] + in.weights[j] < scores[count - 1]) {
+		break;
+	    }
+	    String middle;
+	    int scanned;
+	    int other;
+	    if (fromOut) {
+		middle = out.words[i];
+		scanned = out.weights[i++];
+		other = graph.weight(middle, target);
+	    } else {
+		middle = in.words[j];
+		scanned = in.weights[j++];
+		other = graph.weight(source, middle);
+	    }
+	    if (other > 0 && !middle.isEmpty()) {
+		count = insert(middle, (long) scanned + other, best, scores, count);
+	    }
+	}
+
+	List<String> bridges = new ArrayList<>(count);
+	for (int i = 0; i < count; i++) {
+	    bridges.add(best[i]);
+	}
+	return bridges;
+    }
+
+    /**
+     * Inserts a bridge into the best bridges found so far, unless it is there
+     * already or ranks after all of them and they are full.
+     *
+     * @param middle, a bridge word
+     * @param score,  the weight of its path
+     * @param best,   the best bridge words found, best[0..count) sorted by
+     *                decreasing score then word; changed
+     * @param scores, the scores of best; changed
+     * @param count,  the number of bridges found, count <= best.length
+     * @return the new number of bridges found
+     */
+    private static int insert(String middle, long score, String[] best, long[] scores, int count) {
+	int position = count;
+	while (position > 0 && ranksBefore(score, middle, scores[position - 1], best[position - 1])) {
+	    position--;
+	}
+	// a bridge seen from both sides ranks right after itself the second time
+	if (position == best.length || position > 0 && best[position - 1].equals(middle)) {
+	    return count;
+	}
+	int moved = Math.min(count, best.length - 1) - position;
+	System.arraycopy(best, position, best, position + 1, moved);
+	System.arraycopy(scores, position, scores, position + 1, moved);
+	best[position] = middle;
+	scores[position] = score;
+	return Math.min(count + 1, best.length);
+    }
+
+    // Whether a bridge with score and word ranks before one with otherScore
+    // and otherWord
+    private static boolean ranksBefore(long score, String word, long otherScore, String otherWord) {
+	return score > otherScore || score == otherScore && word.compareTo(otherWord) < 0;
+    }
+
+    /**
+     * Returns the edges of a view as a row sorted by decreasing weight.
+     */
+    private static Row rank(Map<String, Integer> edges) {
+	if (edges.isEmpty()) {
+	    return EMPTY;
+	}
+	// sort the negated weight in the high half, the index in the low half
+	String[] words = new String[edges.size()];
+	long[] order = new long[edges.size()];
+	int i = 0;
+	for (Map.Entry<String, Integer> edge : edges.entrySet()) {
+	    words[i] = edge.getKey();
+	    order[i] = ((long) -edge.getValue() << 32) | i;
+	    i++;
+	}
+	Arrays.sort(order);
+	String[] sortedWords = new String[words.length];
+	int[] weights = new int[words.length];
+	for (i = 0; i < order.length; i++) {
+	    sortedWords[i] = words[(int) order[i]];
+	    weights[i] = (int) -(order[i] >> 32);
+	}
+	Row row = new Row(sortedWords, weights);
+	checkRep(row);
+	return row;
+    }
+
+    /**
+     * The neighbours of one word and the weights of the edges to them, in
+     * non-increasing order of weight. Immutable: the arrays are never changed
+     * after construction.
+     */
+    private static final class Row {
+	private final String[] words;
+	private final int[] weights;
+
+	private Row(String[] words, int[] weights) {
+	    this.words = words;
+	    this.weights = weights;
+	}
+
+	private int size() {
+	    return words.length;
+	}
+    }
+
+}
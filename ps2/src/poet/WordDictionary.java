@@ -0,0 +1,181 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Arrays;
+
+import graph.Validation;
+
+/**
+ * A mutable dictionary that interns words: it gives every distinct word one
+ * canonical String.
+ *
+ * <p>
+ * Words are looked up by their characters, so a word being read into a
+ * reusable buffer is only copied into a new String the first time it is seen.
+ * Every later occurrence returns the canonical String, so the affinity graph
+ * holds one String per distinct word, and comparing two words taken from the
+ * same dictionary with equals succeeds on the reference check. A
+ * WordDictionary is not thread-safe.
+ */
+class WordDictionary {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private String[] words = new String[MINIMUM_CAPACITY];
+    private int[] hashes = new int[MINIMUM_CAPACITY];
+    private int[] slots = new int[2 * MINIMUM_CAPACITY];
+    private int size = 0;
+
+    // Abstraction function:
+    //   AF(words, size) = the set of canonical Strings words[0..size)
+    //   hashes and slots are an index only
+
+    // Representation invariant:
+    //   words[0..size) are distinct and not null
+    //   hashes[i] == words[i].hashCode() for every i < size
+    //   slots.length is a power of two, at least 2 * words.length
+    //   every slot is zero (empty) or one plus an index of words; every index
+    //     below size is in exactly one slot, which is the slot of its hash or
+    //     after it with no empty slot in between (wrapping around the end of
+    //     the array)
+
+    // Safety from rep exposure:
+    //   All the fields are private, and no array is returned; the words returned
+    //   are immutable Strings.
+
+    /**
+     * Make an empty dictionary.
+     */
+    WordDictionary() {
+	checkRep();
+    }
+
+    // checkRep
+    // Check that the rep invariant is true, if Validation says so; it costs
+    // O(slots.length), so it runs only when the arrays grow, which costs as
+    // much anyway
+    private void checkRep() {
+	if (!Validation.due()) {
+	    return;
+	}
+	long start = System.nanoTime();
+	assert size <= words.length && words.length == hashes.length;
+	assert (slots.length & (slots.length - 1)) == 0 && slots.length >= 2 * words.length;
+	int filled = 0;
+	for (int slot = 0; slot < slots.length; slot++) {
+	    if (slots[slot] != 0) {
+		int index = slots[slot] - 1;
+		assert index < size && hashes[index] == words[index].hashCode();
+		assert slotOf(words[index], hashes[index]) == slot;
+		filled++;
+	    }
+	}
+	assert filled == size;
+	Validation.record(start);
+    }
+
+    /**
+     * Get the number of words in this dictionary.
+     *
+     * @return the number of distinct words interned
+     */
+    int size() {
+	return size;
+    }
+
+    /**
+     * Intern a word, adding it to this dictionary if it is new.
+     *
+     * @param word, any characters; only read during the call, so it may be a
+     *              buffer that is reused afterwards
+     * @return the canonical String with the characters of word
+     */
+    String intern(CharSequence word) {
+	int hash = hash(word);
+	int slot = slotOf(word, hash);
+	if (slots[slot] != 0) {
+	    return words[slots[slot] - 1];
+	}
+	if (size == words.length) {
+	    grow();
+	    slot = slotOf(word, hash);
+	}
+	int index = size++;
+	words[index] = word.toString();
+	hashes[index] = hash;
+	slots[slot] = index + 1;
+	return words[index];
+    }
+
+    /**
+     * Get the canonical String of a word, without adding it.
+     *
+     * @param word, any characters
+     * @return the canonical String with the characters of word, or null if word
+     *         is not in this dictionary
+     */
+    String find(CharSequence word) {
+	int entry = slots[slotOf(word, hash(word))];
+	return entry == 0 ? null : words[entry - 1];
+    }
+
+    /**
+     * Returns the slot of word, or the empty slot where it would be added.
+     */
+    private int slotOf(CharSequence word, int hash) {
+	int mask = slots.length - 1;
+	for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+	    int entry = slots[slot];
+	    if (entry == 0) {
+		return slot;
+	    }
+	    int index = entry - 1;
+	    if (hashes[index] == hash && words[index].contentEquals(word)) {
+		return slot;
+	    }
+	}
+    }
+
+    /**
+     * Doubles the arrays and rebuilds the slots.
+     */
+    private void grow() {
+	int capacity = words.length * 2;
+	words = Arrays.copyOf(words, capacity);
+	hashes = Arrays.copyOf(hashes, capacity);
+	slots = new int[2 * capacity];
+	int mask = slots.length - 1;
+	for (int index = 0; index < size; index++) {
+	    int slot = spread(hashes[index]) & mask;
+	    while (slots[slot] != 0) {
+		slot = (slot + 1) & mask;
+	    }
+	    slots[slot] = index + 1;
+	}
+	checkRep();
+    }
+
+    /**
+     * Returns the hash of word, equal to the hashCode of a String with the same
+     * characters; a String's own cached hash is used when word is a String.
+     */
+    private static int hash(CharSequence word) {
+	if (word instanceof String) {
+	    return word.hashCode();
+	}
+	int hash = 0;
+	for (int i = 0; i < word.length(); i++) {
+	    hash = 31 * hash + word.charAt(i);
+	}
+	return hash;
+    }
+
+    // Mixes the high bits of hash into the low bits used to pick a slot
+    private static int spread(int hash) {
+	int mixed = hash * 0x9E3779B9;
+	return mixed ^ (mixed >>> 16);
+    }
+
+}
@@ -0,0 +1,214 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for BoundedPaths.
+ */
+public class BoundedPathsTest {
+
+    // Testing strategy for Session.heaviest()
+    // partition on vertices: not in graph, no edges, with edges
+    // partition on maxMiddle: 1, 2, more than the longest path
+    // partition on ranking: total weight, average weight
+    // partition on paths: none, one, several, through a repeated vertex
+    // partition on deadline: in the future, passed
+    // partition on queries per source in a session: one, several (layers reused)
+    // partition on excluded middle: none, first middle of the heaviest path,
+    //   later middle of the heaviest path, the only middle
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /**
+     * Returns the deadline of a query that may take an hour.
+     */
+    private static long inAnHour() {
+	return System.nanoTime() + 3_600_000_000_000L;
+    }
+
+    /**
+     * Returns the total weight of the path from source through middles to
+     * target.
+     */
+    private static long weight(Graph<String> graph, String source, List<String> middles, String target) {
+	long total = 0;
+	String from = source;
+	for (String to : middles) {
+	    total += graph.targets(from).get(to);
+	    from = to;
+	}
+	return total + graph.targets(from).get(target);
+    }
+
+    /**
+     * Returns the weight of the heaviest path from source to target through
+     * one or two distinct middle vertices, found by trying them all, or zero if
+     * there is none.
+     */
+    private static long heaviestPath(Graph<String> graph, String source, String target) {
+	long heaviest = 0;
+	for (Map.Entry<String, Integer> first : graph.targets(source).entrySet()) {
+	    Integer last = graph.targets(first.getKey()).get(target);
+	    if (last != null) {
+		heaviest = Math.max(heaviest, (long) first.getValue() + last);
+	    }
+	    for (Map.Entry<String, Integer> second : graph.targets(first.getKey()).entrySet()) {
+		last = graph.targets(second.getKey()).get(target);
+		if (last != null && !second.getKey().equals(first.getKey())) {
+		    heaviest = Math.max(heaviest, (long) first.getValue() + second.getValue() + last);
+		}
+	    }
+	}
+	return heaviest;
+    }
+
+    // vertices not in graph, vertex without edges, no path
+    @Test
+    public void testNoPath() {
+	Graph<String> graph = Graph.empty();
+	graph.add("Pune");
+	graph.set("Delhi", "Mumbai", 3);
+	BoundedPaths<String> paths = new BoundedPaths<>(graph);
+
+	assertEquals("expected no path from a missing vertex", Collections.emptyList(),
+		paths.session().heaviest("Goa", "Mumbai", 3, false, NO_DEADLINE));
+	assertEquals("expected no path to a missing vertex", Collections.emptyList(),
+		paths.session().heaviest("Delhi", "Goa", 3, false, NO_DEADLINE));
+	assertEquals("expected no path from an isolated vertex", Collections.emptyList(),
+		paths.session().heaviest("Pune", "Mumbai", 3, false, NO_DEADLINE));
+	assertEquals("expected no path over one edge", Collections.emptyList(),
+		paths.session().heaviest("Delhi", "Mumbai", 3, false, NO_DEADLINE));
+    }
+
+    // maxMiddle 1, 2 and more, total and average, several queries per source
+    @Test
+    public void testTotalAndAverage() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 2);
+	graph.set("Delhi", "Mumbai", 2);
+	graph.set("Pune", "Goa", 3);
+	graph.set("Goa", "Agra", 3);
+	graph.set("Agra", "Mumbai", 3);
+	graph.set("Agra", "Pune", 1);
+
+	BoundedPaths<String> paths = new BoundedPaths<>(graph);
+	BoundedPaths<String>.Session session = paths.session();
+	assertEquals("expected only middle", List.of("Delhi"), session.heaviest("Pune", "Mumbai", 1, false, inAnHour()));
+	assertEquals("expected heaviest path", List.of("Goa", "Agra"),
+		session.heaviest("Pune", "Mumbai", 2, false, inAnHour()));
+	assertEquals("expected heaviest average", List.of("Goa", "Agra"),
+		session.heaviest("Pune", "Mumbai", 5, true, inAnHour()));
+	assertEquals("expected single middle", List.of("Goa"), session.heaviest("Pune", "Agra", 5, false, inAnHour()));
+
+	graph.set("Delhi", "Mumbai", 5);
+	session = new BoundedPaths<>(graph).session();
+	assertEquals("expected heaviest path", List.of("Goa", "Agra"),
+		session.heaviest("Pune", "Mumbai", 2, false, inAnHour()));
+	assertEquals("expected heaviest average", List.of("Delhi"),
+		session.heaviest("Pune", "Mumbai", 2, true, inAnHour()));
+    }
+
+    // middle vertices must be distinct
+    @Test
+    public void testDistinctMiddles() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Goa", 1);
+	graph.set("Goa", "Goa", 9);
+	graph.set("Goa", "Delhi", 9);
+	graph.set("Delhi", "Goa", 9);
+	graph.set("Goa", "Mumbai", 1);
+
+	List<String> middles = new BoundedPaths<>(graph).session().heaviest("Pune", "Mumbai", 4, false, NO_DEADLINE);
+	assertEquals("expected no repeated middle", List.of("Goa"), middles);
+    }
+
+    // excluded middle: first and later middle of the heaviest path, the only
+    // middle
+    @Test
+    public void testExcludedMiddle() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 1);
+	graph.set("Delhi", "Mumbai", 1);
+	graph.set("Pune", "Goa", 5);
+	graph.set("Goa", "Agra", 5);
+	graph.set("Agra", "Mumbai", 5);
+	graph.set("Pune", "Agra", 4);
+	graph.set("Goa", "Chennai", 1);
+
+	assertEquals("expected heaviest path", List.of("Goa", "Agra"),
+		new BoundedPaths<>(graph, "Surat").session().heaviest("Pune", "Mumbai", 3, false, NO_DEADLINE));
+	BoundedPaths<String>.Session session = new BoundedPaths<>(graph, "Goa").session();
+	assertEquals("expected heaviest path not through Goa", List.of("Agra"),
+		session.heaviest("Pune", "Mumbai", 3, false, NO_DEADLINE));
+	assertEquals("expected no path but through Goa", List.of(),
+		session.heaviest("Pune", "Chennai", 3, false, NO_DEADLINE));
+	assertEquals("expected heaviest path not through Agra", List.of("Delhi"),
+		new BoundedPaths<>(graph, "Agra").session().heaviest("Pune", "Mumbai", 3, false, NO_DEADLINE));
+    }
+
+    // deadline passed: answered from the layers already built
+    @Test
+    public void testDeadlinePassed() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 1);
+	graph.set("Delhi", "Mumbai", 1);
+	graph.set("Pune", "Goa", 5);
+	graph.set("Goa", "Agra", 5);
+	graph.set("Agra", "Mumbai", 5);
+
+	BoundedPaths<String>.Session session = new BoundedPaths<>(graph).session();
+	long passed = System.nanoTime() - 1;
+	assertEquals("expected path from the first layer", List.of("Delhi"),
+		session.heaviest("Pune", "Mumbai", 2, false, passed));
+	assertEquals("expected no more layers", List.of("Delhi"), session.heaviest("Pune", "Mumbai", 2, false, passed));
+    }
+
+    // random graph: one middle agrees with TwoHopPaths, two with a full search
+    @Test
+    public void testAgreesWithFullSearch() {
+	Graph<String> graph = Graph.empty();
+	Random random = new Random(6005);
+	int vertices = 200;
+	for (int i = 0; i < 1_000; i++) {
+	    graph.set("v" + random.nextInt(vertices), "v" + random.nextInt(vertices), random.nextInt(10) + 1);
+	}
+
+	BoundedPaths<String>.Session session = new BoundedPaths<>(graph).session();
+	TwoHopPaths<String> twoHops = new TwoHopPaths<>(graph);
+	for (int i = 0; i < 100; i++) {
+	    String source = "v" + random.nextInt(vertices);
+	    for (int j = 0; j < 10; j++) {
+		String target = "v" + random.nextInt(vertices);
+		String middle = twoHops.bestMiddle(source, target);
+		assertEquals("expected the middle of TwoHopPaths from " + source + " to " + target,
+			middle == null ? List.of() : List.of(middle), session.heaviest(source, target, 1, false, inAnHour()));
+
+		long expected = heaviestPath(graph, source, target);
+		List<String> middles = session.heaviest(source, target, 2, false, inAnHour());
+		if (expected == 0) {
+		    assertEquals("expected no path from " + source + " to " + target, List.of(), middles);
+		} else {
+		    assertEquals("expected distinct middles", middles.size(), middles.stream().distinct().count());
+		    assertEquals("expected heaviest path from " + source + " to " + target + " through " + middles,
+			    expected, weight(graph, source, middles, target));
+		}
+	    }
+	}
+    }
+
+}
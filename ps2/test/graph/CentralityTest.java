@@ -0,0 +1,207 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for Centrality.
+ */
+public class CentralityTest {
+
+    // Testing strategy for pageRank()
+    // partition on graph: empty, small, large enough for several chunks
+    // partition on vertices: with and without out-edges, with and without in-edges
+    // partition on maxIterations: 0, stops at the cap, stops at the tolerance
+    // partition on arguments: valid, damping out of range, negative tolerance or
+    //   maxIterations
+    //
+    // Testing strategy for weightedInDegree()
+    // partition on graph: empty, small, large enough for several chunks
+    // partition on vertices: with and without in-edges
+    //
+    // Both: the maps returned are unmodifiable, and have no missing vertex
+
+    private static final double EPSILON = 1e-9;
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /**
+     * Returns the weighted PageRank of every vertex of graph, found by power
+     * iteration over the Graph operations, for the given number of iterations.
+     */
+    private static Map<String, Double> pageRank(Graph<String> graph, double damping, int iterations) {
+	int vertexCount = graph.vertices().size();
+	Map<String, Double> ranks = new HashMap<>();
+	for (String v : graph.vertices()) {
+	    ranks.put(v, 1.0 / vertexCount);
+	}
+	Map<String, Map<String, Integer>> edges = new HashMap<>();
+	for (String v : graph.vertices()) {
+	    edges.put(v, graph.targets(v));
+	}
+	for (int iteration = 0; iteration < iterations; iteration++) {
+	    double dangling = 0;
+	    Map<String, Double> next = new HashMap<>();
+	    for (String v : graph.vertices()) {
+		next.put(v, 0.0);
+	    }
+	    for (String u : graph.vertices()) {
+		Map<String, Integer> targets = edges.get(u);
+		long total = targets.values().stream().mapToLong(Integer::longValue).sum();
+		if (total == 0) {
+		    dangling += ranks.get(u);
+		}
+		for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+		    next.merge(edge.getKey(), damping * ranks.get(u) * edge.getValue() / total, Double::sum);
+		}
+	    }
+	    double base = ((1 - damping) + damping * dangling) / vertexCount;
+	    for (String v : graph.vertices()) {
+		next.merge(v, base, Double::sum);
+	    }
+	    ranks = next;
+	}
+	return ranks;
+    }
+
+    /**
+     * Returns the sum of the scores of a map.
+     */
+    private static double sum(Map<String, Double> scores) {
+	return scores.values().stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    // empty graph
+    @Test
+    public void testEmpty() {
+	Centrality<String> centrality = new Centrality<>(Graph.empty());
+	assertTrue("expected no ranks", centrality.pageRank(0.85, 1e-9, 100).isEmpty());
+	assertTrue("expected no degrees", centrality.weightedInDegree().isEmpty());
+    }
+
+    // small graph, vertices without out-edges or in-edges, stops at the tolerance
+    @Test
+    public void testSmall() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Mumbai", 2);
+	graph.set("Delhi", "Mumbai", 5);
+
+	// Pune and Delhi get base = (0.5 + 0.5 Mumbai) / 3, Mumbai gets
+	// base + 0.5 (Pune + Delhi), so Pune = Delhi = 1/4 and Mumbai = 1/2
+	Map<String, Double> ranks = new Centrality<>(graph).pageRank(0.5, 1e-12, 1000);
+	assertEquals("expected rank", 0.25, ranks.get("Pune"), EPSILON);
+	assertEquals("expected rank", 0.25, ranks.get("Delhi"), EPSILON);
+	assertEquals("expected rank", 0.5, ranks.get("Mumbai"), EPSILON);
+	assertNull("expected no rank", ranks.get("Goa"));
+	assertFalse("expected no rank", ranks.containsKey("Goa"));
+
+	Map<String, Long> degrees = new Centrality<>(graph).weightedInDegree();
+	assertEquals("expected degrees", Map.of("Pune", 0L, "Delhi", 0L, "Mumbai", 7L), degrees);
+    }
+
+    // maxIterations 0 and stopping at the cap
+    @Test
+    public void testIterationCap() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Mumbai", 2);
+	graph.set("Mumbai", "Delhi", 1);
+	graph.set("Mumbai", "Pune", 3);
+	graph.add("Goa");
+	Centrality<String> centrality = new Centrality<>(graph);
+
+	Map<String, Double> uniform = centrality.pageRank(0.85, 0, 0);
+	for (String v : graph.vertices()) {
+	    assertEquals("expected uniform rank", 0.25, uniform.get(v), EPSILON);
+	}
+	for (int iterations = 1; iterations < 4; iterations++) {
+	    Map<String, Double> expected = pageRank(graph, 0.85, iterations);
+	    Map<String, Double> ranks = centrality.pageRank(0.85, 0, iterations);
+	    for (String v : graph.vertices()) {
+		assertEquals("expected rank after " + iterations, expected.get(v), ranks.get(v), EPSILON);
+	    }
+	}
+    }
+
+    // large graph split into several chunks, agreeing with the Graph operations
+    @Test
+    public void testAgreesWithGraphOperations() {
+	GraphBuilder<String> builder = new GraphBuilder<>();
+	Random random = new Random(6005);
+	int vertices = 20_000;
+	for (int i = 0; i < 100_000; i++) {
+	    // a skewed choice of target, so a few vertices have many in-edges
+	    int target = (int) (vertices * Math.pow(random.nextDouble(), 3));
+	    builder.set("v" + random.nextInt(vertices), "v" + target, random.nextInt(10) + 1);
+	}
+	Graph<String> graph = builder.add("isolated").buildCompactGraph();
+
+	Centrality<String> centrality = new Centrality<>(graph);
+	Map<String, Double> expected = pageRank(graph, 0.85, 10);
+	Map<String, Double> ranks = centrality.pageRank(0.85, 0, 10);
+	assertEquals("expected every vertex", graph.vertices().size(), ranks.size());
+	for (Map.Entry<String, Double> entry : ranks.entrySet()) {
+	    assertEquals("expected rank of " + entry.getKey(), expected.get(entry.getKey()), entry.getValue(), EPSILON);
+	}
+	assertEquals("expected ranks summing to 1", 1.0, sum(ranks), EPSILON);
+
+	Map<String, Long> degrees = centrality.weightedInDegree();
+	assertEquals("expected every vertex", graph.vertices().size(), degrees.size());
+	for (String v : graph.vertices()) {
+	    long total = graph.sources(v).values().stream().mapToLong(Integer::longValue).sum();
+	    assertEquals("expected degree of " + v, (Long) total, degrees.get(v));
+	}
+    }
+
+    // stops at the tolerance: further iterations barely change the ranks
+    @Test
+    public void testTolerance() {
+	Graph<String> graph = Graph.empty();
+	Random random = new Random(6005);
+	for (int i = 0; i < 2_000; i++) {
+	    graph.set("v" + random.nextInt(300), "v" + random.nextInt(300), random.nextInt(10) + 1);
+	}
+	Centrality<String> centrality = new Centrality<>(graph);
+
+	Map<String, Double> converged = centrality.pageRank(0.85, 1e-10, 1000);
+	Map<String, Double> more = centrality.pageRank(0.85, 0, 1000);
+	double change = 0;
+	for (String v : graph.vertices()) {
+	    change += Math.abs(converged.get(v) - more.get(v));
+	}
+	assertTrue("expected converged ranks, off by " + change, change < 1e-8);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiable() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Mumbai", 2);
+	new Centrality<>(graph).pageRank(0.85, 1e-9, 100).put("Pune", 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDampingOutOfRange() {
+	new Centrality<>(Graph.<String>empty()).pageRank(1.0, 1e-9, 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTolerance() {
+	new Centrality<>(Graph.<String>empty()).pageRank(0.85, -1e-9, 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeIterations() {
+	new Centrality<>(Graph.<String>empty()).pageRank(0.85, 1e-9, -1);
+    }
+
+}
@@ -0,0 +1,174 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for CompactGraph.
+ *
+ * CompactGraph is immutable, so it does not run the GraphInstanceTest tests;
+ * instead every graph is built in a mutable graph and then frozen.
+ */
+public class CompactGraphTest {
+
+    // Testing strategy for CompactGraph.freeze(), vertices(), sources(), targets()
+    // partition on number of vertices: zero, at-least one
+    // partition on number of edges: zero, at-least one
+    // partition on self loops: absent, present
+    // partition on label: present, absent
+
+    // Testing strategy for verticesView(), sourcesView(), targetsView(), weight()
+    // partition on label: present, absent
+    // views equal the copies, views cannot be modified
+
+    // Testing strategy for add(), set(), remove(), increment()
+    // always throw UnsupportedOperationException
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // zero vertices, zero edges
+    @Test
+    public void testFreezeEmptyGraph() {
+	CompactGraph<String> graph = CompactGraph.freeze(Graph.empty());
+
+	assertEquals("expected frozen empty graph to have no vertices", new HashSet<String>(), graph.vertices());
+	assertEquals("expected no sources of an absent label", new HashMap<String, Integer>(),
+		graph.sources("London"));
+	assertEquals("expected no targets of an absent label", new HashMap<String, Integer>(),
+		graph.targets("London"));
+    }
+
+    // at-least one vertex, at-least one edge, self loop present, isolated vertex
+    @Test
+    public void testFreezeKeepsVerticesAndEdges() {
+	Graph<String> original = Graph.empty();
+	original.set("Pune", "Delhi", 25);
+	original.set("Pune", "Mumbai", 5);
+	original.set("Mumbai", "Pune", 7);
+	original.set("Delhi", "Delhi", 3);
+	original.add("Hong Kong");
+	CompactGraph<String> graph = CompactGraph.freeze(original);
+
+	assertEquals("expected the same vertices", original.vertices(), graph.vertices());
+	for (String vertex : original.vertices()) {
+	    assertEquals("expected the same sources of " + vertex, original.sources(vertex), graph.sources(vertex));
+	    assertEquals("expected the same targets of " + vertex, original.targets(vertex), graph.targets(vertex));
+	}
+    }
+
+    // at-least one edge, frozen graph does not follow the original
+    @Test
+    public void testFreezeIsACopy() {
+	Graph<String> original = Graph.empty();
+	original.set("Delhi", "West Bengal", 26);
+	CompactGraph<String> graph = CompactGraph.freeze(original);
+	original.set("Delhi", "West Bengal", 0);
+	original.add("Bangalore");
+
+	Map<String, Integer> expectedTargets = new HashMap<String, Integer>();
+	expectedTargets.put("West Bengal", 26);
+
+	assertEquals("expected frozen vertices to be unchanged", new HashSet<String>(Arrays.asList("Delhi", "West Bengal")),
+		graph.vertices());
+	assertEquals("expected frozen edges to be unchanged", expectedTargets, graph.targets("Delhi"));
+    }
+
+    // returned maps are copies
+    @Test
+    public void testTargetsIsACopy() {
+	Graph<String> original = Graph.empty();
+	original.set("Delhi", "West Bengal", 26);
+	CompactGraph<String> graph = CompactGraph.freeze(original);
+	graph.targets("Delhi").clear();
+	graph.vertices().clear();
+
+	assertEquals("expected edge to survive changes to a returned map", 1, graph.targets("Delhi").size());
+	assertEquals("expected vertices to survive changes to a returned set", 2, graph.vertices().size());
+    }
+
+    // label present and absent, self loop present
+    @Test
+    public void testViewsEqualCopies() {
+	Graph<String> original = Graph.empty();
+	original.set("Pune", "Delhi", 25);
+	original.set("Pune", "Mumbai", 5);
+	original.set("Mumbai", "Pune", 7);
+	original.set("Delhi", "Delhi", 3);
+	CompactGraph<String> graph = CompactGraph.freeze(original);
+
+	assertEquals("expected view of vertices to equal vertices", graph.vertices(), graph.verticesView());
+	for (String vertex : Arrays.asList("Pune", "Delhi", "Mumbai", "London")) {
+	    assertEquals("expected view of sources of " + vertex, graph.sources(vertex), graph.sourcesView(vertex));
+	    assertEquals("expected view of targets of " + vertex, graph.targets(vertex), graph.targetsView(vertex));
+	}
+	assertEquals("expected weight through the view", Integer.valueOf(5), graph.targetsView("Pune").get("Mumbai"));
+	assertFalse("expected absent edge not in the view", graph.sourcesView("Pune").containsKey("Delhi"));
+    }
+
+    // label present and absent, self loop present
+    @Test
+    public void testWeight() {
+	Graph<String> original = Graph.empty();
+	original.set("Pune", "Delhi", 25);
+	original.set("Pune", "Mumbai", 5);
+	original.set("Delhi", "Delhi", 3);
+	CompactGraph<String> graph = CompactGraph.freeze(original);
+
+	assertEquals("expected weight of present edge", 5, graph.weight("Pune", "Mumbai"));
+	assertEquals("expected weight of self loop", 3, graph.weight("Delhi", "Delhi"));
+	assertEquals("expected zero for reversed edge", 0, graph.weight("Delhi", "Pune"));
+	assertEquals("expected zero for absent target", 0, graph.weight("Pune", "London"));
+	assertEquals("expected zero for absent source", 0, graph.weight("London", "Pune"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewsUnmodifiable() {
+	Graph<String> original = Graph.empty();
+	original.set("Delhi", "West Bengal", 26);
+	CompactGraph.freeze(original).targetsView("Delhi").clear();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddUnsupported() {
+	CompactGraph.freeze(Graph.<String>empty()).add("London");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetUnsupported() {
+	CompactGraph.freeze(Graph.<String>empty()).set("London", "Paris", 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveUnsupported() {
+	CompactGraph.freeze(Graph.<String>empty()).remove("London");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIncrementUnsupported() {
+	CompactGraph.freeze(Graph.<String>empty()).increment("London", "Paris", 1);
+    }
+
+    // one edge
+    @Test
+    public void testtoString() {
+	Graph<String> original = Graph.empty();
+	original.set("California", "Delhi", 2000);
+	String returnedValue = CompactGraph.freeze(original).toString();
+
+	assertEquals("Returned string does not matches the expected string", "California-----(2000)----->Delhi",
+		returnedValue);
+    }
+
+}
@@ -33,6 +33,7 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
     //   partition on number of vertices: zero, at-least one
     //   partition on number of edges: zero, at-least one
     //   partition on number of isolated vertices: zero, at-least one
+    //   partition on removals before: none, an edge, a vertex, most of the edges
     
     // tests for ConcreteEdgesGraph.toString()
     
@@ -98,6 +99,32 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
     	
     	assertEquals("Returned string does not matches the expected string", expectedValue, returnedValue);
     }
+    
+    // at-least one vertex, at-least one edge, an edge, a vertex and then most of the edges removed
+    @Test
+    public void testtoStringAfterRemovals() {
+    	ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<String>();
+        graph.set("California", "Delhi", 2000);
+        graph.set("NewYork", "California", 48);
+        graph.set("London", "NewYork", 379);
+        graph.set("Berlin", "London", 248);
+        graph.set("Paris", "Berlin", 105);
+        graph.set("Rome", "Paris", 110);
+        
+        graph.set("NewYork", "California", 0);
+        graph.remove("Delhi");
+    	assertEquals("Expected the other edges in the order they were added", String.join("\n",
+                               "London-----(379)----->NewYork",
+                               "Berlin-----(248)----->London",
+                               "Paris-----(105)----->Berlin",
+                               "Rome-----(110)----->Paris",
+                               "California"), graph.toString());
+    	
+        graph.remove("London");
+        graph.set("Paris", "Berlin", 0);
+    	assertEquals("Expected the other edge, then the isolated vertices", "Rome-----(110)----->Paris",
+    			graph.toString().lines().findFirst().get());
+    }
       
     
     /*
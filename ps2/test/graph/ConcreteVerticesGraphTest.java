@@ -33,6 +33,7 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     // partition on number of vertices: zero, at-least one
     // partition on number of edges: zero, at-least one
     // partition on number of isolated vertices: zero, at-least one
+    // partition on removals before: none, a vertex, most of the vertices
 
     // tests for ConcreteVerticesGraph.toString()
 
@@ -91,6 +92,30 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
 	assertEquals("Returned string does not matches the expected string", returnedValue, expectedValue);
     }
 
+    // at-least one vertex, at-least one edge, one isolated vertex, a vertex and then most of
+    // the vertices removed
+    @Test
+    public void testtoStringAfterRemovals() {
+	ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
+	graph.set("California", "Delhi", 2000);
+	graph.set("NewYork", "California", 48);
+	graph.set("London", "NewYork", 379);
+	graph.set("Berlin", "London", 248);
+	graph.add("Hong Kong");
+
+	graph.remove("Delhi");
+	String expectedValue = String.join("\n", "NewYork-----(48)----->California", "London-----(379)----->NewYork",
+		"Berlin-----(248)----->London", "Hong Kong");
+	assertEquals("Expected the other vertices in the order they were added", expectedValue, graph.toString());
+
+	graph.remove("California");
+	graph.remove("NewYork");
+	graph.remove("London");
+	graph.add("Paris");
+	assertEquals("Expected the other vertices in the order they were added", "Berlin\nHong Kong\nParis",
+		graph.toString());
+    }
+
     /*
      * Testing Vertex...
      */
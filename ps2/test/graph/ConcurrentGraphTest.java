@@ -0,0 +1,173 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph.
+ *
+ * This class runs the GraphInstanceTest tests against ConcurrentGraph, as
+ * well as multi-threaded tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+
+    /*
+     * Provide a ConcurrentGraph for tests in GraphInstanceTest.
+     */
+    @Override
+    public Graph<String> emptyInstance() {
+	return new ConcurrentGraph<String>();
+    }
+
+    /*
+     * Testing ConcurrentGraph...
+     */
+
+    // Testing strategy for concurrent use
+    // partition on edges written by the threads: shared, disjoint
+    // partition on operations: set only, increment only, set and remove mixed
+    //   with reads
+
+    // shared edge, set only
+    // every weight written is returned as the previous weight exactly once,
+    // except the weight left in the graph
+    @Test
+    public void testConcurrentSetPreviousWeights() throws Exception {
+	ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+	List<List<Integer>> returned = runThreads(thread -> {
+	    List<Integer> previousWeights = new ArrayList<>();
+	    for (int i = 0; i < OPERATIONS; i++) {
+		previousWeights.add(graph.set("A", "B", thread * OPERATIONS + i + 1));
+	    }
+	    return previousWeights;
+	});
+
+	List<Integer> seen = new ArrayList<>();
+	for (List<Integer> previousWeights : returned) {
+	    seen.addAll(previousWeights);
+	}
+	seen.add(graph.targets("A").get("B"));
+	seen.remove(Integer.valueOf(0));
+	Collections.sort(seen);
+
+	assertEquals("expected every weight exactly once", THREADS * OPERATIONS, seen.size());
+	for (int i = 0; i < seen.size(); i++) {
+	    assertEquals("expected every weight exactly once", i + 1, seen.get(i).intValue());
+	}
+    }
+
+    // shared edge, increment only
+    // no increment is lost, and every new weight is returned exactly once
+    @Test
+    public void testConcurrentIncrementCounts() throws Exception {
+	ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+	List<List<Integer>> returned = runThreads(thread -> {
+	    List<Integer> newWeights = new ArrayList<>();
+	    for (int i = 0; i < OPERATIONS; i++) {
+		newWeights.add(graph.increment("A", "B", 1));
+	    }
+	    return newWeights;
+	});
+
+	List<Integer> seen = new ArrayList<>();
+	for (List<Integer> newWeights : returned) {
+	    seen.addAll(newWeights);
+	}
+	Collections.sort(seen);
+
+	assertEquals("expected no lost increment", THREADS * OPERATIONS, graph.weight("A", "B"));
+	assertEquals("expected both sides of the edge to agree", Integer.valueOf(THREADS * OPERATIONS),
+		graph.sources("B").get("A"));
+	for (int i = 0; i < seen.size(); i++) {
+	    assertEquals("expected every new weight exactly once", i + 1, seen.get(i).intValue());
+	}
+    }
+
+    // shared and disjoint edges, set and remove mixed with reads
+    // both sides of every edge agree once the threads are done
+    @Test
+    public void testConcurrentStressConsistent() throws Exception {
+	ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+	runThreads(thread -> {
+	    Random random = new Random(thread);
+	    for (int i = 0; i < OPERATIONS; i++) {
+		int source = random.nextInt(200);
+		int target = random.nextInt(200);
+		int operation = random.nextInt(10);
+		if (operation < 6) {
+		    graph.set(source, target, random.nextInt(5) + 1);
+		} else if (operation < 8) {
+		    graph.set(source, target, 0);
+		} else if (operation < 9) {
+		    graph.remove(source);
+		} else {
+		    for (Map.Entry<Integer, Integer> entry : graph.targets(source).entrySet()) {
+			assertTrue("expected positive weights", entry.getValue() > 0);
+		    }
+		}
+	    }
+	    return null;
+	});
+
+	for (Integer vertex : graph.vertices()) {
+	    for (Map.Entry<Integer, Integer> entry : graph.targets(vertex).entrySet()) {
+		assertTrue("expected target to be a vertex", graph.vertices().contains(entry.getKey()));
+		assertEquals("expected both sides of the edge to agree", entry.getValue(),
+			graph.sources(entry.getKey()).get(vertex));
+	    }
+	    for (Map.Entry<Integer, Integer> entry : graph.sources(vertex).entrySet()) {
+		assertEquals("expected both sides of the edge to agree", entry.getValue(),
+			graph.targets(entry.getKey()).get(vertex));
+	    }
+	}
+    }
+
+    /**
+     * Work done by one thread of a test.
+     */
+    private interface ThreadWork<T> {
+	T run(int thread) throws Exception;
+    }
+
+    /**
+     * Runs work on THREADS threads at once and returns their results in thread
+     * order, failing if any thread fails.
+     */
+    private <T> List<T> runThreads(ThreadWork<T> work) throws Exception {
+	ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+	try {
+	    List<Future<T>> futures = new ArrayList<>();
+	    for (int thread = 0; thread < THREADS; thread++) {
+		final int id = thread;
+		futures.add(executor.submit(() -> work.run(id)));
+	    }
+	    List<T> results = new ArrayList<>();
+	    for (Future<T> future : futures) {
+		results.add(future.get(60, TimeUnit.SECONDS));
+	    }
+	    return results;
+	} finally {
+	    executor.shutdownNow();
+	}
+    }
+
+}
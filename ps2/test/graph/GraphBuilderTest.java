@@ -0,0 +1,172 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for GraphBuilder.
+ */
+public class GraphBuilderTest {
+
+    // Testing strategy for add(), set(), increment(), setAll() and the build methods
+    // partition on number of vertices: zero, at-least one
+    // partition on edges: none, set once, set again, set to zero, self loop,
+    //   incremented while absent and present
+    // partition on implementation built: every implementation
+    // partition on builder use after build: none, changed after build
+    // setAll: lengths equal, lengths differ
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private final List<MappedGraph<?>> mappedGraphs = new ArrayList<>();
+
+    @After
+    public void closeMappedGraphs() {
+	for (MappedGraph<?> graph : mappedGraphs) {
+	    graph.close();
+	}
+    }
+
+    /**
+     * Returns a MappedGraph built by builder, closed after the test.
+     */
+    private <L> MappedGraph<L> buildMappedGraph(GraphBuilder<L> builder) {
+	MappedGraph<L> graph = builder.buildMappedGraph();
+	mappedGraphs.add(graph);
+	return graph;
+    }
+
+    /**
+     * Returns a graph of every implementation built by builder.
+     */
+    private List<Graph<String>> buildAll(GraphBuilder<String> builder) {
+	return Arrays.asList(builder.buildConcreteVerticesGraph(), builder.buildConcreteEdgesGraph(),
+		builder.buildConcurrentGraph(), buildMappedGraph(builder), builder.buildCompactGraph());
+    }
+
+    // zero vertices, every implementation
+    @Test
+    public void testBuildEmpty() {
+	for (Graph<String> graph : buildAll(new GraphBuilder<String>())) {
+	    assertEquals("expected no vertices in " + graph.getClass(), Collections.emptySet(), graph.vertices());
+	}
+    }
+
+    // edges set once, set again, set to zero, self loop, isolated vertex
+    @Test
+    public void testBuildMatchesSet() {
+	GraphBuilder<String> builder = new GraphBuilder<>();
+	builder.set("Pune", "Delhi", 25).set("Pune", "Mumbai", 5).set("Mumbai", "Pune", 7);
+	builder.set("Pune", "Delhi", 26).set("Pune", "Mumbai", 0).set("Delhi", "Delhi", 3);
+	builder.add("Hong Kong");
+
+	Map<String, Integer> expectedTargets = new HashMap<>();
+	expectedTargets.put("Delhi", 26);
+	Map<String, Integer> expectedSources = new HashMap<>();
+	expectedSources.put("Pune", 26);
+	expectedSources.put("Delhi", 3);
+	for (Graph<String> graph : buildAll(builder)) {
+	    assertEquals("expected every vertex in " + graph.getClass(),
+		    new HashSet<>(Arrays.asList("Pune", "Delhi", "Mumbai", "Hong Kong")), graph.vertices());
+	    assertEquals("expected last weight set in " + graph.getClass(), expectedTargets, graph.targets("Pune"));
+	    assertEquals("expected self loop in " + graph.getClass(), Collections.singletonMap("Delhi", 3),
+		    graph.targets("Delhi"));
+	    assertEquals("expected sources in " + graph.getClass(), expectedSources, graph.sources("Delhi"));
+	    assertEquals("expected no edges of isolated vertex in " + graph.getClass(), Collections.emptyMap(),
+		    graph.targets("Hong Kong"));
+	}
+    }
+
+    // many random edges, every implementation agrees with loading by set
+    @Test
+    public void testBuildAgreesWithSet() {
+	GraphBuilder<Integer> builder = new GraphBuilder<>(100);
+	Graph<Integer> expected = Graph.empty();
+	Random random = new Random(6005);
+	for (int i = 0; i < 2_000; i++) {
+	    int source = random.nextInt(100);
+	    int target = random.nextInt(100);
+	    int weight = random.nextInt(4);
+	    builder.set(source, target, weight);
+	    expected.set(source, target, weight);
+	}
+
+	List<Graph<Integer>> graphs = Arrays.asList(builder.buildConcreteVerticesGraph(),
+		builder.buildConcreteEdgesGraph(), builder.buildConcurrentGraph(), buildMappedGraph(builder),
+		builder.buildCompactGraph());
+	for (Graph<Integer> graph : graphs) {
+	    assertEquals("expected same vertices in " + graph.getClass(), expected.vertices(), graph.vertices());
+	    for (Integer vertex : expected.vertices()) {
+		assertEquals("expected same targets in " + graph.getClass(), expected.targets(vertex),
+			graph.targets(vertex));
+		assertEquals("expected same sources in " + graph.getClass(), expected.sources(vertex),
+			graph.sources(vertex));
+	    }
+	}
+    }
+
+    // incremented while absent and present
+    @Test
+    public void testIncrement() {
+	GraphBuilder<String> builder = new GraphBuilder<>();
+	builder.increment("Pune", "Delhi", 2).increment("Pune", "Delhi", 3).set("Mumbai", "Pune", 7);
+	builder.increment("Mumbai", "Pune", 1);
+
+	for (Graph<String> graph : buildAll(builder)) {
+	    assertEquals("expected sum of deltas in " + graph.getClass(), Collections.singletonMap("Delhi", 5),
+		    graph.targets("Pune"));
+	    assertEquals("expected set weight plus delta in " + graph.getClass(), Collections.singletonMap("Mumbai", 8),
+		    graph.sources("Pune"));
+	}
+    }
+
+    // builder changed after build
+    @Test
+    public void testBuiltGraphIndependentOfBuilder() {
+	GraphBuilder<String> builder = new GraphBuilder<>();
+	builder.set("Pune", "Delhi", 25);
+	ConcreteVerticesGraph<String> graph = builder.buildConcreteVerticesGraph();
+	builder.set("Pune", "Delhi", 1).add("London");
+	graph.set("Pune", "Mumbai", 4);
+
+	assertEquals("expected built graph unchanged", 25, graph.weight("Pune", "Delhi"));
+	assertFalse("expected built graph unchanged", graph.vertices().contains("London"));
+	assertEquals("expected builder unchanged by the graph", 0,
+		builder.buildConcreteEdgesGraph().weight("Pune", "Mumbai"));
+    }
+
+    // setAll, lengths equal
+    @Test
+    public void testSetAll() {
+	GraphBuilder<String> builder = new GraphBuilder<>();
+	builder.setAll(new String[] { "Pune", "Pune", "Pune" }, new String[] { "Delhi", "Mumbai", "Delhi" },
+		new int[] { 25, 5, 0 });
+
+	assertEquals("expected edges in order", Collections.singletonMap("Mumbai", 5),
+		builder.buildCompactGraph().targets("Pune"));
+    }
+
+    // setAll, lengths differ
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetAllLengthsDiffer() {
+	new GraphBuilder<String>().setAll(new String[] { "Pune" }, new String[0], new int[] { 1 });
+    }
+
+}
@@ -4,6 +4,7 @@
 package graph;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 import java.util.Collections;
 import java.util.Set;
@@ -56,6 +57,18 @@ public abstract class GraphInstanceTest {
      * 1. source is absent.
      * 2. source is present, no outgoing neighbour.
      * 3. source is present, atleast one outgoing neighbour.
+     * 
+     * Test cases for the views of IndexedGraph
+     * 1. views equal the copies for present and absent vertices.
+     * 2. views cannot be modified.
+     * 
+     * Test cases for weight of IndexedGraph
+     * 1. edge is present, edge is absent, source is absent, edge was removed.
+     * 
+     * Test cases for increment of IndexedGraph
+     * 1. Source is absent, Target is absent, edge is absent.
+     * 2. Source is present, Target is present, edge is present.
+     * 3. Source equals Target.
      */
     
     /**
@@ -187,6 +200,28 @@ public abstract class GraphInstanceTest {
     			+ "Hence, remove instance method should have returned false.",  returnedValue);
     }
    
+    // Vertex is present in the graph, with incoming, outgoing and self loop edges
+    @Test
+    public void testRemoveVertexPresentWithEdges() {
+    	Graph<String> graph = emptyInstance();
+    	graph.set("A", "B", 3);
+    	graph.set("C", "A", 4);
+    	graph.set("A", "A", 5);
+    	graph.set("B", "C", 6);
+    	boolean returnedValue= graph.remove("A");
+    	
+    	Map<String, Integer> expectedTargets = new HashMap<String, Integer>();
+    	expectedTargets.put("C", 6);
+    	
+    	assertTrue("The vertex was present in the graph. "
+    			+ "Hence, remove instance method should have returned true.",  returnedValue);
+    	assertEquals("expected the removed vertex to be absent",
+    			new HashSet<String>(Arrays.asList("B", "C")), graph.vertices());
+    	assertEquals("expected no edges from the removed vertex", new HashMap<String, Integer>(), graph.sources("B"));
+    	assertEquals("expected no edges to the removed vertex", new HashMap<String, Integer>(), graph.targets("C"));
+    	assertEquals("expected edges between other vertices to be kept", expectedTargets, graph.targets("B"));
+    }
+   
     // Vertex is absent in the graph
     @Test
     public void testRemoveVertexAbsent() {
@@ -321,4 +356,82 @@ public abstract class GraphInstanceTest {
     }
    
     
+    // views equal the copies for present and absent vertices.
+    @Test
+    public void testViewsEqualCopies() {
+    	Graph<String> graph = emptyInstance();
+    	assumeTrue(graph instanceof IndexedGraph);
+    	IndexedGraph<String> indexed = (IndexedGraph<String>) graph;
+    	indexed.set("Pune", "Delhi", 25);
+    	indexed.set("Pune", "Mumbai", 5);
+    	indexed.set("Mumbai", "Pune", 3);
+    	indexed.add("London");
+    	
+    	assertEquals("expected view of vertices to equal vertices",
+    			       indexed.vertices(), indexed.verticesView());
+    	for (String vertex : Arrays.asList("Pune", "Delhi", "Mumbai", "London", "Paris")) {
+    		assertEquals("expected view of sources to equal sources",
+    				       indexed.sources(vertex), indexed.sourcesView(vertex));
+    		assertEquals("expected view of targets to equal targets",
+    				       indexed.targets(vertex), indexed.targetsView(vertex));
+    	}
+    }
+    
+    // views cannot be modified.
+    @Test(expected=UnsupportedOperationException.class)
+    public void testViewsUnmodifiable() {
+    	Graph<String> graph = emptyInstance();
+    	assumeTrue(graph instanceof IndexedGraph);
+    	IndexedGraph<String> indexed = (IndexedGraph<String>) graph;
+    	indexed.set("Pune", "Delhi", 25);
+    	
+    	indexed.targetsView("Pune").put("Mumbai", 5);
+    }
+    
+    // edge is present, edge is absent, source is absent, edge was removed.
+    @Test
+    public void testWeight() {
+    	Graph<String> graph = emptyInstance();
+    	assumeTrue(graph instanceof IndexedGraph);
+    	IndexedGraph<String> indexed = (IndexedGraph<String>) graph;
+    	indexed.set("Pune", "Delhi", 25);
+    	indexed.set("Pune", "Mumbai", 5);
+    	indexed.set("Pune", "Mumbai", 0);
+    	
+    	assertEquals("expected weight of present edge", 25, indexed.weight("Pune", "Delhi"));
+    	assertEquals("expected zero for reversed edge", 0, indexed.weight("Delhi", "Pune"));
+    	assertEquals("expected zero for removed edge", 0, indexed.weight("Pune", "Mumbai"));
+    	assertEquals("expected zero for absent source", 0, indexed.weight("London", "Delhi"));
+    }
+    
+    // Source is absent, Target is absent, edge is absent.
+    @Test
+    public void testIncrementAbsentEdge() {
+    	Graph<String> graph = emptyInstance();
+    	assumeTrue(graph instanceof IndexedGraph);
+    	IndexedGraph<String> indexed = (IndexedGraph<String>) graph;
+    	
+    	assertEquals("expected new weight of new edge", 3, indexed.increment("Pune", "Delhi", 3));
+    	assertEquals("expected source and target added",
+    			       new HashSet<String>(Arrays.asList("Pune", "Delhi")), indexed.vertices());
+    	assertEquals("expected new edge in sources", Collections.singletonMap("Pune", 3), indexed.sources("Delhi"));
+    }
+    
+    // Source is present, Target is present, edge is present; Source equals Target.
+    @Test
+    public void testIncrementPresentEdge() {
+    	Graph<String> graph = emptyInstance();
+    	assumeTrue(graph instanceof IndexedGraph);
+    	IndexedGraph<String> indexed = (IndexedGraph<String>) graph;
+    	indexed.set("Pune", "Delhi", 25);
+    	indexed.increment("Mumbai", "Mumbai", 1);
+    	
+    	assertEquals("expected sum of weights", 27, indexed.increment("Pune", "Delhi", 2));
+    	assertEquals("expected sum of weights", 2, indexed.increment("Mumbai", "Mumbai", 1));
+    	assertEquals("expected updated weight in targets", Collections.singletonMap("Delhi", 27), indexed.targets("Pune"));
+    	assertEquals("expected updated weight in sources", Collections.singletonMap("Pune", 27), indexed.sources("Delhi"));
+    	assertEquals("expected self loop on both sides", Collections.singletonMap("Mumbai", 2), indexed.sources("Mumbai"));
+    	assertEquals("expected previous weight from set", 27, indexed.set("Pune", "Delhi", 0));
+    }
+    
 }
@@ -0,0 +1,167 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphSearch.
+ */
+public class GraphSearchTest {
+
+    // Testing strategy for isReachable(), reachable(), hops(), distance(),
+    // shortestPath() and bidirectionalDistance()
+    // partition on vertices: not in graph, same vertex, different vertices
+    // partition on paths: none, one edge, several edges, lightest path has more
+    //   edges than the path with fewest edges, cycle
+    // partition on graph: CompactGraph, other graph (frozen)
+    // partition on queries: first, many in a row on the same searcher
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /**
+     * Returns a graph where the lightest path from Pune to Mumbai, through Goa
+     * and Surat, has more edges than the path with fewest edges, through Delhi.
+     */
+    private static Graph<String> cities() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 10);
+	graph.set("Delhi", "Mumbai", 10);
+	graph.set("Pune", "Goa", 2);
+	graph.set("Goa", "Surat", 3);
+	graph.set("Surat", "Mumbai", 4);
+	graph.set("Mumbai", "Pune", 1);
+	graph.add("Chennai");
+	return graph;
+    }
+
+    /**
+     * Returns the weight of the lightest path from source to target, found with
+     * Dijkstra's algorithm over the Graph operations, or -1 if there is none.
+     */
+    private static long lightestPath(Graph<String> graph, String source, String target) {
+	Map<String, Long> distances = new HashMap<>();
+	PriorityQueue<Map.Entry<String, Long>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+	queue.add(Map.entry(source, 0L));
+	while (!queue.isEmpty()) {
+	    Map.Entry<String, Long> next = queue.poll();
+	    if (distances.containsKey(next.getKey())) {
+		continue;
+	    }
+	    distances.put(next.getKey(), next.getValue());
+	    for (Map.Entry<String, Integer> edge : graph.targets(next.getKey()).entrySet()) {
+		queue.add(Map.entry(edge.getKey(), next.getValue() + edge.getValue()));
+	    }
+	}
+	return distances.getOrDefault(target, -1L);
+    }
+
+    // vertices not in graph, same vertex, no path
+    @Test
+    public void testNoPath() {
+	GraphSearch<String> search = new GraphSearch<>(cities());
+
+	assertFalse("expected no path from a missing vertex", search.isReachable("Agra", "Pune"));
+	assertEquals("expected no hops to a missing vertex", -1, search.hops("Pune", "Agra"));
+	assertEquals("expected no distance", -1, search.distance("Agra", "Agra"));
+	assertEquals("expected no distance", -1, search.bidirectionalDistance("Pune", "Agra"));
+	assertEquals("expected no path", Collections.emptyList(), search.shortestPath("Agra", "Pune"));
+	assertEquals("expected nothing reachable", Collections.emptySet(), search.reachable("Agra"));
+
+	assertFalse("expected no path to an isolated vertex", search.isReachable("Pune", "Chennai"));
+	assertEquals("expected no distance", -1, search.distance("Pune", "Chennai"));
+	assertEquals("expected no distance", -1, search.bidirectionalDistance("Chennai", "Pune"));
+	assertEquals("expected no path", Collections.emptyList(), search.shortestPath("Pune", "Chennai"));
+    }
+
+    // same vertex
+    @Test
+    public void testSameVertex() {
+	GraphSearch<String> search = new GraphSearch<>(cities());
+
+	assertTrue("expected path to itself", search.isReachable("Chennai", "Chennai"));
+	assertEquals("expected zero hops", 0, search.hops("Chennai", "Chennai"));
+	assertEquals("expected zero distance", 0, search.distance("Pune", "Pune"));
+	assertEquals("expected zero distance", 0, search.bidirectionalDistance("Pune", "Pune"));
+	assertEquals("expected one vertex path", Arrays.asList("Pune"), search.shortestPath("Pune", "Pune"));
+	assertEquals("expected only itself", Set.of("Chennai"), search.reachable("Chennai"));
+    }
+
+    // lightest path has more edges, cycle, CompactGraph and other graph
+    @Test
+    public void testPaths() {
+	Graph<String> graph = cities();
+	for (Graph<String> g : Arrays.asList(graph, CompactGraph.freeze(graph))) {
+	    GraphSearch<String> search = new GraphSearch<>(g);
+
+	    assertEquals("expected fewest hops", 2, search.hops("Pune", "Mumbai"));
+	    assertEquals("expected lightest distance", 9, search.distance("Pune", "Mumbai"));
+	    assertEquals("expected lightest distance", 9, search.bidirectionalDistance("Pune", "Mumbai"));
+	    assertEquals("expected lightest path", Arrays.asList("Pune", "Goa", "Surat", "Mumbai"),
+		    search.shortestPath("Pune", "Mumbai"));
+	    assertEquals("expected path around the cycle", 11, search.distance("Mumbai", "Delhi"));
+	    assertEquals("expected one edge", 1, search.bidirectionalDistance("Mumbai", "Pune"));
+	    assertEquals("expected every city but Chennai",
+		    new HashSet<>(Arrays.asList("Pune", "Delhi", "Goa", "Surat", "Mumbai")), search.reachable("Goa"));
+	}
+    }
+
+    // many queries in a row on one searcher agree with a search over the Graph
+    // operations
+    @Test
+    public void testAgreesWithFullSearch() {
+	Graph<String> graph = Graph.empty();
+	Random random = new Random(6005);
+	int vertices = 300;
+	for (int i = 0; i < 900; i++) {
+	    graph.set("v" + random.nextInt(vertices), "v" + random.nextInt(vertices), random.nextInt(20) + 1);
+	}
+
+	GraphSearch<String> search = new GraphSearch<>(graph);
+	for (int i = 0; i < 500; i++) {
+	    String source = "v" + random.nextInt(vertices);
+	    String target = "v" + random.nextInt(vertices);
+	    if (!graph.vertices().contains(source) || !graph.vertices().contains(target)) {
+		continue;
+	    }
+	    long expected = lightestPath(graph, source, target);
+	    String pair = source + " to " + target;
+
+	    assertEquals("expected reachability of " + pair, expected >= 0, search.isReachable(source, target));
+	    assertEquals("expected distance of " + pair, expected, search.distance(source, target));
+	    assertEquals("expected distance of " + pair, expected, search.bidirectionalDistance(source, target));
+
+	    List<String> path = search.shortestPath(source, target);
+	    if (expected < 0) {
+		assertEquals("expected no path from " + pair, Collections.emptyList(), path);
+		continue;
+	    }
+	    long weight = 0;
+	    for (int j = 1; j < path.size(); j++) {
+		weight += graph.targets(path.get(j - 1)).get(path.get(j));
+	    }
+	    assertEquals("expected path from " + source, source, path.get(0));
+	    assertEquals("expected path to " + target, target, path.get(path.size() - 1));
+	    assertEquals("expected lightest path from " + pair, expected, weight);
+	    assertTrue("expected no fewer hops than edges of the path",
+		    search.hops(source, target) <= path.size() - 1);
+	}
+    }
+
+}
@@ -0,0 +1,138 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphSnapshot.
+ */
+public class GraphSnapshotTest {
+
+    // Testing strategy for write() and read()
+    // partition on number of vertices: zero, at-least one
+    // partition on edges: none, self loop, weights needing one and several varint bytes
+    // partition on labels: ascii, non-ascii
+    // partition on graph written: CompactGraph (ids kept), other graph
+    // partition on file: well-formed, not a snapshot, truncated, trailing bytes
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /**
+     * Returns a new temporary file, deleted when the JVM exits.
+     */
+    private static File temporaryFile() throws IOException {
+	File file = File.createTempFile("graph", ".snapshot");
+	file.deleteOnExit();
+	return file;
+    }
+
+    /**
+     * Writes graph to a snapshot and reads it back.
+     */
+    private static Graph<String> roundTrip(Graph<String> graph) throws IOException {
+	File file = temporaryFile();
+	GraphSnapshot.write(graph, file);
+	return GraphSnapshot.read(file);
+    }
+
+    // zero vertices
+    @Test
+    public void testEmpty() throws IOException {
+	assertEquals("expected no vertices", Collections.emptySet(), roundTrip(Graph.empty()).vertices());
+    }
+
+    // isolated vertex, self loop, large weight, non-ascii labels
+    @Test
+    public void testRoundTrip() throws IOException {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 25);
+	graph.set("Delhi", "Delhi", 3);
+	graph.set("München", "Kraków", Integer.MAX_VALUE);
+	graph.add("Hong Kong");
+
+	Graph<String> read = roundTrip(graph);
+	assertEquals("expected same vertices", graph.vertices(), read.vertices());
+	for (String vertex : graph.vertices()) {
+	    assertEquals("expected same targets of " + vertex, graph.targets(vertex), read.targets(vertex));
+	    assertEquals("expected same sources of " + vertex, graph.sources(vertex), read.sources(vertex));
+	}
+    }
+
+    // many random edges, ids needing several varint bytes
+    @Test
+    public void testRoundTripRandom() throws IOException {
+	Graph<String> graph = Graph.empty();
+	Random random = new Random(6005);
+	for (int i = 0; i < 5_000; i++) {
+	    graph.set("v" + random.nextInt(1_000), "v" + random.nextInt(1_000), random.nextInt(100_000) + 1);
+	}
+
+	Graph<String> read = roundTrip(graph);
+	assertEquals("expected same vertices", graph.vertices(), read.vertices());
+	for (String vertex : graph.vertices()) {
+	    assertEquals("expected same targets of " + vertex, graph.targets(vertex), read.targets(vertex));
+	}
+    }
+
+    // CompactGraph whose ids are not in hash order keeps every id
+    @Test
+    public void testKeepsIds() throws IOException {
+	GraphBuilder<String> builder = new GraphBuilder<>();
+	for (int i = 999; i >= 0; i--) {
+	    builder.set("v" + i, "v" + (i * 7 % 1_000), i + 1);
+	}
+	CompactGraph<String> graph = builder.buildCompactGraph();
+
+	CompactGraph<String> read = (CompactGraph<String>) roundTrip(graph);
+	assertEquals("expected same vertex count", graph.vertexCount(), read.vertexCount());
+	for (int id = 0; id < graph.vertexCount(); id++) {
+	    assertEquals("expected same label of id " + id, graph.label(id), read.label(id));
+	    assertEquals("expected same targets of id " + id, graph.targets(graph.label(id)), read.targets(read.label(id)));
+	}
+    }
+
+    // not a snapshot
+    @Test(expected = IOException.class)
+    public void testNotASnapshot() throws IOException {
+	File file = temporaryFile();
+	Files.writeString(file.toPath(), "Seek out new life and new civilizations");
+	GraphSnapshot.read(file);
+    }
+
+    // truncated
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 25);
+	File file = temporaryFile();
+	GraphSnapshot.write(graph, file);
+	byte[] bytes = Files.readAllBytes(file.toPath());
+	Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 1));
+	GraphSnapshot.read(file);
+    }
+
+    // trailing bytes
+    @Test(expected = IOException.class)
+    public void testTrailingBytes() throws IOException {
+	File file = temporaryFile();
+	GraphSnapshot.write(Graph.empty(), file);
+	byte[] bytes = Files.readAllBytes(file.toPath());
+	Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length + 1));
+	GraphSnapshot.read(file);
+    }
+
+}
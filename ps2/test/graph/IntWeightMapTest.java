@@ -0,0 +1,127 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for IntWeightMap.
+ */
+public class IntWeightMapTest {
+
+    // Testing strategy for getInt(), putInt(), addInt(), removeInt()
+    // partition on key: present, absent
+    // partition on size: zero, one, large enough to grow the arrays
+    // partition on removed keys: none, some (leaving tombstones)
+
+    // Testing strategy for the Map methods
+    // equals and hashCode agree with HashMap
+    // copies are independent, iterator and entry writes go through the map
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // size zero, key absent
+    @Test
+    public void testEmpty() {
+	IntWeightMap<String> map = new IntWeightMap<>();
+
+	assertEquals("expected no entries", 0, map.size());
+	assertEquals("expected zero for absent key", 0, map.getInt("London"));
+	assertEquals("expected zero when removing absent key", 0, map.removeInt("London"));
+	assertNull("expected null for absent key", map.get("London"));
+	assertEquals("expected equal to empty map", new HashMap<String, Integer>(), map);
+    }
+
+    // size one, key present and absent
+    @Test
+    public void testPutAddRemove() {
+	IntWeightMap<String> map = new IntWeightMap<>();
+
+	assertEquals("expected no previous weight", 0, map.putInt("Pune", 25));
+	assertEquals("expected previous weight", 25, map.putInt("Pune", 30));
+	assertEquals("expected new weight", 32, map.addInt("Pune", 2));
+	assertEquals("expected delta as new weight", 5, map.addInt("Delhi", 5));
+	assertEquals("expected boxed weight", Integer.valueOf(32), map.get("Pune"));
+	assertEquals("expected removed weight", 32, map.removeInt("Pune"));
+	assertFalse("expected removed key absent", map.containsKey("Pune"));
+	assertEquals("expected other key kept", 5, map.getInt("Delhi"));
+	assertEquals("expected one entry", 1, map.size());
+    }
+
+    // large enough to grow, some keys removed, compared against HashMap
+    @Test
+    public void testAgreesWithHashMap() {
+	IntWeightMap<Integer> map = new IntWeightMap<>();
+	Map<Integer, Integer> expected = new HashMap<>();
+	Random random = new Random(6005);
+	for (int i = 0; i < 20_000; i++) {
+	    int key = random.nextInt(2_000);
+	    if (random.nextInt(3) == 0) {
+		Integer removed = expected.remove(key);
+		assertEquals("expected same removed weight", removed == null ? 0 : removed.intValue(),
+			map.removeInt(key));
+	    } else {
+		int weight = random.nextInt(10) + 1;
+		assertEquals("expected same new weight", expected.merge(key, weight, Integer::sum).intValue(),
+			map.addInt(key, weight));
+	    }
+	}
+
+	assertEquals("expected same entries", expected, map);
+	assertEquals("expected same entries", map, expected);
+	assertEquals("expected same hash code", expected.hashCode(), map.hashCode());
+	assertEquals("expected same keys", expected.keySet(), map.keySet());
+    }
+
+    // copies are independent
+    @Test
+    public void testCopy() {
+	IntWeightMap<String> map = new IntWeightMap<>();
+	map.putInt("Pune", 25);
+	IntWeightMap<String> copy = new IntWeightMap<>(map);
+	copy.putInt("Pune", 1);
+	copy.putInt("Delhi", 2);
+
+	assertEquals("expected original unchanged", 25, map.getInt("Pune"));
+	assertEquals("expected original unchanged", 1, map.size());
+	assertEquals("expected copy changed", 1, copy.getInt("Pune"));
+    }
+
+    // iterator and entry writes go through the map, tombstones left behind
+    @Test
+    public void testIteratorRemoveAndSetValue() {
+	IntWeightMap<Integer> map = new IntWeightMap<>();
+	for (int i = 0; i < 100; i++) {
+	    map.putInt(i, i + 1);
+	}
+	Iterator<Map.Entry<Integer, Integer>> iterator = map.entrySet().iterator();
+	int seen = 0;
+	while (iterator.hasNext()) {
+	    Map.Entry<Integer, Integer> entry = iterator.next();
+	    seen++;
+	    if (entry.getKey() % 2 == 0) {
+		iterator.remove();
+	    } else {
+		entry.setValue(entry.getValue() * 10);
+	    }
+	}
+
+	assertEquals("expected every entry visited once", 100, seen);
+	assertEquals("expected even keys removed", 50, map.size());
+	for (int i = 0; i < 100; i++) {
+	    assertEquals("expected odd keys updated", i % 2 == 0 ? 0 : (i + 1) * 10, map.getInt(i));
+	}
+    }
+
+}
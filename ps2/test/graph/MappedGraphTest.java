@@ -0,0 +1,188 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for MappedGraph.
+ *
+ * This class runs the GraphInstanceTest tests against MappedGraph, as well as
+ * tests of compaction for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class MappedGraphTest extends GraphInstanceTest {
+
+    private final List<MappedGraph<?>> instances = new ArrayList<>();
+
+    /*
+     * Provide a MappedGraph for tests in GraphInstanceTest; it compacts after
+     * a few changes, so the tests run against both the base and the delta.
+     */
+    @Override
+    public Graph<String> emptyInstance() {
+	MappedGraph<String> graph = new MappedGraph<String>(temporaryDirectory(), 2);
+	instances.add(graph);
+	return graph;
+    }
+
+    @After
+    public void closeInstances() {
+	for (MappedGraph<?> graph : instances) {
+	    graph.close();
+	}
+    }
+
+    /*
+     * Testing MappedGraph...
+     */
+
+    // Testing strategy for compact()
+    // partition on changes since the last compaction: none, edges added,
+    //   changed and removed, vertices removed and added again
+    // partition on compaction: explicit, automatic
+    //
+    // Testing strategy for close()
+    // partition on calls: once, twice
+    // partition on use after close: none, an operation
+    // partition on maximumDelta: zero, positive, negative
+
+    /**
+     * Returns a new temporary directory, deleted when the JVM exits if it is empty.
+     */
+    private static File temporaryDirectory() {
+	try {
+	    File directory = Files.createTempDirectory("mapped-graph").toFile();
+	    directory.deleteOnExit();
+	    return directory;
+	} catch (IOException exp) {
+	    throw new AssertionError("cannot create a temporary directory", exp);
+	}
+    }
+
+    // no changes, explicit compaction
+    @Test
+    public void testCompactEmpty() {
+	try (MappedGraph<String> graph = new MappedGraph<>(temporaryDirectory())) {
+	    graph.compact();
+
+	    assertEquals("expected no vertices", Collections.emptySet(), graph.vertices());
+	}
+    }
+
+    // edges changed and removed, vertex removed and added again, explicit compaction
+    @Test
+    public void testCompactKeepsGraph() {
+	MappedGraph<String> graph = new MappedGraph<>(temporaryDirectory());
+	instances.add(graph);
+	graph.set("Pune", "Delhi", 25);
+	graph.set("Delhi", "Delhi", 3);
+	graph.set("Mumbai", "Pune", 7);
+	graph.compact();
+	graph.set("Pune", "Delhi", 26);
+	graph.remove("Mumbai");
+	graph.add("Mumbai");
+	graph.set("Delhi", "Delhi", 0);
+	graph.increment("Delhi", "Pune", 2);
+
+	String before = graph.toString();
+	graph.compact();
+	assertEquals("expected same string after compaction", before, graph.toString());
+	assertEquals("expected changed weight", Collections.singletonMap("Delhi", 26), graph.targets("Pune"));
+	assertEquals("expected incremented edge", Collections.singletonMap("Pune", 2), graph.targets("Delhi"));
+	assertEquals("expected no edges of added vertex", Collections.emptyMap(), graph.sources("Mumbai"));
+	assertEquals("expected views backed by the file", Collections.singletonMap("Pune", 26),
+		graph.sourcesView("Delhi"));
+    }
+
+    // many random changes, automatic compaction, compared against another graph
+    @Test
+    public void testAgreesWithConcreteVerticesGraph() {
+	File directory = temporaryDirectory();
+	MappedGraph<Integer> graph = new MappedGraph<>(directory, 16);
+	instances.add(graph);
+	Graph<Integer> expected = new ConcreteVerticesGraph<>();
+	Random random = new Random(6005);
+	for (int i = 0; i < 5_000; i++) {
+	    int source = random.nextInt(50);
+	    int target = random.nextInt(50);
+	    int operation = random.nextInt(20);
+	    if (operation == 0) {
+		assertEquals("expected same removal", expected.remove(source), graph.remove(source));
+	    } else if (operation < 6) {
+		assertEquals("expected same previous weight", expected.set(source, target, 0),
+			graph.set(source, target, 0));
+	    } else {
+		int weight = random.nextInt(5) + 1;
+		assertEquals("expected same previous weight", expected.set(source, target, weight),
+			graph.set(source, target, weight));
+	    }
+	}
+
+	assertEquals("expected same vertices", expected.vertices(), graph.vertices());
+	for (Integer vertex : expected.vertices()) {
+	    assertEquals("expected same targets", expected.targets(vertex), graph.targets(vertex));
+	    assertEquals("expected same sources", expected.sources(vertex), graph.sources(vertex));
+	    assertEquals("expected same targets view", expected.targets(vertex), graph.targetsView(vertex));
+	}
+	assertEquals("expected old files deleted", 1, directory.list().length);
+    }
+
+    // maximumDelta zero: every change is merged into the file at once
+    @Test
+    public void testMaximumDeltaZero() {
+	File directory = temporaryDirectory();
+	try (MappedGraph<String> graph = new MappedGraph<>(directory, 0)) {
+	    graph.set("Pune", "Delhi", 25);
+	    graph.increment("Pune", "Delhi", 1);
+	    graph.remove("Delhi");
+
+	    assertEquals("expected one vertex", Collections.singleton("Pune"), graph.vertices());
+	    assertEquals("expected no edges", Collections.emptyMap(), graph.targetsView("Pune"));
+	    assertEquals("expected old files deleted", 1, directory.list().length);
+	}
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaximumDeltaNegative() {
+	new MappedGraph<String>(temporaryDirectory(), -1);
+    }
+
+    // close once and twice, files deleted
+    @Test
+    public void testClose() {
+	File directory = temporaryDirectory();
+	MappedGraph<String> graph = new MappedGraph<>(directory);
+	graph.set("Pune", "Delhi", 25);
+	graph.compact();
+	graph.set("Delhi", "Mumbai", 3);
+	graph.close();
+	graph.close();
+
+	assertEquals("expected files deleted", 0, directory.list().length);
+	assertEquals("expected empty string", "", graph.toString());
+    }
+
+    // an operation after close
+    @Test(expected = IllegalStateException.class)
+    public void testUseAfterClose() {
+	MappedGraph<String> graph = new MappedGraph<>(temporaryDirectory());
+	graph.set("Pune", "Delhi", 25);
+	graph.close();
+	graph.targets("Pune");
+    }
+
+}
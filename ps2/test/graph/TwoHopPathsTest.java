@@ -0,0 +1,142 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for TwoHopPaths.
+ */
+public class TwoHopPathsTest {
+
+    // Testing strategy for bestMiddle()
+    // partition on vertices: not in graph, no edges, with edges
+    // partition on paths: none, one, several, ties in weight, through a self loop
+    // partition on degrees: similar (merge), source much larger, target much larger (probe)
+    // partition on graph: CompactGraph, other graph (frozen)
+    // partition on excluded middle: none, not in graph, the heaviest middle,
+    //   the only middle
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /**
+     * Returns the weight of the heaviest two-edge path from source to target,
+     * found by trying every middle vertex, or zero if there is none.
+     */
+    private static long heaviestPath(Graph<String> graph, String source, String target) {
+	long heaviest = 0;
+	for (Map.Entry<String, Integer> first : graph.targets(source).entrySet()) {
+	    Integer second = graph.targets(first.getKey()).get(target);
+	    if (second != null) {
+		heaviest = Math.max(heaviest, (long) first.getValue() + second);
+	    }
+	}
+	return heaviest;
+    }
+
+    // vertices not in graph, vertex without edges, no path
+    @Test
+    public void testNoPath() {
+	Graph<String> graph = Graph.empty();
+	graph.add("Pune");
+	graph.set("Delhi", "Mumbai", 3);
+	TwoHopPaths<String> paths = new TwoHopPaths<>(graph);
+
+	assertNull("expected no path from a missing vertex", paths.bestMiddle("Goa", "Mumbai"));
+	assertNull("expected no path to a missing vertex", paths.bestMiddle("Delhi", "Goa"));
+	assertNull("expected no path from an isolated vertex", paths.bestMiddle("Pune", "Mumbai"));
+	assertNull("expected no path over one edge", paths.bestMiddle("Delhi", "Mumbai"));
+    }
+
+    // several paths, one through a self loop, CompactGraph and other graph
+    @Test
+    public void testHeaviest() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 1);
+	graph.set("Delhi", "Mumbai", 5);
+	graph.set("Pune", "Goa", 3);
+	graph.set("Goa", "Mumbai", 1);
+	graph.set("Pune", "Pune", 2);
+	graph.set("Pune", "Mumbai", 1);
+
+	for (Graph<String> g : Arrays.asList(graph, CompactGraph.freeze(graph))) {
+	    TwoHopPaths<String> paths = new TwoHopPaths<>(g);
+	    assertEquals("expected heaviest middle", "Delhi", paths.bestMiddle("Pune", "Mumbai"));
+	    assertEquals("expected self loop as middle", "Pune", paths.bestMiddle("Pune", "Goa"));
+	}
+    }
+
+    // excluded middle: not in graph, the heaviest middle, the only middle,
+    // merged and probed
+    @Test
+    public void testExcludedMiddle() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 1);
+	graph.set("Delhi", "Mumbai", 5);
+	graph.set("Pune", "Goa", 3);
+	graph.set("Goa", "Mumbai", 1);
+	graph.set("Delhi", "Chennai", 1);
+	for (int i = 0; i < 40; i++) {
+	    graph.set("v" + i, "Chennai", 1);
+	}
+
+	assertEquals("expected heaviest middle", "Delhi", new TwoHopPaths<>(graph, "Agra").bestMiddle("Pune", "Mumbai"));
+	TwoHopPaths<String> paths = new TwoHopPaths<>(graph, "Delhi");
+	assertEquals("expected next heaviest middle", "Goa", paths.bestMiddle("Pune", "Mumbai"));
+	assertNull("expected no path but through the excluded middle", paths.bestMiddle("Pune", "Chennai"));
+    }
+
+    // ties in weight
+    @Test
+    public void testTie() {
+	Graph<String> graph = Graph.empty();
+	graph.set("Pune", "Delhi", 1);
+	graph.set("Delhi", "Mumbai", 2);
+	graph.set("Pune", "Goa", 2);
+	graph.set("Goa", "Mumbai", 1);
+
+	String middle = new TwoHopPaths<>(graph).bestMiddle("Pune", "Mumbai");
+	assertTrue("expected a heaviest middle", Arrays.asList("Delhi", "Goa").contains(middle));
+    }
+
+    // random graph with two hubs, so every kind of degree pair is searched
+    @Test
+    public void testAgreesWithFullSearch() {
+	Graph<String> graph = Graph.empty();
+	Random random = new Random(6005);
+	int vertices = 500;
+	for (int i = 0; i < 3_000; i++) {
+	    graph.set("v" + random.nextInt(vertices), "v" + random.nextInt(vertices), random.nextInt(10) + 1);
+	}
+	for (int i = 0; i < vertices; i += 2) {
+	    graph.set("hub", "v" + i, random.nextInt(10) + 1);
+	    graph.set("v" + (i + 1), "sink", random.nextInt(10) + 1);
+	}
+
+	TwoHopPaths<String> paths = new TwoHopPaths<>(graph);
+	for (int i = 0; i < 3_000; i++) {
+	    String source = i % 3 == 0 ? "hub" : "v" + random.nextInt(vertices);
+	    String target = i % 3 == 1 ? "sink" : "v" + random.nextInt(vertices);
+	    long expected = heaviestPath(graph, source, target);
+	    String middle = paths.bestMiddle(source, target);
+	    if (expected == 0) {
+		assertNull("expected no path from " + source + " to " + target, middle);
+	    } else {
+		assertNotNull("expected a path from " + source + " to " + target, middle);
+		assertEquals("expected heaviest path from " + source + " to " + target, expected,
+			(long) graph.targets(source).get(middle) + graph.targets(middle).get(target));
+	    }
+	}
+    }
+
+}
@@ -0,0 +1,104 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for Validation.
+ */
+public class ValidationTest {
+
+    // Testing strategy
+    // partition on level: OFF, SAMPLED, FULL
+    // counters: before and after reset
+    // partition on graph.validation property: unset, a level in any case, not a level
+
+    private static final int OPERATIONS = 10_000;
+
+    private Validation previousLevel;
+
+    @Before
+    public void saveLevel() {
+	previousLevel = Validation.level();
+	Validation.resetCounters();
+    }
+
+    @After
+    public void restoreLevel() {
+	Validation.setLevel(previousLevel);
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // with assertions enabled and no system property, the default is FULL
+    @Test
+    public void testDefaultLevelFull() {
+	if (System.getProperty("graph.validation") == null) {
+	    assertEquals("expected full checking with -ea", Validation.FULL, previousLevel);
+	}
+    }
+
+    // property unset, a level in any case with whitespace, not a level
+    @Test
+    public void testParseLevel() {
+	assertEquals("expected default with -ea", Validation.FULL, Validation.parseLevel(null, true));
+	assertEquals("expected default without -ea", Validation.OFF, Validation.parseLevel(null, false));
+	assertEquals("expected named level", Validation.SAMPLED, Validation.parseLevel(" sampled ", true));
+	assertEquals("expected named level", Validation.OFF, Validation.parseLevel("OFF", true));
+	assertEquals("expected default for a bad value", Validation.FULL, Validation.parseLevel("everything", true));
+	assertEquals("expected default for a bad value", Validation.OFF, Validation.parseLevel("", false));
+    }
+
+    // FULL, counters before and after reset
+    @Test
+    public void testFullChecksEveryCall() {
+	Validation.setLevel(Validation.FULL);
+	ConcreteVerticesGraph<Integer> graph = new ConcreteVerticesGraph<>();
+	for (int i = 0; i < OPERATIONS; i++) {
+	    graph.set(i, i + 1, 1);
+	}
+
+	assertTrue("expected at least one check per set", Validation.checks() >= OPERATIONS);
+	assertTrue("expected time spent checking", Validation.nanos() > 0);
+	Validation.resetCounters();
+	assertEquals("expected no checks after reset", 0, Validation.checks());
+	assertEquals("expected no time after reset", 0, Validation.nanos());
+    }
+
+    // OFF
+    @Test
+    public void testOffSkipsChecks() {
+	Validation.setLevel(Validation.OFF);
+	ConcreteEdgesGraph<Integer> graph = new ConcreteEdgesGraph<>();
+	for (int i = 0; i < OPERATIONS; i++) {
+	    graph.set(i, i + 1, 1);
+	}
+
+	assertEquals("expected no checks", 0, Validation.checks());
+	assertEquals("expected no time spent checking", 0, Validation.nanos());
+    }
+
+    // SAMPLED
+    @Test
+    public void testSampledChecksSomeCalls() {
+	Validation.setLevel(Validation.SAMPLED);
+	ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+	for (int i = 0; i < OPERATIONS; i++) {
+	    graph.set(i, i + 1, 1);
+	}
+
+	long expected = OPERATIONS / Validation.SAMPLE_PERIOD;
+	assertTrue("expected some checks", Validation.checks() > expected / 4);
+	assertTrue("expected far fewer checks than calls", Validation.checks() < expected * 4);
+    }
+
+}
@@ -0,0 +1,175 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.Test;
+
+/**
+ * Tests for CorpusReader.
+ */
+public class CorpusReaderTest {
+
+    // Testing strategy for nextWord()
+    // Partition on number of words in the corpus: zero, one, more than one
+    // Partition on whitespace: single, multiple, leading and trailing, non-space
+    // Partition on characters: ASCII only, non-ASCII, outside the BMP
+    // Partition on window size: whole file, smaller than a multi-byte character sequence
+    // Partition on dictionary: own, shared between readers
+
+    // Testing strategy for normalize()
+    // Partition on punctuation: absent, present, only punctuation
+    // Partition on case: lower, upper, mixed
+
+    private final String parentFolder = "ps2/src/poet/"; // a path to the folder containing files
+
+    // zero words, empty file
+    @Test
+    public void testEmptyCorpus() throws IOException {
+	assertEquals("expected no words", Arrays.asList(), readAll(""));
+    }
+
+    // zero words, only whitespace
+    @Test
+    public void testWhitespaceOnlyCorpus() throws IOException {
+	assertEquals("expected no words", Arrays.asList(), readAll(" \n\t \r\n"));
+    }
+
+    // one word, no whitespace
+    @Test
+    public void testOneWord() throws IOException {
+	assertEquals("expected one word", Arrays.asList("hello"), readAll("Hello,"));
+    }
+
+    // more than one word, multiple and leading and trailing whitespace, punctuation only word
+    @Test
+    public void testManyWords() throws IOException {
+	assertEquals("expected words in order", Arrays.asList("hello", "hello", "", "goodbye"),
+		readAll("  Hello,\n\nHELLO \t -- goodbye!\n"));
+    }
+
+    // non-ASCII and supplementary characters, window smaller than a character
+    @Test
+    public void testSmallWindows() throws IOException {
+	String corpus = "Gr\u00fc\u00dfe, \u00c9COLE na\u00efve \ud835\udc00bc\u2003\u03a3\u0391\u03a3 \ud835\udfd8 end";
+	// the reader decodes the file in the default charset, which may not encode
+	// every character of corpus, so the words expected are those of the file
+	File file = writeCorpus(corpus);
+	List<String> expected = scannerWords(new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset()));
+	for (long windowSize = 4; windowSize < 12; windowSize++) {
+	    assertEquals("expected the same words with windows of " + windowSize, expected,
+		    readAll(file, windowSize));
+	}
+    }
+
+    // same words as Scanner and the regex normalization on the corpus files
+    @Test
+    public void testCorpusFiles() throws IOException {
+	for (String fileName : Arrays.asList("star-trek.txt", "mugar-omni-theater.txt")) {
+	    File file = new File(parentFolder + fileName);
+	    String corpus = new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
+	    assertEquals("expected the same words as Scanner in " + fileName, scannerWords(corpus),
+		    readAll(corpus, 16));
+	}
+    }
+
+    // punctuation present, mixed case
+    @Test
+    public void testNormalize() {
+	assertEquals("expected punctuation removed and lower case", "hello", CorpusReader.normalize("HeLLo!"));
+	assertEquals("expected empty word", "", CorpusReader.normalize("--"));
+	assertEquals("expected non-ASCII lower case", "\u03a3\u0391\u03a3".toLowerCase(),
+		CorpusReader.normalize("\u03a3\u0391\u03a3"));
+    }
+
+    // dictionary shared between readers, repeated words
+    @Test
+    public void testSharedDictionary() throws IOException {
+	WordDictionary dictionary = new WordDictionary();
+	File corpus = writeCorpus("Hello, hello HELLO");
+
+	List<String> words = new ArrayList<>();
+	for (int i = 0; i < 2; i++) {
+	    try (CorpusReader reader = new CorpusReader(corpus, dictionary)) {
+		String word;
+		while ((word = reader.nextWord()) != null) {
+		    words.add(word);
+		}
+	    }
+	}
+	assertEquals("expected six words", 6, words.size());
+	for (String word : words) {
+	    assertSame("expected one canonical instance", words.get(0), word);
+	}
+	assertEquals("expected one word in the dictionary", 1, dictionary.size());
+    }
+
+    /**
+     * Writes corpus to a temporary file and reads all its words with the default
+     * window size.
+     */
+    private List<String> readAll(String corpus) throws IOException {
+	File file = writeCorpus(corpus);
+	List<String> words = new ArrayList<>();
+	try (CorpusReader reader = new CorpusReader(file)) {
+	    for (String word = reader.nextWord(); word != null; word = reader.nextWord()) {
+		words.add(word);
+	    }
+	}
+	return words;
+    }
+
+    /**
+     * Writes corpus to a temporary file and reads all its words with the given
+     * window size.
+     */
+    private List<String> readAll(String corpus, long windowSize) throws IOException {
+	return readAll(writeCorpus(corpus), windowSize);
+    }
+
+    /**
+     * Reads all the words of a file with the given window size.
+     */
+    private List<String> readAll(File file, long windowSize) throws IOException {
+	List<String> words = new ArrayList<>();
+	try (CorpusReader reader = new CorpusReader(file, windowSize)) {
+	    for (String word = reader.nextWord(); word != null; word = reader.nextWord()) {
+		words.add(word);
+	    }
+	}
+	return words;
+    }
+
+    /**
+     * Returns the words of corpus as split by Scanner and normalized with the
+     * regular expression GraphPoet used before CorpusReader.
+     */
+    private List<String> scannerWords(String corpus) {
+	List<String> words = new ArrayList<>();
+	try (Scanner scanner = new Scanner(corpus)) {
+	    while (scanner.hasNext()) {
+		words.add(scanner.next().replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase());
+	    }
+	}
+	return words;
+    }
+
+    private File writeCorpus(String corpus) throws IOException {
+	File file = File.createTempFile("corpus", ".txt");
+	file.deleteOnExit();
+	Files.write(file.toPath(), corpus.getBytes(Charset.defaultCharset()));
+	return file;
+    }
+
+}
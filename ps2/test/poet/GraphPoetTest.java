@@ -7,6 +7,18 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Test;
 
@@ -26,6 +38,27 @@ public class GraphPoetTest {
     // Testing strategy for input string to poem()
     // Partition on number of bridge words inserted: zero, one, more than one.
     // Partition on location of bride word: start, middle , end.
+    // Partition on punctuation-only words in the corpus: absent, the only
+    // bridge, the heaviest of several bridges
+
+    // Testing strategy for poems()
+    // Partition on number of inputs: zero, one task, split into many tasks
+    // Partition on form: list, stream
+
+    // Testing strategy for bridgeWords()
+    // Partition on number of bridges: zero, fewer than k, at least k
+    // Partition on ties in path weight: none, tie at the k-th bridge
+    // Partition on words: lower case, other case or punctuation, not in corpus
+    // Partition on punctuation-only words in the corpus: absent, among the
+    // bridges
+    // Partition on graph: built from a corpus, loaded from a snapshot
+
+    // Testing strategy for poem() with bridge phrases
+    // Partition on maxBridgeWords: 1, more than 1
+    // Partition on ranking: total weight, average weight
+    // Partition on budgetPerPair: zero, long, negative
+    // Partition on punctuation-only words in the corpus: absent, on the
+    // heaviest phrase
 
     @Test(expected = AssertionError.class)
     public void testAssertionsEnabled() {
@@ -84,6 +117,360 @@ public class GraphPoetTest {
 
     }
 
+    // leading, trailing and multiple whitespace of several kinds, words absent
+    // from the corpus
+    @Test
+    public void testpoemWhitespace() {
+
+	String fileName = "star-trek.txt";
+	String input = "  Seek\tto \r\n explore new Vulcans \u000B";
+	String expectedResult = " Seek to explore strange new Vulcans";
+	testGraphPoemHelper(parentFolder + fileName, input, expectedResult);
+
+    }
+
+    // bridge words indexed, multiple bridge words are added
+    // bridge words are added at start, middle, end.
+    @Test
+    public void testpoemIndexedBridgeWords() {
+
+	String filePath = parentFolder + "star-trek.txt";
+	String[] inputs = { "Seek to explore new and exciting synergies!",
+		"This team will seek out life and civilizations.", "These are voyages of starship Enterprise.",
+		"He will boldly go where man has before!" };
+	try {
+	    GraphPoet graphPoet = new GraphPoet(new File(filePath));
+	    GraphPoet indexedGraphPoet = new GraphPoet(new File(filePath), true);
+	    for (String input : inputs) {
+		compareThisWithThat(indexedGraphPoet.poem(input), graphPoet.poem(input));
+		compareThisWithThat(indexedGraphPoet.poem(input), graphPoet.poem(input));
+	    }
+	} catch (IOException exp) {
+	    fail("Failed to read txt file: " + exp.getMessage());
+	}
+
+    }
+
+    // punctuation-only words in the corpus, the only bridge and the heaviest
+    // of several bridges, with and without the index
+    @Test
+    public void testpoemPunctuationOnlyWords() throws IOException {
+
+	File onlyBridge = File.createTempFile("punctuation", ".txt");
+	onlyBridge.deleteOnExit();
+	Files.writeString(onlyBridge.toPath(), "x -- y x -- y");
+	compareThisWithThat(new GraphPoet(onlyBridge).poem("x y"), "x y");
+
+	File heaviestBridge = File.createTempFile("punctuation", ".txt");
+	heaviestBridge.deleteOnExit();
+	Files.writeString(heaviestBridge.toPath(), "x -- y x -- y x z y");
+	compareThisWithThat(new GraphPoet(heaviestBridge).poem("x y"), "x z y");
+
+	for (File corpus : Arrays.asList(onlyBridge, heaviestBridge)) {
+	    GraphPoet graphPoet = new GraphPoet(corpus);
+	    GraphPoet indexedGraphPoet = new GraphPoet(corpus, true);
+	    for (String input : Arrays.asList("x y", "x y x -- y", "-- y x z")) {
+		compareThisWithThat(indexedGraphPoet.poem(input), graphPoet.poem(input));
+	    }
+	}
+
+    }
+
+    // several corpora, same file twice
+    @Test
+    public void testpoemManyCorporaSameFile() throws IOException {
+
+	File file = new File(parentFolder + "star-trek.txt");
+	GraphPoet graphPoet = new GraphPoet(file);
+	GraphPoet manyCorporaGraphPoet = new GraphPoet(Arrays.asList(file, file));
+	String input = "He will boldly go where man has before!";
+	compareThisWithThat(manyCorporaGraphPoet.poem(input), graphPoet.poem(input));
+
+    }
+
+    // several corpora in a directory, word pairs do not span files
+    @Test
+    public void testpoemManyCorporaDirectory() throws IOException {
+
+	File directory = Files.createTempDirectory("corpora").toFile();
+	directory.deleteOnExit();
+	File first = new File(directory, "a.txt");
+	File second = new File(directory, "b.txt");
+	first.deleteOnExit();
+	second.deleteOnExit();
+	Files.writeString(first.toPath(), "Seek out new");
+	Files.writeString(second.toPath(), "life and new civilizations");
+
+	GraphPoet graphPoet = new GraphPoet(Collections.singletonList(directory));
+	compareThisWithThat(graphPoet.poem("seek new"), "seek out new");
+	compareThisWithThat(graphPoet.poem("out life"), "out life");
+	compareThisWithThat(graphPoet.poem("life new"), "life and new");
+
+    }
+
+    // several corpora, one file is missing
+    @Test(expected = IOException.class)
+    public void testManyCorporaMissingFile() throws IOException {
+	new GraphPoet(Arrays.asList(new File(parentFolder + "star-trek.txt"), new File(parentFolder + "missing.txt")));
+    }
+
+    // poet loaded from a snapshot, with and without the index
+    @Test
+    public void testpoemFromSnapshot() throws IOException {
+
+	File snapshot = File.createTempFile("star-trek", ".snapshot");
+	snapshot.deleteOnExit();
+	GraphPoet graphPoet = new GraphPoet(new File(parentFolder + "star-trek.txt"));
+	graphPoet.writeSnapshot(snapshot);
+	String input = "He will boldly go where man has before!";
+	compareThisWithThat(GraphPoet.fromSnapshot(snapshot, false).poem(input), graphPoet.poem(input));
+	compareThisWithThat(GraphPoet.fromSnapshot(snapshot, true).poem(input), graphPoet.poem(input));
+
+    }
+
+    // poet loaded from a snapshot, many pairs with tied bridge words
+    @Test
+    public void testpoemFromSnapshotTiedBridges() throws IOException {
+
+	// every "start end" pair has three bridge words of the same weight
+	StringBuilder corpus = new StringBuilder();
+	StringBuilder input = new StringBuilder();
+	for (int i = 0; i < 200; i++) {
+	    for (String bridge : List.of("alpha", "beta", "gamma")) {
+		corpus.append("start").append(i).append(' ').append(bridge).append(i).append(" end").append(i).append(' ');
+	    }
+	    input.append("start").append(i).append(" end").append(i).append(' ');
+	}
+	File file = File.createTempFile("tied", ".txt");
+	file.deleteOnExit();
+	Files.writeString(file.toPath(), corpus);
+	File snapshot = File.createTempFile("tied", ".snapshot");
+	snapshot.deleteOnExit();
+
+	GraphPoet graphPoet = new GraphPoet(file);
+	graphPoet.writeSnapshot(snapshot);
+	String poem = graphPoet.poem(input.toString().trim());
+	compareThisWithThat(GraphPoet.fromSnapshot(snapshot, false).poem(input.toString().trim()), poem);
+	compareThisWithThat(GraphPoet.fromSnapshot(snapshot, true).poem(input.toString().trim()), poem);
+
+    }
+
+    // batch of poems, empty and large enough to be split, with and without the
+    // index, order preserved
+    @Test
+    public void testpoemsBatch() throws IOException {
+
+	File file = new File(parentFolder + "star-trek.txt");
+	GraphPoet graphPoet = new GraphPoet(file);
+	String[] words = Files.readString(file.toPath()).trim().split("\\s+");
+	List<String> inputs = new ArrayList<>();
+	Random random = new Random(6005);
+	for (int i = 0; i < 1_000; i++) {
+	    StringBuilder input = new StringBuilder();
+	    for (int j = random.nextInt(8); j >= 0; j--) {
+		input.append(words[random.nextInt(words.length)]).append(j == 0 ? "" : " ");
+	    }
+	    inputs.add(input.toString());
+	}
+
+	assertEquals("expected no poems", Collections.emptyList(), graphPoet.poems(Collections.<String>emptyList()));
+	for (GraphPoet poet : Arrays.asList(graphPoet, new GraphPoet(file, true))) {
+	    List<String> poems = poet.poems(inputs);
+	    assertEquals("expected one poem per input", inputs.size(), poems.size());
+	    for (int i = 0; i < inputs.size(); i++) {
+		compareThisWithThat(poems.get(i), graphPoet.poem(inputs.get(i)));
+	    }
+	}
+
+    }
+
+    // stream of poems, order preserved, closing closes the inputs
+    @Test
+    public void testpoemsStream() throws IOException {
+
+	GraphPoet graphPoet = new GraphPoet(new File(parentFolder + "star-trek.txt"));
+	String[] inputs = { "Seek to explore new and exciting synergies!",
+		"This team will seek out life and civilizations.", "", "These are voyages of starship Enterprise." };
+	boolean[] closed = { false };
+	List<String> poems;
+	try (Stream<String> stream = graphPoet.poems(Stream.of(inputs).onClose(() -> closed[0] = true))) {
+	    poems = stream.collect(Collectors.toList());
+	}
+
+	assertEquals("expected one poem per input", inputs.length, poems.size());
+	for (int i = 0; i < inputs.length; i++) {
+	    compareThisWithThat(poems.get(i), graphPoet.poem(inputs[i]));
+	}
+	assertTrue("expected inputs closed", closed[0]);
+
+    }
+
+    // bridges fewer than and at least k, tie at the k-th bridge, words in other
+    // case and with punctuation, words not in the corpus
+    @Test
+    public void testbridgeWords() throws IOException {
+
+	File corpus = File.createTempFile("bridges", ".txt");
+	corpus.deleteOnExit();
+	// a -> x -> b weighs 4, a -> y -> b and a -> z -> b weigh 2
+	Files.writeString(corpus.toPath(), "a x b a x b a y b a z b");
+	GraphPoet graphPoet = new GraphPoet(corpus);
+
+	assertEquals("expected best bridge", Arrays.asList("x"), graphPoet.bridgeWords("a", "b", 1));
+	assertEquals("expected tie in alphabetical order", Arrays.asList("x", "y"), graphPoet.bridgeWords("a", "b", 2));
+	assertEquals("expected every bridge", Arrays.asList("x", "y", "z"), graphPoet.bridgeWords("A,", "b!", 5));
+	assertEquals("expected no bridge", Collections.emptyList(), graphPoet.bridgeWords("a", "a", 3));
+	assertEquals("expected no bridge", Collections.emptyList(), graphPoet.bridgeWords("a", "missing", 3));
+
+    }
+
+    // punctuation-only words among the bridges, the heaviest and the only one
+    @Test
+    public void testbridgeWordsPunctuationOnlyWords() throws IOException {
+
+	File corpus = File.createTempFile("bridges", ".txt");
+	corpus.deleteOnExit();
+	// x -> "" -> y weighs 5, x -> z -> y and x -> w -> y weigh 2
+	Files.writeString(corpus.toPath(), "x -- y x -- y x z y x w y");
+	GraphPoet graphPoet = new GraphPoet(corpus);
+
+	assertEquals("expected no empty bridge", Arrays.asList("w"), graphPoet.bridgeWords("x", "y", 1));
+	assertEquals("expected no empty bridge", Arrays.asList("w", "z"), graphPoet.bridgeWords("x", "y", 3));
+
+	File onlyBridge = File.createTempFile("bridges", ".txt");
+	onlyBridge.deleteOnExit();
+	Files.writeString(onlyBridge.toPath(), "x -- y x -- y");
+	assertEquals("expected no bridge", Collections.emptyList(), new GraphPoet(onlyBridge).bridgeWords("x", "y", 3));
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testbridgeWordsNoneWanted() throws IOException {
+	new GraphPoet(new File(parentFolder + "star-trek.txt")).bridgeWords("seek", "new", 0);
+    }
+
+    // bridges of random pairs agree with a search of every two-edge path, from
+    // a corpus and from a snapshot
+    @Test
+    public void testbridgeWordsAgreeWithFullSearch() throws IOException {
+
+	File file = new File(parentFolder + "star-trek.txt");
+	String[] words = Files.readString(file.toPath()).trim().split("\\s+");
+	Map<String, Map<String, Integer>> edges = new HashMap<>();
+	for (int i = 1; i < words.length; i++) {
+	    edges.computeIfAbsent(CorpusReader.normalize(words[i - 1]), w -> new HashMap<>())
+		    .merge(CorpusReader.normalize(words[i]), 1, Integer::sum);
+	}
+
+	File snapshot = File.createTempFile("star-trek", ".snapshot");
+	snapshot.deleteOnExit();
+	GraphPoet graphPoet = new GraphPoet(file);
+	graphPoet.writeSnapshot(snapshot);
+	GraphPoet loadedPoet = GraphPoet.fromSnapshot(snapshot, false);
+
+	Random random = new Random(6005);
+	for (int i = 0; i < 500; i++) {
+	    String w1 = CorpusReader.normalize(words[random.nextInt(words.length)]);
+	    String w2 = CorpusReader.normalize(words[random.nextInt(words.length)]);
+	    int k = 1 + random.nextInt(4);
+
+	    Map<String, Integer> paths = new HashMap<>();
+	    for (Map.Entry<String, Integer> first : edges.getOrDefault(w1, Collections.emptyMap()).entrySet()) {
+		Integer second = edges.getOrDefault(first.getKey(), Collections.emptyMap()).get(w2);
+		if (second != null && !first.getKey().isEmpty()) {
+		    paths.put(first.getKey(), first.getValue() + second);
+		}
+	    }
+	    List<String> expected = paths.keySet().stream()
+		    .sorted(Comparator.comparing((String b) -> -paths.get(b)).thenComparing(b -> b)).limit(k)
+		    .collect(Collectors.toList());
+
+	    assertEquals("expected bridges of " + w1 + " " + w2, expected, graphPoet.bridgeWords(w1, w2, k));
+	    assertEquals("expected bridges of " + w1 + " " + w2, expected, loadedPoet.bridgeWords(w1, w2, k));
+	}
+
+    }
+
+    // more than one bridge word, total and average weight, words in other case
+    // and with punctuation
+    @Test
+    public void testpoemPhrases() throws IOException {
+
+	File corpus = File.createTempFile("phrases", ".txt");
+	corpus.deleteOnExit();
+	// a -> z -> b weighs 6 (mean 3), a -> x -> y -> b weighs 7 (mean 7/3)
+	Files.writeString(corpus.toPath(), "a z b a z b a z b a x y b a x y b c y b");
+	GraphPoet graphPoet = new GraphPoet(corpus);
+	Duration budget = Duration.ofMinutes(1);
+
+	assertEquals("expected one bridge word", "a z b",
+		graphPoet.poem("a b", 1, GraphPoet.PhraseRanking.TOTAL_WEIGHT, budget));
+	assertEquals("expected heaviest phrase", "A, x y b!",
+		graphPoet.poem("A, b!", 2, GraphPoet.PhraseRanking.TOTAL_WEIGHT, budget));
+	assertEquals("expected heaviest mean", "a z b",
+		graphPoet.poem("a b", 3, GraphPoet.PhraseRanking.AVERAGE_WEIGHT, budget));
+	assertEquals("expected phrases between every pair", "a x y b a z b c",
+		graphPoet.poem("a b b c", 2, GraphPoet.PhraseRanking.TOTAL_WEIGHT, budget));
+
+    }
+
+    // one bridge word, or no time for more, is poem(input)
+    @Test
+    public void testpoemPhrasesOneWord() throws IOException {
+
+	File file = new File(parentFolder + "star-trek.txt");
+	String[] words = Files.readString(file.toPath()).trim().split("\\s+");
+	GraphPoet graphPoet = new GraphPoet(file);
+
+	Random random = new Random(6005);
+	for (int i = 0; i < 100; i++) {
+	    StringBuilder input = new StringBuilder(words[random.nextInt(words.length)]);
+	    for (int j = random.nextInt(8); j > 0; j--) {
+		input.append(' ').append(words[random.nextInt(words.length)]);
+	    }
+	    String expected = graphPoet.poem(input.toString());
+	    for (GraphPoet.PhraseRanking ranking : GraphPoet.PhraseRanking.values()) {
+		assertEquals("expected poem of " + input, expected,
+			graphPoet.poem(input.toString(), 1, ranking, Duration.ofMinutes(1)));
+		assertEquals("expected poem of " + input, expected,
+			graphPoet.poem(input.toString(), 3, ranking, Duration.ZERO));
+	    }
+	}
+
+    }
+
+    // punctuation-only words on the heaviest phrase, total and average weight
+    @Test
+    public void testpoemPhrasesPunctuationOnlyWords() throws IOException {
+
+	File corpus = File.createTempFile("punctuation", ".txt");
+	corpus.deleteOnExit();
+	Files.writeString(corpus.toPath(), "x -- y x -- y x z -- y x z w y");
+	GraphPoet graphPoet = new GraphPoet(corpus);
+	for (GraphPoet.PhraseRanking ranking : GraphPoet.PhraseRanking.values()) {
+	    compareThisWithThat(graphPoet.poem("x y", 3, ranking, Duration.ofSeconds(1)), "x z w y");
+	}
+
+	File onlyBridge = File.createTempFile("punctuation", ".txt");
+	onlyBridge.deleteOnExit();
+	Files.writeString(onlyBridge.toPath(), "x -- y x -- y");
+	graphPoet = new GraphPoet(onlyBridge);
+	compareThisWithThat(graphPoet.poem("x y", 3, GraphPoet.PhraseRanking.TOTAL_WEIGHT, Duration.ofSeconds(1)), "x y");
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testpoemPhrasesNoWords() throws IOException {
+	new GraphPoet(new File(parentFolder + "star-trek.txt")).poem("seek new", 0,
+		GraphPoet.PhraseRanking.TOTAL_WEIGHT, Duration.ZERO);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testpoemPhrasesNegativeBudget() throws IOException {
+	new GraphPoet(new File(parentFolder + "star-trek.txt")).poem("seek new", 2,
+		GraphPoet.PhraseRanking.TOTAL_WEIGHT, Duration.ofMillis(-1));
+    }
+
     /**
      * Attempts to open the file at the mentioned location and create a affinity
      * graph from the content of the file. If the file can't be opened then fails
@@ -0,0 +1,67 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for WordDictionary.
+ */
+public class WordDictionaryTest {
+
+    // Testing strategy for intern(), find(), size()
+    // partition on word: new, already interned
+    // partition on the characters given: String, reused StringBuilder
+    // partition on size: zero, one, large enough to grow the arrays
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+	assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // size zero, word new
+    @Test
+    public void testEmpty() {
+	WordDictionary dictionary = new WordDictionary();
+
+	assertEquals("expected no words", 0, dictionary.size());
+	assertNull("expected absent word", dictionary.find("hello"));
+    }
+
+    // size one, word new then interned, String and StringBuilder
+    @Test
+    public void testInternReturnsCanonical() {
+	WordDictionary dictionary = new WordDictionary();
+	StringBuilder buffer = new StringBuilder("hello");
+	String first = dictionary.intern(buffer);
+	buffer.setLength(0);
+	buffer.append("hello");
+
+	assertEquals("expected word characters", "hello", first);
+	assertSame("expected same instance from a buffer", first, dictionary.intern(buffer));
+	assertSame("expected same instance from an equal String", first, dictionary.intern(new String("hello")));
+	assertSame("expected same instance from find", first, dictionary.find(buffer));
+	assertEquals("expected one word", 1, dictionary.size());
+    }
+
+    // large enough to grow, words already interned before and after growing
+    @Test
+    public void testGrow() {
+	WordDictionary dictionary = new WordDictionary();
+	String[] canonical = new String[1_000];
+	for (int i = 0; i < 1_000; i++) {
+	    canonical[i] = dictionary.intern("w" + i);
+	    assertSame("expected same word again", canonical[i / 2], dictionary.intern("w" + i / 2));
+	}
+
+	assertEquals("expected every word once", 1_000, dictionary.size());
+	for (int i = 0; i < 1_000; i++) {
+	    assertSame("expected canonical word", canonical[i], dictionary.find(new StringBuilder("w").append(i)));
+	}
+	assertNull("expected absent word", dictionary.find("w1000"));
+    }
+
+}